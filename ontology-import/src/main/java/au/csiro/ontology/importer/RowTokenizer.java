@@ -0,0 +1,366 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import au.csiro.ontology.util.EffectiveTime;
+
+/**
+ * Splits tab-separated release files (RF1 and RF2) into rows and fields by scanning the raw UTF-8 bytes. Fields are
+ * exposed as offsets into an internal buffer and can be compared against known values without decoding them, so
+ * {@link String}s only need to be created for the fields of the rows that are actually kept.
+ * <p>
+ * The comparison methods assume the values they are given are plain ASCII, which is the case for identifiers, flags
+ * and effective times.
+ * <p>
+ * Field offsets are only valid until the next call to {@link #next()}.
+ */
+public class RowTokenizer implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final ByteBuffer source;
+
+    private byte[] buf;
+
+    /**
+     * Number of valid bytes in the buffer.
+     */
+    private int count = 0;
+
+    /**
+     * Start of the unread bytes in the buffer.
+     */
+    private int pos = 0;
+
+    private boolean eof = false;
+
+    private int lineStart = 0;
+    private int lineEnd = 0;
+
+    /**
+     * Start offset of each field in the current line. The end of field i is the start of field i + 1 minus one, or
+     * the end of the line for the last field.
+     */
+    private int[] fieldStarts = new int[16];
+    private int fieldCount = 0;
+
+    /**
+     * Creates a tokenizer that reads from a stream. The stream is closed when the tokenizer is closed.
+     *
+     * @param in
+     */
+    public RowTokenizer(InputStream in) {
+        this.in = in;
+        this.source = null;
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a tokenizer that reads the bytes between the position and the limit of a buffer, for example a
+     * memory-mapped region of a file.
+     *
+     * @param source
+     */
+    public RowTokenizer(ByteBuffer source) {
+        this.in = null;
+        this.source = source.slice();
+        this.buf = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Advances to the next line. Trailing carriage returns are removed.
+     *
+     * @return false if there are no more lines.
+     * @throws IOException
+     */
+    public boolean next() throws IOException {
+        int nl = indexOfNewline(pos);
+        while (nl < 0 && !eof) {
+            // Bytes already scanned are moved to the start of the buffer
+            final int scanned = count - pos;
+            fill();
+            nl = indexOfNewline(pos + scanned);
+        }
+
+        if (nl < 0) {
+            if (pos >= count) {
+                fieldCount = 0;
+                return false;
+            }
+            // Last line without a newline
+            nl = count;
+        }
+
+        lineStart = pos;
+        lineEnd = nl;
+        pos = nl + 1;
+        if (lineEnd > lineStart && buf[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+
+        fieldCount = 1;
+        fieldStarts[0] = lineStart;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf[i] == '\t') {
+                if (fieldCount == fieldStarts.length) {
+                    final int[] tmp = new int[fieldCount * 2];
+                    System.arraycopy(fieldStarts, 0, tmp, 0, fieldCount);
+                    fieldStarts = tmp;
+                }
+                fieldStarts[fieldCount++] = i + 1;
+            }
+        }
+        return true;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < count; i++) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads more bytes into the buffer, keeping the unread bytes of the current line.
+     */
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, count - pos);
+            count -= pos;
+            pos = 0;
+        }
+        if (count == buf.length) {
+            final byte[] tmp = new byte[buf.length * 2];
+            System.arraycopy(buf, 0, tmp, 0, count);
+            buf = tmp;
+        }
+
+        if (in != null) {
+            final int read = in.read(buf, count, buf.length - count);
+            if (read < 0) {
+                eof = true;
+            } else {
+                count += read;
+            }
+        } else {
+            final int read = Math.min(source.remaining(), buf.length - count);
+            source.get(buf, count, read);
+            count += read;
+            if (!source.hasRemaining()) {
+                eof = true;
+            }
+        }
+    }
+
+    /**
+     * @return The number of tab-separated fields in the current line.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return true if the current line is empty or only contains whitespace.
+     */
+    public boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The buffer that holds the current line.
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * @param field
+     * @return The offset in the buffer of the first byte of a field.
+     */
+    public int getStart(int field) {
+        checkField(field);
+        return fieldStarts[field];
+    }
+
+    /**
+     * @param field
+     * @return The offset in the buffer after the last byte of a field.
+     */
+    public int getEnd(int field) {
+        checkField(field);
+        return (field + 1 < fieldCount) ? fieldStarts[field + 1] - 1 : lineEnd;
+    }
+
+    /**
+     * @param field
+     * @return The length of a field, in bytes.
+     */
+    public int getLength(int field) {
+        return getEnd(field) - getStart(field);
+    }
+
+    /**
+     * Decodes the value of a field.
+     *
+     * @param field
+     * @return
+     */
+    public String getString(int field) {
+        final int start = getStart(field);
+        return new String(buf, start, getEnd(field) - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the shared instance of the value of a field with few distinct values. No {@link String} is created if
+     * the value is already in the table.
+     *
+     * @param field
+     * @param symbols
+     * @return
+     */
+    public String getSymbol(int field, SymbolTable symbols) {
+        final int start = getStart(field);
+        return symbols.intern(buf, start, getEnd(field) - start);
+    }
+
+    /**
+     * Decodes the whole line. Intended for error messages.
+     *
+     * @return
+     */
+    public String getLine() {
+        return new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indicates if a field is equal to an ASCII value.
+     *
+     * @param field
+     * @param value
+     * @return
+     */
+    public boolean fieldEquals(int field, String value) {
+        final int start = getStart(field);
+        final int len = getEnd(field) - start;
+        if (len != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates if a field is equal to a sequence of bytes.
+     *
+     * @param field
+     * @param value
+     * @return
+     */
+    public boolean fieldEquals(int field, byte[] value) {
+        final int start = getStart(field);
+        final int len = getEnd(field) - start;
+        if (len != value.length) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf[start + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a field with an ASCII value lexicographically, in the same way as {@link String#compareTo(String)}.
+     *
+     * @param field
+     * @param value
+     * @return
+     */
+    public int compareField(int field, String value) {
+        final int start = getStart(field);
+        final int len = getEnd(field) - start;
+        final int lim = Math.min(len, value.length());
+        for (int i = 0; i < lim; i++) {
+            final int diff = (buf[start + i] & 0xff) - value.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return len - value.length();
+    }
+
+    /**
+     * Parses a field as a non-negative decimal number, such as an SCTID.
+     *
+     * @param field
+     * @return
+     * @throws NumberFormatException if the field is empty or contains characters other than digits.
+     */
+    public long getLong(int field) {
+        final int start = getStart(field);
+        final int end = getEnd(field);
+        if (end == start || end - start > 19) {
+            throw new NumberFormatException("Invalid number: " + getString(field));
+        }
+        long res = 0;
+        for (int i = start; i < end; i++) {
+            final int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Invalid number: " + getString(field));
+            }
+            res = res * 10 + d;
+        }
+        if (res < 0) {
+            throw new NumberFormatException("Invalid number: " + getString(field));
+        }
+        return res;
+    }
+
+    /**
+     * Parses a field as an effective time.
+     *
+     * @param field
+     * @return The effective time, packed as by {@link EffectiveTime#packOptional(String)}, so an empty field is -1.
+     * @throws RuntimeException if the field is not empty and is not a valid effective time.
+     */
+    public long getEffectiveTime(int field) {
+        final int start = getStart(field);
+        final int len = getEnd(field) - start;
+        return (len == 0) ? -1 : EffectiveTime.pack(buf, start, len);
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " not found in line: " + getLine());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A dictionary of the values of columns with few distinct values, such as modules, types or flags. Each distinct value
+ * is stored once and given a small int code, so rows can share a single {@link String} instance for each value and
+ * compare values by identity or by code.
+ * <p>
+ * Values can be looked up directly from the bytes of a field, so no {@link String} is created for values that are
+ * already in the table. Lookups of values that are already in the table don't lock, and the table can be shared by
+ * the threads that load the files of an import.
+ */
+public class SymbolTable {
+
+    private static final class Symbol {
+        final byte[] bytes;
+        final String value;
+        final int hash;
+        final int code;
+
+        Symbol(byte[] bytes, String value, int hash, int code) {
+            this.bytes = bytes;
+            this.value = value;
+            this.hash = hash;
+            this.code = code;
+        }
+
+        boolean matches(byte[] buf, int start, int len) {
+            if (bytes.length != len) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (bytes[i] != buf[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Open addressing hash table. Slots are only written while holding the lock, and symbols are immutable, so readers
+     * that miss a symbol that is being added just retry while holding the lock.
+     */
+    private volatile Symbol[] table = new Symbol[64];
+    private volatile Symbol[] symbols = new Symbol[32];
+    private int size = 0;
+
+    /**
+     * Returns the shared instance of a value.
+     *
+     * @param value
+     * @return
+     */
+    public String intern(String value) {
+        return value == null ? null : lookup(value.getBytes(StandardCharsets.UTF_8), 0, -1).value;
+    }
+
+    /**
+     * Returns the shared instance of a value encoded in UTF-8.
+     *
+     * @param buf
+     * @param start
+     * @param len
+     * @return
+     */
+    public String intern(byte[] buf, int start, int len) {
+        return lookup(buf, start, len).value;
+    }
+
+    /**
+     * Returns the code of a value, adding it to the table if needed.
+     *
+     * @param value
+     * @return
+     */
+    public int code(String value) {
+        return lookup(value.getBytes(StandardCharsets.UTF_8), 0, -1).code;
+    }
+
+    /**
+     * Returns the code of a value encoded in UTF-8, adding it to the table if needed.
+     *
+     * @param buf
+     * @param start
+     * @param len
+     * @return
+     */
+    public int code(byte[] buf, int start, int len) {
+        return lookup(buf, start, len).code;
+    }
+
+    /**
+     * Returns the value with a code.
+     *
+     * @param code
+     * @return
+     */
+    public String get(int code) {
+        final Symbol[] s = symbols;
+        if (code < s.length && s[code] != null) {
+            return s[code].value;
+        }
+        // The code was added by another thread and might not be visible yet
+        synchronized (this) {
+            return symbols[code].value;
+        }
+    }
+
+    /**
+     * @return The number of values in the table. Codes go from zero to the number of values minus one.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param len The length of the value, or -1 if the buffer only contains the value and can be kept by the table.
+     */
+    private Symbol lookup(byte[] buf, int start, int len) {
+        final boolean owned = len < 0;
+        if (owned) {
+            len = buf.length;
+        }
+        final int hash = hash(buf, start, len);
+
+        final Symbol found = find(table, buf, start, len, hash);
+        if (found != null) {
+            return found;
+        }
+
+        synchronized (this) {
+            Symbol[] t = table;
+            final Symbol again = find(t, buf, start, len, hash);
+            if (again != null) {
+                return again;
+            }
+
+            final byte[] bytes = owned ? buf : Arrays.copyOfRange(buf, start, start + len);
+            final Symbol res = new Symbol(bytes, new String(bytes, StandardCharsets.UTF_8), hash,
+                    size);
+            if (size == symbols.length) {
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            symbols[size++] = res;
+
+            if (size * 2 > t.length) {
+                t = new Symbol[t.length * 2];
+                for (int i = 0; i < size - 1; i++) {
+                    insert(t, symbols[i]);
+                }
+            }
+            insert(t, res);
+            table = t;
+            return res;
+        }
+    }
+
+    private static Symbol find(Symbol[] t, byte[] buf, int start, int len, int hash) {
+        final int mask = t.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            final Symbol s = t[i];
+            if (s == null) {
+                return null;
+            } else if (s.hash == hash && s.matches(buf, start, len)) {
+                return s;
+            }
+        }
+    }
+
+    private static void insert(Symbol[] t, Symbol s) {
+        final int mask = t.length - 1;
+        int i = s.hash & mask;
+        while (t[i] != null) {
+            i = (i + 1) & mask;
+        }
+        t[i] = s;
+    }
+
+    private static int hash(byte[] buf, int start, int len) {
+        int h = 1;
+        for (int i = start; i < start + len; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import au.csiro.ontology.model.Axiom;
+
+/**
+ * The axioms added to and removed from an ontology by a set of changes.
+ */
+public class AxiomDelta {
+
+    private final Set<Axiom> added = new LinkedHashSet<>();
+    private final Set<Axiom> removed = new LinkedHashSet<>();
+
+    /**
+     * Records an added axiom. Adding an axiom that was removed by the same changes cancels the removal.
+     *
+     * @param axiom
+     */
+    void add(Axiom axiom) {
+        if (!removed.remove(axiom)) {
+            added.add(axiom);
+        }
+    }
+
+    /**
+     * Records a removed axiom. Removing an axiom that was added by the same changes cancels the addition.
+     *
+     * @param axiom
+     */
+    void remove(Axiom axiom) {
+        if (!added.remove(axiom)) {
+            removed.add(axiom);
+        }
+    }
+
+    /**
+     * @return The axioms that are new in the ontology.
+     */
+    public Set<Axiom> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /**
+     * @return The axioms that are no longer in the ontology.
+     */
+    public Set<Axiom> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "AxiomDelta [added=" + added.size() + ", removed=" + removed.size() + "]";
+    }
+
+}
@@ -0,0 +1,465 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.csiro.ontology.Factory;
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Feature;
+import au.csiro.ontology.model.FunctionalFeature;
+import au.csiro.ontology.model.Literal;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.Operator;
+import au.csiro.ontology.model.Role;
+import au.csiro.ontology.model.RoleInclusion;
+
+/**
+ * Parses single axioms in the subset of the OWL functional syntax used by the SNOMED CT OWL axiom reference set,
+ * without creating an OWL ontology. The axioms are transformed in the same way as in {@link OWLImporter}.
+ * <p>
+ * The following axioms are supported: SubClassOf, EquivalentClasses, SubObjectPropertyOf (including property chains
+ * of up to two roles), SubDataPropertyOf, TransitiveObjectProperty, ReflexiveObjectProperty, FunctionalDataProperty
+ * and class declarations. Class expressions can be named classes, ObjectIntersectionOf, ObjectSomeValuesFrom and
+ * DataHasValue with integer, decimal or string literals. Axioms that use anything else, including annotations, are
+ * not parsed, and should be imported through the OWL API instead.
+ * <p>
+ * A parser has no state other than its prefixes, so it can be used by several threads at the same time. Expressions
+ * are created through {@link Factory}.
+ */
+public class FunctionalSyntaxParser {
+
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String SNOMED_DATA_ATTRIBUTE = "762706009";
+
+    /**
+     * Thrown when an axiom cannot be parsed. It has no stack trace because it is only used to stop parsing.
+     */
+    private static class UnsupportedAxiomException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedAxiomException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final UnsupportedAxiomException UNSUPPORTED = new UnsupportedAxiomException();
+
+    private final Map<String, String> prefixes = new HashMap<>();
+
+    /**
+     * Creates a parser with the default prefixes of the OWL functional syntax (owl, rdf, rdfs, xsd and xml) and the
+     * empty prefix mapped to the empty IRI, so the ids of SNOMED CT entities are their SCTIDs.
+     */
+    public FunctionalSyntaxParser() {
+        this(Collections.<String>emptyList());
+    }
+
+    /**
+     * Creates a parser that uses the prefixes in a set of prefix declarations, such as the OWL ontology namespace
+     * members of the SNOMED CT OWL ontology reference set. The empty prefix is always mapped to the empty IRI.
+     *
+     * @param prefixDeclarations Declarations of the form {@code Prefix(xsd:=<http://www.w3.org/2001/XMLSchema#>)}.
+     */
+    public FunctionalSyntaxParser(Collection<String> prefixDeclarations) {
+        prefixes.put("owl", "http://www.w3.org/2002/07/owl#");
+        prefixes.put("rdf", RDF);
+        prefixes.put("rdfs", "http://www.w3.org/2000/01/rdf-schema#");
+        prefixes.put("xsd", XSD);
+        prefixes.put("xml", "http://www.w3.org/XML/1998/namespace");
+        for (String declaration : prefixDeclarations) {
+            try {
+                final Reader r = new Reader(declaration);
+                r.keyword("Prefix");
+                r.open();
+                final String name = r.prefixName();
+                r.expect('=');
+                prefixes.put(name, r.fullIri());
+                r.close();
+            } catch (UnsupportedAxiomException e) {
+                throw new IllegalArgumentException("Invalid prefix declaration: " + declaration);
+            }
+        }
+        prefixes.put("", "");
+    }
+
+    /**
+     * Parses an axiom.
+     *
+     * @param axiom An axiom in functional syntax.
+     * @return The axioms of the model that correspond to the OWL axiom, or null if the axiom is not supported.
+     */
+    public List<Axiom> parse(String axiom) {
+        try {
+            final Reader r = new Reader(axiom);
+            final List<Axiom> res = axiom(r);
+            if (!r.atEnd()) {
+                return null;
+            }
+            return res;
+        } catch (UnsupportedAxiomException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Axiom> axiom(Reader r) {
+        final String keyword = r.word();
+        r.open();
+        final List<Axiom> res;
+        switch (keyword) {
+            case "SubClassOf": {
+                final Concept sub = concept(r);
+                final Concept sup = concept(r);
+                res = Collections.<Axiom>singletonList(new ConceptInclusion(sub, sup));
+                break;
+            }
+            case "EquivalentClasses": {
+                final List<Concept> concepts = new ArrayList<>();
+                while (!r.closing()) {
+                    concepts.add(concept(r));
+                }
+                res = new ArrayList<>();
+                for (int i = 0; i < concepts.size(); i++) {
+                    for (int j = i + 1; j < concepts.size(); j++) {
+                        final Concept c1 = concepts.get(i);
+                        final Concept c2 = concepts.get(j);
+                        if (!c1.equals(c2)) {
+                            res.add(new ConceptInclusion(c1, c2));
+                            res.add(new ConceptInclusion(c2, c1));
+                        }
+                    }
+                }
+                break;
+            }
+            case "SubObjectPropertyOf": {
+                final List<String> sub = new ArrayList<>();
+                if (r.peekWord("ObjectPropertyChain")) {
+                    r.word();
+                    r.open();
+                    while (!r.closing()) {
+                        sub.add(roleIri(r));
+                    }
+                    r.close();
+                    if (sub.size() != 1 && sub.size() != 2) {
+                        throw UNSUPPORTED;
+                    }
+                } else {
+                    sub.add(roleIri(r));
+                }
+                final String sup = roleIri(r);
+                final Role[] lhs = new Role[sub.size()];
+                for (int i = 0; i < lhs.length; i++) {
+                    lhs[i] = Factory.createNamedRole(sub.get(i));
+                }
+                res = Arrays.<Axiom>asList(new RoleInclusion(lhs, Factory.createNamedRole(sup)),
+                        new ConceptInclusion(Factory.createNamedConcept(sub.get(0)), Factory.createNamedConcept(sup)));
+                break;
+            }
+            case "TransitiveObjectProperty": {
+                final Role role = role(r);
+                res = Collections.<Axiom>singletonList(new RoleInclusion(new Role[] { role, role }, role));
+                break;
+            }
+            case "ReflexiveObjectProperty": {
+                res = Collections.<Axiom>singletonList(new RoleInclusion(new Role[] {}, role(r)));
+                break;
+            }
+            case "SubDataPropertyOf": {
+                final String sub = r.iri();
+                final String sup = r.iri();
+                if (!SNOMED_DATA_ATTRIBUTE.equals(sup)) {
+                    // Only the SNOMED CT parent of data attributes is supported
+                    throw UNSUPPORTED;
+                }
+                res = Arrays.<Axiom>asList(new FunctionalFeature(Factory.createNamedFeature(sub)),
+                        new ConceptInclusion(Factory.createNamedConcept(sub), Factory.createNamedConcept(sup)));
+                break;
+            }
+            case "FunctionalDataProperty": {
+                res = Collections.<Axiom>singletonList(new FunctionalFeature(Factory.createNamedFeature(r.iri())));
+                break;
+            }
+            case "Declaration": {
+                final String type = r.word();
+                r.open();
+                final String iri = r.iri();
+                r.close();
+                if ("Class".equals(type)) {
+                    res = Collections.<Axiom>singletonList(new ConceptInclusion(namedConcept(iri),
+                            NamedConcept.TOP_CONCEPT));
+                } else if ("ObjectProperty".equals(type) || "DataProperty".equals(type)) {
+                    res = Collections.emptyList();
+                } else {
+                    throw UNSUPPORTED;
+                }
+                break;
+            }
+            default:
+                throw UNSUPPORTED;
+        }
+        r.close();
+        return res;
+    }
+
+    private Concept concept(Reader r) {
+        if (!r.peekWord()) {
+            return namedConcept(r.iri());
+        }
+
+        final String keyword = r.word();
+        r.open();
+        final Concept res;
+        switch (keyword) {
+            case "ObjectIntersectionOf": {
+                final List<Concept> concepts = new ArrayList<>();
+                while (!r.closing()) {
+                    concepts.add(concept(r));
+                }
+                res = Factory.createConjunction(concepts);
+                break;
+            }
+            case "ObjectSomeValuesFrom": {
+                final Role role = role(r);
+                res = Factory.createExistential(role, concept(r));
+                break;
+            }
+            case "DataHasValue": {
+                final Feature feature = Factory.createNamedFeature(r.iri());
+                res = Factory.createDatatype(feature, Operator.EQUALS, literal(r));
+                break;
+            }
+            default:
+                throw UNSUPPORTED;
+        }
+        r.close();
+        return res;
+    }
+
+    private Concept namedConcept(String iri) {
+        if (OWLImporter.THING_IRI.equals(iri)) {
+            return NamedConcept.TOP_CONCEPT;
+        } else if (OWLImporter.NOTHING_IRI.equals(iri)) {
+            return NamedConcept.BOTTOM_CONCEPT;
+        }
+        return Factory.createNamedConcept(iri);
+    }
+
+    private Role role(Reader r) {
+        return Factory.createNamedRole(roleIri(r));
+    }
+
+    private String roleIri(Reader r) {
+        if (r.peekWord()) {
+            // Inverse properties are not supported
+            throw UNSUPPORTED;
+        }
+        return r.iri();
+    }
+
+    /**
+     * Transforms literals in the same way as {@link OWLImporter} with its default settings: integers are stored as
+     * ints and decimals as {@link BigDecimal}s.
+     */
+    private Literal literal(Reader r) {
+        final String value = r.quoted();
+        final String type;
+        if (r.peek('^')) {
+            r.expect('^');
+            r.expect('^');
+            type = r.iri();
+        } else if (r.peek('@')) {
+            r.expect('@');
+            r.languageTag();
+            type = RDF + "PlainLiteral";
+        } else {
+            type = RDF + "PlainLiteral";
+        }
+
+        switch (type) {
+            case XSD + "integer":
+            case XSD + "nonNegativeInteger":
+                return Factory.createIntegerLiteral(Integer.parseInt(value));
+            case XSD + "decimal":
+                return Factory.createDecimalLiteral(new BigDecimal(value));
+            case XSD + "string":
+            case RDF + "PlainLiteral":
+                return Factory.createStringLiteral(value);
+            default:
+                throw UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Reads the tokens of an axiom.
+     */
+    private final class Reader {
+        private final String s;
+        private int pos = 0;
+
+        Reader(String s) {
+            this.s = s;
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean atEnd() {
+            skipWhitespace();
+            return pos == s.length();
+        }
+
+        boolean peek(char c) {
+            return pos < s.length() && s.charAt(pos) == c;
+        }
+
+        void expect(char c) {
+            if (!peek(c)) {
+                throw UNSUPPORTED;
+            }
+            pos++;
+        }
+
+        void open() {
+            skipWhitespace();
+            expect('(');
+        }
+
+        void close() {
+            skipWhitespace();
+            expect(')');
+        }
+
+        boolean closing() {
+            skipWhitespace();
+            if (pos == s.length()) {
+                throw UNSUPPORTED;
+            }
+            return peek(')');
+        }
+
+        /**
+         * Indicates if the next token is a keyword, i.e. a name that is not followed by a colon.
+         */
+        boolean peekWord() {
+            skipWhitespace();
+            int i = pos;
+            while (i < s.length() && Character.isLetter(s.charAt(i))) {
+                i++;
+            }
+            return i > pos && i < s.length() && s.charAt(i) != ':';
+        }
+
+        boolean peekWord(String word) {
+            skipWhitespace();
+            return s.startsWith(word, pos) && peekWord();
+        }
+
+        String word() {
+            if (!peekWord()) {
+                throw UNSUPPORTED;
+            }
+            final int start = pos;
+            while (Character.isLetter(s.charAt(pos))) {
+                pos++;
+            }
+            return s.substring(start, pos);
+        }
+
+        void keyword(String keyword) {
+            if (!keyword.equals(word())) {
+                throw UNSUPPORTED;
+            }
+        }
+
+        /**
+         * Reads a full IRI or an abbreviated IRI and returns the full IRI.
+         */
+        String iri() {
+            skipWhitespace();
+            if (peek('<')) {
+                return fullIri();
+            }
+            final String prefix = prefixName();
+            final String namespace = prefixes.get(prefix);
+            if (namespace == null) {
+                throw UNSUPPORTED;
+            }
+            final int start = pos;
+            while (pos < s.length() && isNameChar(s.charAt(pos))) {
+                pos++;
+            }
+            return namespace.isEmpty() ? s.substring(start, pos) : namespace + s.substring(start, pos);
+        }
+
+        String fullIri() {
+            skipWhitespace();
+            expect('<');
+            final int end = s.indexOf('>', pos);
+            if (end < 0) {
+                throw UNSUPPORTED;
+            }
+            final String res = s.substring(pos, end);
+            pos = end + 1;
+            return res;
+        }
+
+        /**
+         * Reads a prefix name, including the colon, and returns it without the colon.
+         */
+        String prefixName() {
+            skipWhitespace();
+            final int start = pos;
+            while (pos < s.length() && s.charAt(pos) != ':') {
+                if (!isNameChar(s.charAt(pos))) {
+                    throw UNSUPPORTED;
+                }
+                pos++;
+            }
+            expect(':');
+            return s.substring(start, pos - 1);
+        }
+
+        String quoted() {
+            skipWhitespace();
+            expect('"');
+            final StringBuilder sb = new StringBuilder();
+            while (pos < s.length()) {
+                final char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                } else if (c == '\\' && pos < s.length()) {
+                    sb.append(s.charAt(pos++));
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw UNSUPPORTED;
+        }
+
+        void languageTag() {
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '-')) {
+                pos++;
+            }
+        }
+
+        private boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLAxiomChange;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+
+import au.csiro.ontology.model.Axiom;
+
+/**
+ * Keeps the axioms of an OWL ontology in the internal representation up to date as the ontology changes. Only the
+ * axioms that are added or removed by each set of changes are transformed, and the changes are reported as an
+ * {@link AxiomDelta}, which can be used to update an incremental reasoner.
+ * <p>
+ * The transformation of each OWL axiom is kept, so removed axioms don't need to be transformed again. Several OWL
+ * axioms can be transformed into the same axiom, e.g. a sub-property axiom and a property chain with the same first
+ * property, so each axiom is counted, and it is only removed when none of the OWL axioms it comes from is left.
+ * <p>
+ * The importer can be registered as a listener of the ontology's manager, in which case each non-empty delta is
+ * passed to a consumer, or changes can be applied explicitly with {@link #apply(List)}.
+ */
+public class IncrementalOWLImporter implements OWLOntologyChangeListener {
+
+    private final OWLOntology ontology;
+
+    private final OWLImporter importer = new OWLImporter(Collections.<OWLAxiom>emptyList());
+
+    private final Map<OWLAxiom, List<Axiom>> transformed = new HashMap<>();
+
+    private final Map<Axiom, Integer> counts = new HashMap<>();
+
+    private Consumer<? super AxiomDelta> consumer;
+
+    /**
+     * Creates an importer and transforms the current axioms of an ontology.
+     *
+     * @param ontology
+     */
+    public IncrementalOWLImporter(OWLOntology ontology) {
+        this.ontology = ontology;
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            addAxiom(axiom, new AxiomDelta());
+        }
+    }
+
+    /**
+     * Registers the importer as a listener of the ontology's manager. The delta of each set of changes to the
+     * ontology that adds or removes axioms is passed to a consumer.
+     *
+     * @param consumer
+     */
+    public synchronized void register(Consumer<? super AxiomDelta> consumer) {
+        this.consumer = consumer;
+        ontology.getOWLOntologyManager().addOntologyChangeListener(this);
+    }
+
+    /**
+     * Stops listening to the changes of the ontology.
+     */
+    public synchronized void unregister() {
+        ontology.getOWLOntologyManager().removeOntologyChangeListener(this);
+        this.consumer = null;
+    }
+
+    @Override
+    public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+        final AxiomDelta delta;
+        final Consumer<? super AxiomDelta> c;
+        synchronized (this) {
+            delta = apply(changes);
+            c = consumer;
+        }
+        if (c != null && !delta.isEmpty()) {
+            c.accept(delta);
+        }
+    }
+
+    /**
+     * Applies a set of changes. Changes to other ontologies and changes that don't add or remove axioms, such as
+     * changes to the imports, are ignored.
+     *
+     * @param changes
+     * @return The axioms added and removed by the changes.
+     */
+    public synchronized AxiomDelta apply(List<? extends OWLOntologyChange> changes) {
+        final AxiomDelta delta = new AxiomDelta();
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !ontology.equals(change.getOntology())) {
+                continue;
+            }
+            final OWLAxiom axiom = ((OWLAxiomChange) change).getAxiom();
+            if (change.isAddAxiom()) {
+                addAxiom(axiom, delta);
+            } else if (change.isRemoveAxiom()) {
+                removeAxiom(axiom, delta);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * @return A copy of the current axioms of the ontology in the internal representation.
+     */
+    public synchronized Set<Axiom> getAxioms() {
+        return new HashSet<>(counts.keySet());
+    }
+
+    /**
+     * @return The problems found while transforming the axioms.
+     */
+    public List<String> getProblems() {
+        return importer.getProblems();
+    }
+
+    private void addAxiom(OWLAxiom axiom, AxiomDelta delta) {
+        if (transformed.containsKey(axiom)) {
+            return;
+        }
+        final List<Axiom> axioms = importer.transform(axiom);
+        transformed.put(axiom, axioms);
+        for (Axiom a : axioms) {
+            if (counts.merge(a, 1, Integer::sum) == 1) {
+                delta.add(a);
+            }
+        }
+    }
+
+    private void removeAxiom(OWLAxiom axiom, AxiomDelta delta) {
+        final List<Axiom> axioms = transformed.remove(axiom);
+        if (axioms == null) {
+            return;
+        }
+        for (Axiom a : axioms) {
+            final int count = counts.get(a);
+            if (count == 1) {
+                counts.remove(a);
+                delta.remove(a);
+            } else {
+                counts.put(a, count - 1);
+            }
+        }
+    }
+
+}
@@ -4,23 +4,37 @@
  */
 package au.csiro.ontology.importer.owl;
 
+import java.io.Closeable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.EmptyStackException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -107,13 +121,15 @@ public class OWLImporter extends BaseImporter {
     public static final String THING_IRI = "http://www.w3.org/2002/07/owl#Thing";
     public static final String NOTHING_IRI = "http://www.w3.org/2002/07/owl#Nothing";
 
-    private final Set<OWLDataPropertyRangeAxiom> dprAxioms = new HashSet<>();
-    private final List<String> problems = new ArrayList<>();
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Shared by the threads of a parallel transformation
+    private final Set<OWLDataPropertyRangeAxiom> dprAxioms = ConcurrentHashMap.newKeySet();
+    private final List<String> problems = Collections.synchronizedList(new ArrayList<String>());
 
     private OWLOntology ontology;
     private List<OWLAxiom> axioms;
 
-    private SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
 
     /**
      * The OWL EL spec only allows using the following types: owl:real, owl:rational, xsd:decimal, xsd:integer,
@@ -125,6 +141,23 @@ public class OWLImporter extends BaseImporter {
     private boolean useSimpleInts = true;
     private boolean useSimpleFloats = false;
 
+    /**
+     * Indicates if the axioms are transformed in parallel, using the fork-join pool.
+     */
+    private boolean parallel = false;
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    /**
+     * Transformed class expressions, roles and features, so expressions that are used many times are only transformed
+     * once and share the same objects. The memo is emptied at the end of each full transformation.
+     */
+    private boolean memoize = false;
+    private final Map<OWLClassExpression, Concept> conceptMemo = new ConcurrentHashMap<>();
+    private final Map<OWLEntity, NamedRole> roleMemo = new ConcurrentHashMap<>();
+    private final Map<OWLEntity, NamedFeature> featureMemo = new ConcurrentHashMap<>();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder memoMisses = new LongAdder();
+
     public OWLImporter(OWLOntology ontology) {
         this();
         this.ontology = ontology;
@@ -170,6 +203,76 @@ public class OWLImporter extends BaseImporter {
         this.useSimpleFloats = useSimpleFloats;
     }
 
+    /**
+     * @return the parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Indicates if the axioms should be transformed in parallel, using the fork-join pool. The resulting axioms are
+     * the same as in a sequential transformation, but the problems might be reported in a different order.
+     *
+     * @param parallel the parallel to set
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return the memoize
+     */
+    public boolean isMemoize() {
+        return memoize;
+    }
+
+    /**
+     * Indicates if transformed class expressions, roles and features should be kept, so each distinct expression is
+     * only transformed once and the transformed axioms share their sub-expressions. The memo is emptied at the end of
+     * each transformation of the whole ontology, and by {@link #clear()}. Axioms that are transformed one at a time,
+     * e.g. by {@link IncrementalOWLImporter}, keep adding to the memo, so it should only be enabled for full
+     * transformations. Defaults to false.
+     *
+     * @param memoize the memoize to set
+     */
+    public void setMemoize(boolean memoize) {
+        this.memoize = memoize;
+    }
+
+    /**
+     * @return The number of class expressions, roles and features that were found in the memo.
+     */
+    public long getMemoHits() {
+        return memoHits.sum();
+    }
+
+    /**
+     * @return The number of class expressions, roles and features that were not found in the memo.
+     */
+    public long getMemoMisses() {
+        return memoMisses.sum();
+    }
+
+    /**
+     * @return The fraction of the look ups in the memo that found a transformed expression, or zero if there have
+     * been no look ups.
+     */
+    public double getMemoHitRate() {
+        final long hits = memoHits.sum();
+        final long total = hits + memoMisses.sum();
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Sets the fork-join pool used for parallel transformations. Defaults to {@link ForkJoinPool#commonPool()}.
+     *
+     * @param forkJoinPool
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
     private Collection<Axiom> transformOWLSubPropertyChainOfAxiom(OWLSubPropertyChainOfAxiom a) {
         List<OWLObjectPropertyExpression> sub = a.getPropertyChain();
         OWLObjectPropertyExpression sup = a.getSuperProperty();
@@ -316,71 +419,18 @@ public class OWLImporter extends BaseImporter {
 
     private Set<Axiom> transform(List<OWLAxiom> axioms, IProgressMonitor monitor) throws ImportException {
         monitor.taskStarted("Loading axioms");
-        final Set<Axiom> res = new HashSet<>();
-        int totalAxioms = axioms.size();
-        int workDone = 0;
+        final Set<Axiom> res;
+        if (parallel) {
+            res = transformInParallel(axioms, monitor);
+        } else {
+            res = new HashSet<>();
+            int totalAxioms = axioms.size();
+            int workDone = 0;
 
-        for (OWLAxiom axiom : axioms) {
-            if (axiom instanceof OWLDeclarationAxiom) {
-                OWLDeclarationAxiom a = (OWLDeclarationAxiom)axiom;
-                OWLEntity ent = a.getEntity();
-                if (ent.isOWLClass()) {
-                    res.add(new ConceptInclusion(
-                            new NamedConcept(ent.asOWLClass().toStringID()), NamedConcept.TOP_CONCEPT));
-                } else if (ent.isOWLObjectProperty()) {
-                    // Do nothing for now.
-                } else if (ent.isOWLDataProperty()) {
-                    // Do nothing for now.
+            for (OWLAxiom axiom : axioms) {
+                if (transform(axiom, res)) {
+                    monitor.step(++workDone, totalAxioms);
                 }
-            } else if (axiom instanceof OWLSubPropertyChainOfAxiom) {
-                OWLSubPropertyChainOfAxiom a = (OWLSubPropertyChainOfAxiom) axiom;
-                Collection<Axiom> ax = transformOWLSubPropertyChainOfAxiom(a);
-                if(ax != null) res.addAll(ax);
-                monitor.step(workDone, totalAxioms);
-            } else if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
-                OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
-                res.addAll(transformOWLSubObjectPropertyOfAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLReflexiveObjectPropertyAxiom) {
-                OWLReflexiveObjectPropertyAxiom a = (OWLReflexiveObjectPropertyAxiom) axiom;
-                res.add(transformOWLReflexiveObjectPropertyAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLTransitiveObjectPropertyAxiom) {
-                OWLTransitiveObjectPropertyAxiom a = (OWLTransitiveObjectPropertyAxiom) axiom;
-                res.add(transformOWLTransitiveObjectPropertyAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLSubClassOfAxiom) {
-                OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
-                Axiom ax = transformOWLSubClassOfAxiom(a);
-                if(ax != null) res.add(ax);
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLEquivalentClassesAxiom) {
-                OWLEquivalentClassesAxiom a = (OWLEquivalentClassesAxiom) axiom;
-                res.addAll(transformOWLEquivalentClassesAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLDisjointClassesAxiom) {
-                OWLDisjointClassesAxiom a = (OWLDisjointClassesAxiom) axiom;
-                Axiom ax = transformOWLDisjointClassesAxiom(a);
-                if(ax != null) res.add(ax);
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLEquivalentObjectPropertiesAxiom) {
-                OWLEquivalentObjectPropertiesAxiom a = (OWLEquivalentObjectPropertiesAxiom) axiom;
-                res.addAll(transformOWLEquivalentObjectPropertiesAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLFunctionalDataPropertyAxiom) {
-                OWLFunctionalDataPropertyAxiom a = (OWLFunctionalDataPropertyAxiom) axiom;
-                res.add(transformOWLFunctionalDataPropertyAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLSubDataPropertyOfAxiom) {
-                OWLSubDataPropertyOfAxiom a = (OWLSubDataPropertyOfAxiom) axiom;
-                res.addAll(transformOWLSubDataPropertyOfAxiom(a));
-                monitor.step(++workDone, totalAxioms);
-            } else if (axiom instanceof OWLAnnotationAssertionAxiom) {
-                // Do nothing
-                monitor.step(++workDone, totalAxioms);
-            } else {
-                problems.add("The axiom " + axiom.toString() + " is not currently supported by Snorocket.");
-                System.err.println("The axiom " + axiom.toString() + " is not currently supported by Snorocket.");
             }
         }
 
@@ -398,6 +448,127 @@ public class OWLImporter extends BaseImporter {
         return res;
     }
 
+    /**
+     * Transforms the axioms using the fork-join pool. The axioms are split into partitions that are transformed
+     * concurrently, each one into its own set of axioms, and the sets are then merged. Progress is reported from the
+     * calling thread as each partition is merged.
+     *
+     * @param axioms
+     * @param monitor
+     * @return
+     */
+    private Set<Axiom> transformInParallel(List<OWLAxiom> axioms, IProgressMonitor monitor) {
+        final int totalAxioms = axioms.size();
+        final int partitions = Math.max(1, Math.min(totalAxioms, forkJoinPool.getParallelism() * 16));
+        final AtomicInteger workDone = new AtomicInteger();
+        final List<ForkJoinTask<Set<Axiom>>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final List<OWLAxiom> partition = axioms.subList((int) ((long) totalAxioms * i / partitions),
+                    (int) ((long) totalAxioms * (i + 1) / partitions));
+            tasks.add(forkJoinPool.submit(() -> {
+                final Set<Axiom> res = new HashSet<>();
+                for (OWLAxiom axiom : partition) {
+                    if (transform(axiom, res)) {
+                        workDone.incrementAndGet();
+                    }
+                }
+                return res;
+            }));
+        }
+
+        final Set<Axiom> res = new HashSet<>();
+        for (ForkJoinTask<Set<Axiom>> task : tasks) {
+            res.addAll(task.join());
+            monitor.step(workDone.get(), totalAxioms);
+        }
+        return res;
+    }
+
+    /**
+     * Transforms an axiom and adds the result to a collection.
+     *
+     * @param axiom
+     * @param res
+     * @return True if the axiom counts towards the progress of the import.
+     */
+    private boolean transform(OWLAxiom axiom, Collection<Axiom> res) {
+        if (axiom instanceof OWLDeclarationAxiom) {
+            OWLDeclarationAxiom a = (OWLDeclarationAxiom)axiom;
+            OWLEntity ent = a.getEntity();
+            if (ent.isOWLClass()) {
+                res.add(new ConceptInclusion(
+                        new NamedConcept(ent.asOWLClass().toStringID()), NamedConcept.TOP_CONCEPT));
+            } else if (ent.isOWLObjectProperty()) {
+                // Do nothing for now.
+            } else if (ent.isOWLDataProperty()) {
+                // Do nothing for now.
+            }
+        } else if (axiom instanceof OWLSubPropertyChainOfAxiom) {
+            OWLSubPropertyChainOfAxiom a = (OWLSubPropertyChainOfAxiom) axiom;
+            Collection<Axiom> ax = transformOWLSubPropertyChainOfAxiom(a);
+            if(ax != null) res.addAll(ax);
+            return true;
+        } else if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
+            OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
+            res.addAll(transformOWLSubObjectPropertyOfAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLReflexiveObjectPropertyAxiom) {
+            OWLReflexiveObjectPropertyAxiom a = (OWLReflexiveObjectPropertyAxiom) axiom;
+            res.add(transformOWLReflexiveObjectPropertyAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLTransitiveObjectPropertyAxiom) {
+            OWLTransitiveObjectPropertyAxiom a = (OWLTransitiveObjectPropertyAxiom) axiom;
+            res.add(transformOWLTransitiveObjectPropertyAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLSubClassOfAxiom) {
+            OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+            Axiom ax = transformOWLSubClassOfAxiom(a);
+            if(ax != null) res.add(ax);
+            return true;
+        } else if (axiom instanceof OWLEquivalentClassesAxiom) {
+            OWLEquivalentClassesAxiom a = (OWLEquivalentClassesAxiom) axiom;
+            res.addAll(transformOWLEquivalentClassesAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLDisjointClassesAxiom) {
+            OWLDisjointClassesAxiom a = (OWLDisjointClassesAxiom) axiom;
+            Axiom ax = transformOWLDisjointClassesAxiom(a);
+            if(ax != null) res.add(ax);
+            return true;
+        } else if (axiom instanceof OWLEquivalentObjectPropertiesAxiom) {
+            OWLEquivalentObjectPropertiesAxiom a = (OWLEquivalentObjectPropertiesAxiom) axiom;
+            res.addAll(transformOWLEquivalentObjectPropertiesAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLFunctionalDataPropertyAxiom) {
+            OWLFunctionalDataPropertyAxiom a = (OWLFunctionalDataPropertyAxiom) axiom;
+            res.add(transformOWLFunctionalDataPropertyAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLSubDataPropertyOfAxiom) {
+            OWLSubDataPropertyOfAxiom a = (OWLSubDataPropertyOfAxiom) axiom;
+            res.addAll(transformOWLSubDataPropertyOfAxiom(a));
+            return true;
+        } else if (axiom instanceof OWLAnnotationAssertionAxiom) {
+            // Do nothing
+            return true;
+        } else {
+            problems.add("The axiom " + axiom.toString() + " is not currently supported by Snorocket.");
+            System.err.println("The axiom " + axiom.toString() + " is not currently supported by Snorocket.");
+        }
+
+        return false;
+    }
+
+    /**
+     * Transforms a single axiom. Unsupported axioms are added to the problems and result in an empty list.
+     *
+     * @param axiom
+     * @return
+     */
+    List<Axiom> transform(OWLAxiom axiom) {
+        final List<Axiom> res = new ArrayList<>();
+        transform(axiom, res);
+        return res;
+    }
+
 	private Set<Axiom> transform(OWLOntology ont, IProgressMonitor monitor) throws ImportException {
         return transform(Collections.list(Collections.enumeration(ont.getAxioms())), monitor);
     }
@@ -478,15 +649,101 @@ public class OWLImporter extends BaseImporter {
         }
     }
 
+    /**
+     * Returns the memoized transformation of a class expression, or null if it has not been transformed yet.
+     *
+     * @param desc
+     * @return
+     */
+    private Concept lookup(OWLClassExpression desc) {
+        if (!memoize) {
+            return null;
+        }
+        final Concept res = conceptMemo.get(desc);
+        if (res != null) {
+            memoHits.increment();
+        } else {
+            memoMisses.increment();
+        }
+        return res;
+    }
+
+    private NamedRole getRole(OWLObjectPropertyExpression property) {
+        final OWLEntity entity = property.asOWLObjectProperty();
+        if (!memoize) {
+            return new NamedRole(entity.toStringID());
+        }
+        NamedRole res = roleMemo.get(entity);
+        if (res != null) {
+            memoHits.increment();
+        } else {
+            memoMisses.increment();
+            res = new NamedRole(entity.toStringID());
+            final NamedRole prev = roleMemo.putIfAbsent(entity, res);
+            if (prev != null) {
+                res = prev;
+            }
+        }
+        return res;
+    }
+
+    private NamedFeature getFeature(OWLDataProperty property) {
+        if (!memoize) {
+            return new NamedFeature(property.toStringID());
+        }
+        NamedFeature res = featureMemo.get(property);
+        if (res != null) {
+            memoHits.increment();
+        } else {
+            memoMisses.increment();
+            res = new NamedFeature(property.toStringID());
+            final NamedFeature prev = featureMemo.putIfAbsent(property, res);
+            if (prev != null) {
+                res = prev;
+            }
+        }
+        return res;
+    }
+
     /**
      *
      * @param desc
      * @return
      */
     private Concept getConcept(OWLClassExpression desc) {
+        final Concept memoized = lookup(desc);
+        if (memoized != null) {
+            return memoized;
+        }
+
         final Stack<Concept> stack = new Stack<>();
+        // The number of operands, facets and fillers that were dropped because they could not be transformed.
+        // Expressions that lost any of them are only partially transformed and are not memoized.
+        final int[] dropped = { 0 };
         desc.accept(new OWLClassExpressionVisitor() {
 
+            /**
+             * Transforms a sub-expression and pushes the result, unless it could not be transformed.
+             */
+            private void transform(OWLClassExpression e) {
+                final Concept c = lookup(e);
+                if (c != null) {
+                    push(c);
+                    return;
+                }
+                final int size = stack.size();
+                final int droppedBefore = dropped[0];
+                e.accept(this);
+                if (memoize && stack.size() == size + 1 && dropped[0] == droppedBefore) {
+                    conceptMemo.putIfAbsent(e, stack.peek());
+                }
+            }
+
+            private void drop(String problem) {
+                dropped[0]++;
+                problems.add(problem);
+            }
+
             private void unimplemented(OWLClassExpression e) {
                 String message = "The class expression "+ e.getClassExpressionType().getName()+
                         " is not currently supported by Snorocket.";
@@ -526,12 +783,12 @@ public class OWLImporter extends BaseImporter {
 
                 checkInconsistentProperty(dp, type);
 
-                NamedFeature f = new NamedFeature(dp.toStringID());
+                NamedFeature f = getFeature(dp);
                 Literal lit = getLiteral(l);
                 if(lit != null) {
                     push(new Datatype(f, Operator.EQUALS,lit));
                 } else {
-                    problems.add("Axiom " + e + " will be ignored because of the unsupported literal.");
+                    drop("Axiom " + e + " will be ignored because of the unsupported literal.");
                 }
             }
 
@@ -556,22 +813,22 @@ public class OWLImporter extends BaseImporter {
                     OWLDataOneOf doo = (OWLDataOneOf)range;
                     Set<OWLLiteral> values = doo.getValues();
                     if(values.size() != 1) {
-                        problems.add("Expected only a single literal in "+e);
+                        drop("Expected only a single literal in "+e);
                         return;
                     }
                     OWLLiteral l = (OWLLiteral)values.toArray()[0];
                     OWLDatatype type = l.getDatatype();
                     checkInconsistentProperty(dp, type);
 
-                    NamedFeature f = new NamedFeature(dp.toStringID());
+                    NamedFeature f = getFeature(dp);
                     Literal lit = getLiteral(l);
                     if(lit != null) {
                         push(new Datatype(f, Operator.EQUALS, lit));
                     } else {
-                        problems.add("Axiom " + e + " will be ignored because of the unsupported literal.");
+                        drop("Axiom " + e + " will be ignored because of the unsupported literal.");
                     }
                 } else if(range instanceof OWLDatatypeRestriction) {
-                    NamedFeature f = new NamedFeature(dp.toStringID());
+                    NamedFeature f = getFeature(dp);
 
                     OWLDatatypeRestriction dtr = (OWLDatatypeRestriction)range;
                     Set<OWLFacetRestriction> frs = dtr.getFacetRestrictions();
@@ -603,7 +860,7 @@ public class OWLImporter extends BaseImporter {
                                     throw new RuntimeException("Unsupported facet "+facet);
                             }
                         } else {
-                            problems.add("Axiom " + e + " will be ignored because of the unsupported literal.");
+                            drop("Axiom " + e + " will be ignored because of the unsupported literal.");
                         }
                     }
 
@@ -672,12 +929,12 @@ public class OWLImporter extends BaseImporter {
 
             @Override
             public void visit(OWLObjectSomeValuesFrom e) {
-                NamedRole r = new NamedRole(e.getProperty().asOWLObjectProperty().toStringID());
-                e.getFiller().accept(this);
+                NamedRole r = getRole(e.getProperty());
+                transform(e.getFiller());
                 try {
                     push(new Existential(r, pop()));
                 } catch(EmptyStackException ex) {
-                    problems.add("Unable to add axiom " + e + " because of previous problems.");
+                    drop("Unable to add axiom " + e + " because of previous problems.");
                 }
             }
 
@@ -696,11 +953,11 @@ public class OWLImporter extends BaseImporter {
                 List<Concept> items = new ArrayList<>();
 
                 for (OWLClassExpression desc : e.getOperands()) {
-                    desc.accept(this);
+                    transform(desc);
                     try {
                         items.add(pop());
                     } catch(EmptyStackException ex) {
-                        problems.add("Unable to add conjunct " + desc + " because of previous problems.");
+                        drop("Unable to add conjunct " + desc + " because of previous problems.");
                     }
                 }
 
@@ -727,7 +984,11 @@ public class OWLImporter extends BaseImporter {
             throw new RuntimeException("Stack size should be 1 but is " + stack.size());
         }
 
-        return stack.pop();
+        final Concept res = stack.pop();
+        if (memoize && dropped[0] == 0) {
+            conceptMemo.putIfAbsent(desc, res);
+        }
+        return res;
     }
 
     /**
@@ -736,6 +997,18 @@ public class OWLImporter extends BaseImporter {
     public void clear() {
         dprAxioms.clear();
         problems.clear();
+        clearMemo();
+        memoHits.reset();
+        memoMisses.reset();
+    }
+
+    /**
+     * Empties the memo but keeps the hit and miss counts.
+     */
+    private void clearMemo() {
+        conceptMemo.clear();
+        roleMemo.clear();
+        featureMemo.clear();
     }
 
     /**
@@ -746,6 +1019,192 @@ public class OWLImporter extends BaseImporter {
         return problems;
     }
 
+    /**
+     * Transforms the axioms and passes them to a consumer in batches, as soon as each batch is full, instead of
+     * returning them all at the end. The axioms of an OWL ontology are read one axiom type at a time, so the
+     * ontology's axioms are never copied into a single list. Unlike {@link #getOntologyVersions(IProgressMonitor)},
+     * duplicate axioms are not removed.
+     * <p>
+     * An OWL axiom can be transformed into several axioms, and these can be split across consecutive batches.
+     *
+     * @param batchSize The maximum number of axioms in each batch.
+     * @param consumer Receives each batch. Batches are not reused by the importer.
+     * @param monitor
+     */
+    public void streamAxioms(int batchSize, Consumer<? super List<Axiom>> consumer, IProgressMonitor monitor) {
+        if (ontology == null && axioms == null) {
+            throw new IllegalArgumentException("No OWL ontology to transform.");
+        } else if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size " + batchSize);
+        }
+        monitor.taskStarted("Loading axioms");
+        final int totalAxioms = (ontology != null) ? ontology.getAxiomCount() : axioms.size();
+        int workDone = 0;
+        List<Axiom> batch = new ArrayList<>(batchSize);
+
+        final Iterable<? extends Iterable<? extends OWLAxiom>> sources;
+        if (ontology != null) {
+            final List<Set<? extends OWLAxiom>> types = new ArrayList<>();
+            for (AxiomType<?> type : AxiomType.AXIOM_TYPES) {
+                types.add(ontology.getAxioms(type));
+            }
+            sources = types;
+        } else {
+            sources = Collections.singletonList(axioms);
+        }
+
+        for (Iterable<? extends OWLAxiom> source : sources) {
+            for (OWLAxiom axiom : source) {
+                if (transform(axiom, batch)) {
+                    monitor.step(++workDone, totalAxioms);
+                }
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                } else if (batch.size() > batchSize) {
+                    batch = acceptFullBatches(batch, batchSize, consumer);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        clearMemo();
+        monitor.taskEnded();
+    }
+
+    /**
+     * Passes the full batches of a list that has grown past the batch size to a consumer and returns the axioms that
+     * are left over, in a new list.
+     */
+    private static List<Axiom> acceptFullBatches(List<Axiom> axioms, int batchSize,
+            Consumer<? super List<Axiom>> consumer) {
+        int from = 0;
+        for (; axioms.size() - from >= batchSize; from += batchSize) {
+            consumer.accept(new ArrayList<>(axioms.subList(from, from + batchSize)));
+        }
+        final List<Axiom> rest = new ArrayList<>(batchSize);
+        rest.addAll(axioms.subList(from, axioms.size()));
+        return rest;
+    }
+
+    /**
+     * Returns an iterator over the transformed axioms. The axioms are transformed in a background thread, in batches,
+     * while the previous batches are consumed, e.g. by {@link au.csiro.ontology.classification.IReasoner#loadAxioms(
+     * Iterator)}. At most a few batches are kept in memory. The monitor is notified from the background thread.
+     * <p>
+     * The background thread finishes when the iterator has been consumed to the end. An iterator that is abandoned
+     * before that should be closed, which stops the background thread.
+     *
+     * @param batchSize The maximum number of axioms in each batch.
+     * @param monitor
+     * @return
+     */
+    public AxiomIterator getAxiomIterator(int batchSize, IProgressMonitor monitor) {
+        return new AxiomIterator(batchSize, monitor);
+    }
+
+    /**
+     * An iterator over axioms that are transformed by a background thread. See
+     * {@link OWLImporter#getAxiomIterator(int, IProgressMonitor)}.
+     */
+    public class AxiomIterator implements Iterator<Axiom>, Closeable {
+        private final BlockingQueue<List<Axiom>> batches = new ArrayBlockingQueue<>(4);
+        private final List<Axiom> end = new ArrayList<>();
+        private final AtomicReference<RuntimeException> error = new AtomicReference<>();
+        private final Thread producer;
+        private volatile boolean closed = false;
+
+        private Iterator<Axiom> current = Collections.emptyIterator();
+        private boolean done = false;
+
+        private AxiomIterator(int batchSize, IProgressMonitor monitor) {
+            producer = new Thread(() -> {
+                try {
+                    streamAxioms(batchSize, batch -> {
+                        if (closed) {
+                            throw new CancellationException();
+                        }
+                        try {
+                            batches.put(batch);
+                        } catch (InterruptedException e) {
+                            throw new CancellationException();
+                        }
+                    }, monitor);
+                } catch (CancellationException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    error.set(e);
+                }
+                try {
+                    batches.put(end);
+                } catch (InterruptedException e) {
+                    // Closed
+                }
+            }, "owl-import");
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (done) {
+                    return false;
+                } else if (closed) {
+                    throw new IllegalStateException("The iterator has been closed.");
+                }
+                final List<Axiom> batch;
+                try {
+                    batch = batches.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                if (batch == end) {
+                    done = true;
+                    if (error.get() != null) {
+                        throw error.get();
+                    }
+                } else {
+                    current = batch.iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Axiom next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        /**
+         * Stops the background thread and discards the batches that have not been consumed.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            producer.interrupt();
+            batches.clear();
+            current = Collections.emptyIterator();
+        }
+
+        /**
+         * Indicates if the background thread is still running.
+         *
+         * @return
+         */
+        boolean isProducing() {
+            return producer.isAlive();
+        }
+    }
+
     @Override
     public Iterator<Ontology> getOntologyVersions(IProgressMonitor monitor) {
         return new OntologyIterator(monitor);
@@ -779,6 +1238,8 @@ public class OWLImporter extends BaseImporter {
                 }
             } catch (ImportException e) {
                 throw new RuntimeException(e);
+            } finally {
+                clearMemo();
             }
 
             String id = null;
@@ -788,7 +1249,7 @@ public class OWLImporter extends BaseImporter {
                 id = "incremental";
             }
 
-            String version = sdf.format(new Date());
+            String version = LocalDate.now().format(VERSION_FORMAT);
 
             Ontology res = new Ontology(id, version, ont, null);
             Statistics.INSTANCE.setTime("owl loading", System.currentTimeMillis() - start);
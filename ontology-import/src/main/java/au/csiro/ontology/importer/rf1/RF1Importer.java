@@ -4,9 +4,7 @@
  */
 package au.csiro.ontology.importer.rf1;
 
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -19,6 +17,8 @@ import java.util.TreeSet;
 
 import au.csiro.ontology.Ontology;
 import au.csiro.ontology.importer.BaseImporter;
+import au.csiro.ontology.importer.RowTokenizer;
+import au.csiro.ontology.importer.SymbolTable;
 import au.csiro.ontology.model.Axiom;
 import au.csiro.ontology.model.Concept;
 import au.csiro.ontology.model.ConceptInclusion;
@@ -59,6 +59,11 @@ public class RF1Importer extends BaseImporter {
     protected final Map<String, List<String[]>> rels = new HashMap<String, List<String[]>>();
     protected final Map<String, Map<String, String>> roles = new HashMap<String, Map<String, String>>();
 
+    /**
+     * Shared instances of the values of the columns with few distinct values, such as types and statuses.
+     */
+    protected final SymbolTable symbols = new SymbolTable();
+
     /**
      * Creates a new {@link RF1Importer}.
      * 
@@ -380,106 +385,65 @@ public class RF1Importer extends BaseImporter {
         // Read all the concepts from the raw data
         List<ConceptRow> crs = new ArrayList<ConceptRow>();
         
-        BufferedReader br = null;
-        
-        try {
-            br = new BufferedReader(new InputStreamReader(conceptsFile));
-            String line = br.readLine(); // Skip first line
+        try (RowTokenizer rows = new RowTokenizer(conceptsFile)) {
+            rows.next(); // Skip first line
 
-            while (null != (line = br.readLine())) {
-                line = new String(line.getBytes(), "UTF8");
-                if (line.trim().length() < 1) {
+            while (rows.next()) {
+                if (rows.isBlank()) {
                     continue;
                 }
-                int idx1 = line.indexOf('\t');
-                int idx2 = line.indexOf('\t', idx1 + 1);
-                int idx3 = line.indexOf('\t', idx2 + 1);
-                int idx4 = line.indexOf('\t', idx3 + 1);
-                int idx5 = line.indexOf('\t', idx4 + 1);
-
-                // 0..idx1 == conceptId
-                // idx1+1..idx2 == conceptStatus
-                // idx2+1..idx3 == fullySpecifiedName
-                // idx3+1..idx4 == ctv3Id
-                // idx4+1..idx5 == snomedId
-                // idx5+1..end == isPrimitive
-
-                if (idx1 < 0 || idx2 < 0 || idx3 < 0 || idx4 < 0 || idx5 < 0) {
-                    br.close();
+
+                // 0 conceptId
+                // 1 conceptStatus
+                // 2 fullySpecifiedName
+                // 3 ctv3Id
+                // 4 snomedId
+                // 5 isPrimitive
+
+                if (rows.getFieldCount() < 6) {
                     throw new RuntimeException(
                             "Concepts: Mis-formatted "
                                     + "line, expected at least 6 tab-separated fields, "
-                                    + "got: " + line);
+                                    + "got: " + rows.getLine());
                 }
 
-                final String conceptId = line.substring(0, idx1);
-                final String conceptStatus = line.substring(idx1 + 1, idx2);
-                final String fullySpecifiedName = line.substring(idx2 + 1, idx3);
-                final String ctv3Id = line.substring(idx3 + 1, idx4);
-                final String snomedId = line.substring(idx4 + 1, idx5);
-                final String isPrimitive = line.substring(idx5 + 1);
-
-                crs.add(new ConceptRow(conceptId, conceptStatus, fullySpecifiedName, ctv3Id, snomedId, isPrimitive));
+                crs.add(new ConceptRow(rows.getString(0), rows.getSymbol(1, symbols), rows.getString(2),
+                        rows.getString(3), rows.getString(4), rows.getSymbol(5, symbols)));
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            if(br != null) {
-                try { br.close(); } catch(Exception e) {}
-            }
         }
 
         // Read all the relationships from the raw data
         List<RelationshipRow> rrs = new ArrayList<RelationshipRow>();
         
-        try {
-            br = new BufferedReader(
-                    new InputStreamReader(relationshipsFile));
-            String line = br.readLine(); // Skip first line
-            while (null != (line = br.readLine())) {
-                if (line.trim().length() < 1) {
+        try (RowTokenizer rows = new RowTokenizer(relationshipsFile)) {
+            rows.next(); // Skip first line
+            while (rows.next()) {
+                if (rows.isBlank()) {
                     continue;
                 }
-                int idx1 = line.indexOf('\t');
-                int idx2 = line.indexOf('\t', idx1 + 1);
-                int idx3 = line.indexOf('\t', idx2 + 1);
-                int idx4 = line.indexOf('\t', idx3 + 1);
-                int idx5 = line.indexOf('\t', idx4 + 1);
-                int idx6 = line.indexOf('\t', idx5 + 1);
-
-                // 0..idx1 == relationshipId
-                // idx1+1..idx2 == conceptId1
-                // idx2+1..idx3 == relationshipType
-                // idx3+1..idx4 == conceptId2
-                // idx4+1..idx5 == characteristicType
-                // idx5+1..idx6 == refinability
-                // idx6+1..end == relationshipGroup
-
-                if (idx1 < 0 || idx2 < 0 || idx3 < 0 || idx4 < 0 || idx5 < 0
-                        || idx6 < 0) {
-                    br.close();
+
+                // 0 relationshipId
+                // 1 conceptId1
+                // 2 relationshipType
+                // 3 conceptId2
+                // 4 characteristicType
+                // 5 refinability
+                // 6 relationshipGroup
+
+                if (rows.getFieldCount() < 7) {
                     throw new RuntimeException("Concepts: Mis-formatted "
                             + "line, expected 7 tab-separated fields, "
-                            + "got: " + line);
+                            + "got: " + rows.getLine());
                 }
 
-                final String relationshipId = line.substring(0, idx1);
-                final String conceptId1 = line.substring(idx1 + 1, idx2);
-                final String relationshipType = line.substring(idx2 + 1, idx3);
-                final String conceptId2 = line.substring(idx3 + 1, idx4);
-                final String characteristicType = line.substring(idx4 + 1, idx5);
-                final String refinability = line.substring(idx5 + 1, idx6);
-                final String relationshipGroup = line.substring(idx6 + 1);
-
-                rrs.add(new RelationshipRow(relationshipId, conceptId1, relationshipType, conceptId2, 
-                        characteristicType, refinability, relationshipGroup));
+                rrs.add(new RelationshipRow(rows.getString(0), rows.getString(1), rows.getSymbol(2, symbols),
+                        rows.getString(3), rows.getSymbol(4, symbols), rows.getSymbol(5, symbols),
+                        rows.getSymbol(6, symbols)));
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            if(br != null) {
-                try { br.close(); } catch(Exception e) {}
-            }
         }
 
         // In this case we know we are dealing with a single version so we need
@@ -0,0 +1,124 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+
+/**
+ * Caches the axioms of the members of the OWL reference sets, so members that are part of several versions are only
+ * parsed once. Members are identified by their id and effective time, because a member can only change in a new row
+ * with a later effective time. The rows of the OWL reference sets use the referenced component as their id, and a
+ * component can have several members, so the expression is also part of the key. It is usually the same instance in
+ * every version, so comparing it is cheap. The least recently used members are evicted when the cache is full.
+ * <p>
+ * The axioms of a member depend on the namespaces of the OWL ontology, so the cache is cleared when they change.
+ */
+class AxiomCache {
+
+    private final int maxSize;
+
+    private static final class Key {
+        final String id;
+        final String effectiveTime;
+        final String expression;
+        final int hash;
+
+        Key(RefsetRow row) {
+            this.id = row.getId();
+            this.effectiveTime = row.getEffectiveTime();
+            this.expression = row.getExtras()[0];
+            this.hash = 31 * (31 * id.hashCode() + effectiveTime.hashCode()) + expression.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            final Key other = (Key) obj;
+            return hash == other.hash && id.equals(other.id) && effectiveTime.equals(other.effectiveTime)
+                    && expression.equals(other.expression);
+        }
+    }
+
+    private final Map<Key, List<Axiom>> axioms;
+
+    private List<String> namespaces;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxSize The maximum number of members in the cache.
+     */
+    AxiomCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.axioms = new LinkedHashMap<Key, List<Axiom>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Axiom>> eldest) {
+                return size() > AxiomCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Sets the namespaces of the version that is being built, clearing the cache if they are not the same as the
+     * namespaces of the cached members.
+     *
+     * @param namespaces
+     */
+    synchronized void setNamespaces(List<String> namespaces) {
+        if (!namespaces.equals(this.namespaces)) {
+            axioms.clear();
+            this.namespaces = namespaces;
+        }
+    }
+
+    /**
+     * Returns the axioms of a member, or null if the member is not in the cache.
+     *
+     * @param row
+     * @return
+     */
+    synchronized List<Axiom> get(RefsetRow row) {
+        final List<Axiom> res = axioms.get(new Key(row));
+        if (res != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return res;
+    }
+
+    synchronized void put(RefsetRow row, List<Axiom> rowAxioms) {
+        axioms.put(new Key(row), rowAxioms);
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return axioms.size();
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import au.csiro.ontology.importer.RowTokenizer;
+import au.csiro.ontology.util.LongMap;
+
+/**
+ * Loads a single relationships file by memory-mapping it, splitting it at line boundaries into chunks and parsing the
+ * chunks in parallel on a {@link ForkJoinPool}. The per-chunk maps are then reduced keeping the latest version of
+ * each relationship, with ties resolved in favour of the row that appears first in the file, so the result is the
+ * same as loading the file sequentially.
+ */
+final class ChunkedRelationshipLoader {
+
+    /**
+     * Maximum size of a chunk. A single mapping cannot be larger than {@link Integer#MAX_VALUE} bytes.
+     */
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private final RF2Importer importer;
+    private final ForkJoinPool pool;
+    private final int chunks;
+
+    ChunkedRelationshipLoader(RF2Importer importer, ForkJoinPool pool, int chunks) {
+        this.importer = importer;
+        this.pool = pool;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Loads the latest version of the relationships in a file into the sink, using the same filtering rules as
+     * {@link RF2Importer#loadRelationshipRows(Map, LongMap, java.io.InputStream)}.
+     *
+     * @param file
+     * @param modMap
+     * @param relationshipMap
+     * @throws IOException
+     */
+    void load(File file, Map<String, String> modMap, RowSink<RelationshipRow> relationshipMap)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long[] bounds = split(channel);
+            final LongMap<RelationshipRow> rows;
+            try {
+                rows = pool.invoke(new ParseTask(channel, bounds, modMap, 0, bounds.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            final LongMap<RelationshipRow>.Cursor cursor = rows.cursor();
+            while (cursor.next()) {
+                final RelationshipRow row = cursor.value();
+                if (relationshipMap.accepts(cursor.key(), row.getPackedEffectiveTime())) {
+                    relationshipMap.add(cursor.key(), row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the file into chunks that start at the beginning of a line. The first chunk starts after the header.
+     *
+     * @param channel
+     * @return The chunk boundaries; chunk i spans [bounds[i], bounds[i + 1]).
+     * @throws IOException
+     */
+    long[] split(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final int n = (int) Math.max(Math.max(chunks, 1), (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        final long[] bounds = new long[n + 1];
+        bounds[0] = nextLine(channel, 0, size); // Skip header
+        for (int i = 1; i < n; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLine(channel, size / n * i, size));
+        }
+        bounds[n] = size;
+        return bounds;
+    }
+
+    /**
+     * Returns the position just after the first newline at or after pos, or size if there is none.
+     */
+    private static long nextLine(FileChannel channel, long pos, long size) throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            buf.clear();
+            final int read = channel.read(buf, pos);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /**
+     * Merges the rows of a later chunk into the rows of an earlier one.
+     */
+    private static void merge(LongMap<RelationshipRow> target, LongMap<RelationshipRow> rows) {
+        final LongMap<RelationshipRow>.Cursor cursor = rows.cursor();
+        while (cursor.next()) {
+            final RelationshipRow row = cursor.value();
+            final RelationshipRow curr = target.get(cursor.key());
+            if (curr == null || row.getPackedEffectiveTime() > curr.getPackedEffectiveTime()) {
+                target.put(cursor.key(), row);
+            }
+        }
+    }
+
+    private class ParseTask extends RecursiveTask<LongMap<RelationshipRow>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final Map<String, String> modMap;
+        private final int lo;
+        private final int hi;
+
+        ParseTask(FileChannel channel, long[] bounds, Map<String, String> modMap, int lo, int hi) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.modMap = modMap;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected LongMap<RelationshipRow> compute() {
+            if (hi - lo == 1) {
+                try {
+                    return parse(bounds[lo], bounds[hi]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            final int mid = (lo + hi) >>> 1;
+            final ParseTask right = new ParseTask(channel, bounds, modMap, mid, hi);
+            right.fork();
+            final LongMap<RelationshipRow> res = new ParseTask(channel, bounds, modMap, lo, mid).compute();
+            merge(res, right.join());
+            return res;
+        }
+
+        private LongMap<RelationshipRow> parse(long start, long end) throws IOException {
+            // Keep rows in file order so ties are resolved as in a sequential load
+            final LongMap<RelationshipRow> res = new LongMap<>();
+            if (end <= start) {
+                return res;
+            }
+
+            final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            final ModuleFilter modules = new ModuleFilter(modMap);
+            final RowSink<RelationshipRow> sink = RowSink.latest(res, RelationshipRow::getPackedEffectiveTime);
+            try (RowTokenizer rows = new RowTokenizer(buf)) {
+                while (rows.next()) {
+                    importer.loadRelationshipRow(modules, sink, rows);
+                }
+            }
+            return res;
+        }
+    }
+
+}
@@ -0,0 +1,485 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+import au.csiro.ontology.importer.SymbolTable;
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+import au.csiro.ontology.util.EffectiveTime;
+
+/**
+ * A {@link VersionRows} that stores each column of the rows in an array instead of keeping an object for each row.
+ * SCTIDs that are mostly unique, such as the ids of concepts and relationships, are stored as longs. Columns with few
+ * distinct values, such as modules, types or effective times, are stored as codes into a dictionary.
+ * <p>
+ * The rows can be read with the cursors returned by {@link #conceptCursor()}, {@link #statedRelationshipCursor()} and
+ * {@link #inferredRelationshipCursor()} without creating any objects. The collections returned by the getters create a
+ * row object for each row as they are iterated. Rows can only be appended, which is all {@link #merge(VersionRows)}
+ * needs.
+ * <p>
+ * The destinations of relationships loaded from concrete values files are values such as {@code #500} or a quoted
+ * string rather than SCTIDs. These are kept as strings in a separate column, and the cursors return -1 as their
+ * destination id.
+ */
+public class ColumnarVersionRows extends VersionRows {
+
+    private final ConceptColumns concepts;
+    private final RelationshipColumns inferredRelationships;
+    private final RelationshipColumns statedRelationships;
+
+    private ColumnarVersionRows(ConceptColumns concepts, RelationshipColumns inferredRelationships,
+            RelationshipColumns statedRelationships, RefsetColumns concreteDomains, RefsetColumns attributeDomains,
+            RefsetColumns owl) {
+        super(concepts, inferredRelationships, statedRelationships, concreteDomains, attributeDomains, owl);
+        this.concepts = concepts;
+        this.inferredRelationships = inferredRelationships;
+        this.statedRelationships = statedRelationships;
+    }
+
+    /**
+     * Returns a columnar copy of a {@link VersionRows}.
+     *
+     * @param rows
+     * @return
+     */
+    public static ColumnarVersionRows copyOf(VersionRows rows) {
+        return copyOf(rows, new SymbolTable());
+    }
+
+    /**
+     * Returns a columnar copy of a {@link VersionRows}. The codes of the columns with few distinct values are the codes
+     * of the values in a symbol table, which can be shared with the loaders and other versions.
+     *
+     * @param rows
+     * @param table
+     * @return
+     */
+    public static ColumnarVersionRows copyOf(VersionRows rows, SymbolTable table) {
+        if (rows instanceof ColumnarVersionRows) {
+            return (ColumnarVersionRows) rows;
+        }
+
+        final Symbols times = new Symbols(table, EffectiveTime::packOptional);
+        final Symbols symbols = new Symbols(table, RF2Importer::toSctid);
+
+        final ConceptColumns concepts = new ConceptColumns(times, symbols, rows.getConceptRows().size());
+        concepts.addAll(rows.getConceptRows());
+        final RelationshipColumns inferred = new RelationshipColumns(times, symbols,
+                rows.getInferredRelationshipRows().size());
+        inferred.addAll(rows.getInferredRelationshipRows());
+        final RelationshipColumns stated = new RelationshipColumns(times, symbols,
+                rows.getStatedRelationshipRows().size());
+        stated.addAll(rows.getStatedRelationshipRows());
+
+        final RefsetColumns cds = new RefsetColumns(IRefsetFactory.CD, times, symbols,
+                rows.getConcreteDomainRows().size());
+        cds.addAll(rows.getConcreteDomainRows());
+        final RefsetColumns ads = new RefsetColumns(IRefsetFactory.AD, times, symbols,
+                rows.getAttributeDomainRows().size());
+        ads.addAll(rows.getAttributeDomainRows());
+        final RefsetColumns owl = new RefsetColumns(IRefsetFactory.OWL, times, symbols, rows.getOwlRows().size());
+        owl.addAll(rows.getOwlRows());
+
+        return new ColumnarVersionRows(concepts, inferred, stated, cds, ads, owl);
+    }
+
+    @Override
+    public ConceptCursor conceptCursor() {
+        return concepts.cursor();
+    }
+
+    @Override
+    public RelationshipCursor inferredRelationshipCursor() {
+        return inferredRelationships.cursor();
+    }
+
+    @Override
+    public RelationshipCursor statedRelationshipCursor() {
+        return statedRelationships.cursor();
+    }
+
+    /**
+     * The values of the columns with few distinct values, coded by a {@link SymbolTable}. Each value is also kept as a
+     * long.
+     */
+    static final class Symbols {
+        private final SymbolTable table;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final ToLongFunction<String> toLong;
+        private String[] strings = new String[16];
+        private long[] values = new long[16];
+
+        Symbols(SymbolTable table, ToLongFunction<String> toLong) {
+            this.table = table;
+            this.toLong = toLong;
+        }
+
+        int code(String value) {
+            final Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+
+            final int res = table.code(value);
+            if (res >= strings.length) {
+                final int length = Math.max(res + 1, strings.length * 2);
+                strings = Arrays.copyOf(strings, length);
+                values = Arrays.copyOf(values, length);
+            }
+            strings[res] = table.get(res);
+            values[res] = toLong.applyAsLong(value);
+            codes.put(value, res);
+            return res;
+        }
+
+        String get(int code) {
+            return strings[code];
+        }
+
+        long value(int code) {
+            return values[code];
+        }
+    }
+
+    /**
+     * Base class of the column stores. Rows can only be appended.
+     */
+    abstract static class Columns<R> extends AbstractCollection<R> {
+        protected final Symbols times;
+        protected final Symbols symbols;
+        protected final BitSet active = new BitSet();
+        protected int size;
+        protected int capacity;
+
+        Columns(Symbols times, Symbols symbols) {
+            this.times = times;
+            this.symbols = symbols;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean add(R row) {
+            if (size == capacity) {
+                capacity = Math.max(16, capacity * 2);
+                grow(capacity);
+            }
+            set(size++, row);
+            return true;
+        }
+
+        @Override
+        public Iterator<R> iterator() {
+            return new Iterator<R>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public R next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(next++);
+                }
+            };
+        }
+
+        protected String active(int row) {
+            return active.get(row) ? "1" : "0";
+        }
+
+        /**
+         * Resizes the arrays of the columns.
+         */
+        abstract void grow(int capacity);
+
+        abstract void set(int row, R value);
+
+        /**
+         * Creates the object of a row.
+         */
+        abstract R get(int row);
+    }
+
+    static final class ConceptColumns extends Columns<ConceptRow> {
+        private long[] ids = new long[0];
+        private int[] effectiveTimes = new int[0];
+        private int[] modules = new int[0];
+        private int[] definitionStatuses = new int[0];
+
+        ConceptColumns(Symbols times, Symbols symbols, int capacity) {
+            super(times, symbols);
+            this.capacity = capacity;
+            grow(capacity);
+        }
+
+        @Override
+        void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            effectiveTimes = Arrays.copyOf(effectiveTimes, capacity);
+            modules = Arrays.copyOf(modules, capacity);
+            definitionStatuses = Arrays.copyOf(definitionStatuses, capacity);
+        }
+
+        @Override
+        void set(int row, ConceptRow value) {
+            ids[row] = Long.parseLong(value.getId());
+            effectiveTimes[row] = times.code(value.getEffectiveTime());
+            active.set(row, "1".equals(value.getActive()));
+            modules[row] = symbols.code(value.getModuleId());
+            definitionStatuses[row] = symbols.code(value.getDefinitionStatusId());
+        }
+
+        @Override
+        ConceptRow get(int row) {
+            return new ConceptRow(Long.toString(ids[row]), times.get(effectiveTimes[row]), active(row),
+                    symbols.get(modules[row]), symbols.get(definitionStatuses[row]));
+        }
+
+        ConceptCursor cursor() {
+            return new ConceptCursor() {
+                private int row = -1;
+
+                @Override
+                public boolean next() {
+                    return ++row < size;
+                }
+
+                @Override
+                public long getId() {
+                    return ids[row];
+                }
+
+                @Override
+                public long getEffectiveTime() {
+                    return times.value(effectiveTimes[row]);
+                }
+
+                @Override
+                public boolean isActive() {
+                    return active.get(row);
+                }
+
+                @Override
+                public long getModuleId() {
+                    return symbols.value(modules[row]);
+                }
+
+                @Override
+                public long getDefinitionStatusId() {
+                    return symbols.value(definitionStatuses[row]);
+                }
+            };
+        }
+    }
+
+    static final class RelationshipColumns extends Columns<RelationshipRow> {
+        private long[] ids = new long[0];
+        private int[] effectiveTimes = new int[0];
+        private int[] modules = new int[0];
+        private long[] sources = new long[0];
+        private long[] destinations = new long[0];
+        /**
+         * The destinations that are not SCTIDs. Only created when the first one is added.
+         */
+        private String[] values;
+        private int[] groups = new int[0];
+        private int[] types = new int[0];
+        private int[] characteristicTypes = new int[0];
+        private int[] modifiers = new int[0];
+
+        RelationshipColumns(Symbols times, Symbols symbols, int capacity) {
+            super(times, symbols);
+            this.capacity = capacity;
+            grow(capacity);
+        }
+
+        @Override
+        void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            effectiveTimes = Arrays.copyOf(effectiveTimes, capacity);
+            modules = Arrays.copyOf(modules, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            if (values != null) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            groups = Arrays.copyOf(groups, capacity);
+            types = Arrays.copyOf(types, capacity);
+            characteristicTypes = Arrays.copyOf(characteristicTypes, capacity);
+            modifiers = Arrays.copyOf(modifiers, capacity);
+        }
+
+        @Override
+        void set(int row, RelationshipRow value) {
+            ids[row] = Long.parseLong(value.getId());
+            effectiveTimes[row] = times.code(value.getEffectiveTime());
+            active.set(row, "1".equals(value.getActive()));
+            modules[row] = symbols.code(value.getModuleId());
+            sources[row] = Long.parseLong(value.getSourceId());
+            final String destination = value.getDestinationId();
+            if (RF2Importer.isSctid(destination)) {
+                destinations[row] = Long.parseLong(destination);
+            } else {
+                if (values == null) {
+                    values = new String[capacity];
+                }
+                destinations[row] = -1;
+                values[row] = destination;
+            }
+            groups[row] = Integer.parseInt(value.getRelationshipGroup());
+            types[row] = symbols.code(value.getTypeId());
+            characteristicTypes[row] = symbols.code(value.getCharacteristicTypeId());
+            modifiers[row] = symbols.code(value.getModifierId());
+        }
+
+        @Override
+        RelationshipRow get(int row) {
+            return new RelationshipRow(Long.toString(ids[row]), times.get(effectiveTimes[row]), active(row),
+                    symbols.get(modules[row]), Long.toString(sources[row]), destination(row),
+                    Integer.toString(groups[row]), symbols.get(types[row]), symbols.get(characteristicTypes[row]),
+                    symbols.get(modifiers[row]));
+        }
+
+        private String destination(int row) {
+            return (values != null && values[row] != null) ? values[row] : Long.toString(destinations[row]);
+        }
+
+        RelationshipCursor cursor() {
+            return new RelationshipCursor() {
+                private int row = -1;
+
+                @Override
+                public boolean next() {
+                    return ++row < size;
+                }
+
+                @Override
+                public long getId() {
+                    return ids[row];
+                }
+
+                @Override
+                public long getEffectiveTime() {
+                    return times.value(effectiveTimes[row]);
+                }
+
+                @Override
+                public boolean isActive() {
+                    return active.get(row);
+                }
+
+                @Override
+                public long getModuleId() {
+                    return symbols.value(modules[row]);
+                }
+
+                @Override
+                public long getSourceId() {
+                    return sources[row];
+                }
+
+                @Override
+                public long getDestinationId() {
+                    return destinations[row];
+                }
+
+                @Override
+                public long getRelationshipGroup() {
+                    return groups[row];
+                }
+
+                @Override
+                public long getTypeId() {
+                    return symbols.value(types[row]);
+                }
+
+                @Override
+                public long getCharacteristicTypeId() {
+                    return symbols.value(characteristicTypes[row]);
+                }
+
+                @Override
+                public long getModifierId() {
+                    return symbols.value(modifiers[row]);
+                }
+            };
+        }
+    }
+
+    /**
+     * Stores the rows of a reference set. The additional columns of all the rows are stored in a single array, so all
+     * the rows must have the same number of additional columns.
+     */
+    static final class RefsetColumns extends Columns<RefsetRow> {
+        private final IRefsetFactory<RefsetRow> factory;
+        private int width = -1;
+        private String[] ids = new String[0];
+        private int[] effectiveTimes = new int[0];
+        private int[] modules = new int[0];
+        private int[] refsets = new int[0];
+        private String[] referencedComponents = new String[0];
+        private String[] extras = new String[0];
+
+        RefsetColumns(IRefsetFactory<RefsetRow> factory, Symbols times, Symbols symbols, int capacity) {
+            super(times, symbols);
+            this.factory = factory;
+            this.capacity = capacity;
+            grow(capacity);
+        }
+
+        @Override
+        void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            effectiveTimes = Arrays.copyOf(effectiveTimes, capacity);
+            modules = Arrays.copyOf(modules, capacity);
+            refsets = Arrays.copyOf(refsets, capacity);
+            referencedComponents = Arrays.copyOf(referencedComponents, capacity);
+            extras = Arrays.copyOf(extras, capacity * Math.max(width, 0));
+        }
+
+        @Override
+        void set(int row, RefsetRow value) {
+            final String[] values = value.getExtras();
+            if (width < 0) {
+                width = values.length;
+                extras = new String[capacity * width];
+            } else if (values.length != width) {
+                throw new IllegalArgumentException("Expected " + width + " additional columns but found "
+                        + values.length);
+            }
+            ids[row] = value.getId();
+            effectiveTimes[row] = times.code(value.getEffectiveTime());
+            active.set(row, "1".equals(value.getActive()));
+            modules[row] = symbols.code(value.getModuleId());
+            refsets[row] = symbols.code(value.getRefsetId());
+            referencedComponents[row] = value.getReferencedComponentId();
+            System.arraycopy(values, 0, extras, row * width, width);
+        }
+
+        @Override
+        RefsetRow get(int row) {
+            return factory.create(ids[row], times.get(effectiveTimes[row]), active(row), symbols.get(modules[row]),
+                    symbols.get(refsets[row]), referencedComponents[row],
+                    Arrays.copyOfRange(extras, row * width, (row + 1) * width));
+        }
+    }
+
+}
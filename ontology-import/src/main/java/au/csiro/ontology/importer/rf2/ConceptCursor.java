@@ -0,0 +1,93 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Iterator;
+
+/**
+ * A cursor over the concept rows of a {@link VersionRows}. The cursor starts before the first row and each call to
+ * {@link #next()} moves it to the next row. Ids are returned as numbers, so rows can be read without creating a
+ * {@link ConceptRow} for each one.
+ */
+public interface ConceptCursor {
+
+    /**
+     * Moves to the next row.
+     *
+     * @return false if there are no more rows.
+     */
+    boolean next();
+
+    long getId();
+
+    /**
+     * @return the effectiveTime, packed as by {@link au.csiro.ontology.util.EffectiveTime#packOptional(String)}
+     */
+    long getEffectiveTime();
+
+    boolean isActive();
+
+    long getModuleId();
+
+    long getDefinitionStatusId();
+
+    /**
+     * Returns a cursor over a collection of {@link ConceptRow}s. The fields of each row are parsed once, when the
+     * cursor moves to the row.
+     *
+     * @param rows
+     * @return
+     */
+    static ConceptCursor over(Iterable<ConceptRow> rows) {
+        final Iterator<ConceptRow> itr = rows.iterator();
+        return new ConceptCursor() {
+            private long id;
+            private long effectiveTime;
+            private boolean active;
+            private long moduleId;
+            private long definitionStatusId;
+
+            @Override
+            public boolean next() {
+                if (!itr.hasNext()) {
+                    return false;
+                }
+                final ConceptRow row = itr.next();
+                id = Long.parseLong(row.getId());
+                effectiveTime = row.getPackedEffectiveTime();
+                active = "1".equals(row.getActive());
+                moduleId = Long.parseLong(row.getModuleId());
+                definitionStatusId = Long.parseLong(row.getDefinitionStatusId());
+                return true;
+            }
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public long getEffectiveTime() {
+                return effectiveTime;
+            }
+
+            @Override
+            public boolean isActive() {
+                return active;
+            }
+
+            @Override
+            public long getModuleId() {
+                return moduleId;
+            }
+
+            @Override
+            public long getDefinitionStatusId() {
+                return definitionStatusId;
+            }
+        };
+    }
+
+}
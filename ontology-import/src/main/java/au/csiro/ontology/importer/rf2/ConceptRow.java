@@ -4,6 +4,8 @@
  */
 package au.csiro.ontology.importer.rf2;
 
+import au.csiro.ontology.util.EffectiveTime;
+
 /**
  * Represents a row in an RF2 concepts file.
  * 
@@ -14,6 +16,7 @@ public class ConceptRow implements Comparable<ConceptRow> {
 
     private final String id;
     private final String effectiveTime;
+    private final long packedEffectiveTime;
     private final String active;
     private final String moduleId;
     private final String definitionStatusId;
@@ -32,6 +35,7 @@ public class ConceptRow implements Comparable<ConceptRow> {
         super();
         this.id = id;
         this.effectiveTime = effectiveTime;
+        this.packedEffectiveTime = EffectiveTime.packOptional(effectiveTime);
         this.active = active;
         this.moduleId = moduleId;
         this.definitionStatusId = definitionStatusId;
@@ -51,6 +55,13 @@ public class ConceptRow implements Comparable<ConceptRow> {
         return effectiveTime;
     }
 
+    /**
+     * @return the effectiveTime, packed as by {@link EffectiveTime#packOptional(String)}
+     */
+    public long getPackedEffectiveTime() {
+        return packedEffectiveTime;
+    }
+
     /**
      * @return the active
      */
@@ -136,7 +147,7 @@ public class ConceptRow implements Comparable<ConceptRow> {
         if(this.equals(other))
             return 0;
         else {
-            int res = effectiveTime.compareTo(other.effectiveTime);
+            int res = Long.compare(packedEffectiveTime, other.packedEffectiveTime);
             if(res != 0) return res;
             res = moduleId.compareTo(other.moduleId);
             if(res != 0) return res;
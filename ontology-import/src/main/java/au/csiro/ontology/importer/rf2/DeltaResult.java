@@ -0,0 +1,51 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Set;
+
+import au.csiro.ontology.Ontology;
+
+/**
+ * The result of applying an RF2 delta release to a previously imported version.
+ */
+public class DeltaResult {
+
+    private final VersionRows versionRows;
+    private final Ontology ontology;
+    private final Set<String> changedConcepts;
+
+    public DeltaResult(VersionRows versionRows, Ontology ontology, Set<String> changedConcepts) {
+        this.versionRows = versionRows;
+        this.ontology = ontology;
+        this.changedConcepts = changedConcepts;
+    }
+
+    /**
+     * @return The rows of the new version. These can be used as the base of the next delta.
+     */
+    public VersionRows getVersionRows() {
+        return versionRows;
+    }
+
+    /**
+     * @return The ontology of the new version.
+     */
+    public Ontology getOntology() {
+        return ontology;
+    }
+
+    /**
+     * Returns the ids of the concepts whose definition might have changed: concepts with a changed concept row, stated
+     * or inferred relationship, concrete domain or OWL axiom member, and attributes with a changed attribute domain
+     * member.
+     *
+     * @return
+     */
+    public Set<String> getChangedConcepts() {
+        return changedConcepts;
+    }
+
+}
@@ -4,6 +4,8 @@
  */
 package au.csiro.ontology.importer.rf2;
 
+import au.csiro.ontology.util.EffectiveTime;
+
 /**
  * Represents a row in an RF2 descriptions file.
  * 
@@ -14,6 +16,7 @@ public class DescriptionRow implements Comparable<DescriptionRow>{
 
     private final String id;
     private final String effectiveTime;
+    private final long packedEffectiveTime;
     private final String active;
     private final String moduleId;
     private final String conceptId;
@@ -41,6 +44,7 @@ public class DescriptionRow implements Comparable<DescriptionRow>{
         super();
         this.id = id;
         this.effectiveTime = effectiveTime;
+        this.packedEffectiveTime = EffectiveTime.packOptional(effectiveTime);
         this.active = active;
         this.moduleId = moduleId;
         this.conceptId = conceptId;
@@ -64,6 +68,13 @@ public class DescriptionRow implements Comparable<DescriptionRow>{
         return effectiveTime;
     }
 
+    /**
+     * @return the effectiveTime, packed as by {@link EffectiveTime#packOptional(String)}
+     */
+    public long getPackedEffectiveTime() {
+        return packedEffectiveTime;
+    }
+
     /**
      * @return the active
      */
@@ -204,7 +215,7 @@ public class DescriptionRow implements Comparable<DescriptionRow>{
         if(this.equals(other))
             return 0;
         else {
-            int res = effectiveTime.compareTo(other.effectiveTime);
+            int res = Long.compare(packedEffectiveTime, other.packedEffectiveTime);
             if(res != 0) return res;
             res = moduleId.compareTo(other.moduleId);
             if(res != 0) return res;
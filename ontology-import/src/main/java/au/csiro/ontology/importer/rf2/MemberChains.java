@@ -0,0 +1,64 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+
+/**
+ * All the versions of the members of reference sets that are part of any of the versions being imported. This is the
+ * equivalent of {@link RowChains} for rows identified by UUIDs.
+ *
+ * @param <R>
+ */
+final class MemberChains<R extends RefsetRow> implements MemberSink<R> {
+
+    private final Map<String, Object> chains = new LinkedHashMap<>();
+
+    @Override
+    public boolean accepts(String id, long time) {
+        // Every version is kept
+        return true;
+    }
+
+    @Override
+    public void add(String id, R row) {
+        chains.put(id, RowChains.append(chains.get(id), row));
+    }
+
+    /**
+     * Adds the rows of another set of chains after the rows of this one.
+     *
+     * @param other
+     */
+    void addAll(MemberChains<R> other) {
+        for (Entry<String, Object> entry : other.chains.entrySet()) {
+            chains.put(entry.getKey(), RowChains.appendAll(chains.get(entry.getKey()), entry.getValue()));
+        }
+    }
+
+    /**
+     * Selects the rows of a single version.
+     *
+     * @param modules
+     * @return
+     * @see RowChains#snapshot(ModuleFilter)
+     */
+    Map<String, R> snapshot(ModuleFilter modules) {
+        final Map<String, R> res = new LinkedHashMap<>();
+        for (Entry<String, Object> entry : chains.entrySet()) {
+            final R row = RowChains.select(entry.getValue(), modules, RefsetRow::getPackedEffectiveTime,
+                    RefsetRow::getModuleId);
+            if (row != null) {
+                res.put(entry.getKey(), row);
+            }
+        }
+        return res;
+    }
+
+}
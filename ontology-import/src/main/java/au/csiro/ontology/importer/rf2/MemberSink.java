@@ -0,0 +1,52 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Map;
+
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+
+/**
+ * Receives the reference set members, identified by a UUID, that are part of the modules being loaded. Rows are only
+ * created if the sink accepts them.
+ *
+ * @param <R>
+ */
+interface MemberSink<R extends RefsetRow> {
+
+    /**
+     * Indicates if a row should be created and added to the sink.
+     *
+     * @param id The id of the member.
+     * @param effectiveTime The packed effective time of the row.
+     * @return
+     */
+    boolean accepts(String id, long effectiveTime);
+
+    void add(String id, R row);
+
+    /**
+     * Returns a sink that only keeps the latest version of each member in a map. If there are several rows with the
+     * same effective time, the first one is kept.
+     *
+     * @param rows
+     * @return
+     */
+    static <R extends RefsetRow> MemberSink<R> latest(Map<String, R> rows) {
+        return new MemberSink<R>() {
+            @Override
+            public boolean accepts(String id, long time) {
+                final R curr = rows.get(id);
+                return curr == null || time > curr.getPackedEffectiveTime();
+            }
+
+            @Override
+            public void add(String id, R row) {
+                rows.put(id, row);
+            }
+        };
+    }
+
+}
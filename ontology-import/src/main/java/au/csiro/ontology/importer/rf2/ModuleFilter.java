@@ -0,0 +1,117 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import au.csiro.ontology.importer.RowTokenizer;
+import au.csiro.ontology.util.EffectiveTime;
+
+/**
+ * The modules and target versions of an import entry, in a form that can be matched against the raw bytes of a
+ * {@link RowTokenizer} field. The number of modules in an entry is small, so a linear scan is used.
+ */
+class ModuleFilter {
+
+    private final String[] moduleIds;
+    private final byte[][] moduleIdBytes;
+    private final long[] versions;
+
+    /**
+     * Modules found in the rows that are not part of the entry.
+     */
+    private final List<byte[]> unknown = new ArrayList<>();
+
+    ModuleFilter(Map<String, String> modMap) {
+        final int size = modMap.size();
+        moduleIds = new String[size];
+        moduleIdBytes = new byte[size][];
+        versions = new long[size];
+        int i = 0;
+        for (Entry<String, String> entry : modMap.entrySet()) {
+            moduleIds[i] = entry.getKey();
+            moduleIdBytes[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            versions[i] = EffectiveTime.pack(entry.getValue());
+            i++;
+        }
+    }
+
+    /**
+     * Returns the index of the module in a field of the current row, or -1 if the module is not part of the entry.
+     *
+     * @param rows
+     * @param field
+     * @return
+     */
+    int indexOf(RowTokenizer rows, int field) {
+        for (int i = 0; i < moduleIdBytes.length; i++) {
+            if (rows.fieldEquals(field, moduleIdBytes[i])) {
+                return i;
+            }
+        }
+        for (byte[] u : unknown) {
+            if (rows.fieldEquals(field, u)) {
+                return -1;
+            }
+        }
+        final byte[] u = new byte[rows.getLength(field)];
+        System.arraycopy(rows.getBuffer(), rows.getStart(field), u, 0, u.length);
+        unknown.add(u);
+        return -1;
+    }
+
+    /**
+     * Returns the index of a module, or -1 if the module is not part of the entry.
+     *
+     * @param moduleId
+     * @return
+     */
+    int indexOf(String moduleId) {
+        for (int i = 0; i < moduleIds.length; i++) {
+            if (moduleIds[i].equals(moduleId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param module
+     * @return The id of a module. The same instance is returned for every row, so no new {@link String}s are created
+     * for this column.
+     */
+    String getModuleId(int module) {
+        return moduleIds[module];
+    }
+
+    /**
+     * Indicates if a row with a given effective time is part of the target version of a module.
+     *
+     * @param module
+     * @param effectiveTime The packed effective time of the row.
+     * @return
+     */
+    boolean includes(int module, long effectiveTime) {
+        return effectiveTime <= versions[module];
+    }
+
+    /**
+     * @return The ids of the modules found in the rows that are not part of the entry.
+     */
+    Set<String> getUnknownModules() {
+        final Set<String> res = new LinkedHashSet<>();
+        for (byte[] u : unknown) {
+            res.add(new String(u, StandardCharsets.UTF_8));
+        }
+        return res;
+    }
+
+}
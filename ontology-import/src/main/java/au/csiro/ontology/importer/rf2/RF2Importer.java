@@ -4,28 +4,45 @@
  */
 package au.csiro.ontology.importer.rf2;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.StringReader;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PrimitiveIterator;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import org.semanticweb.owlapi.apibinding.OWLManager;
@@ -43,6 +60,9 @@ import org.slf4j.LoggerFactory;
 import au.csiro.ontology.Ontology;
 import au.csiro.ontology.importer.BaseImporter;
 import au.csiro.ontology.importer.ImportException;
+import au.csiro.ontology.importer.RowTokenizer;
+import au.csiro.ontology.importer.SymbolTable;
+import au.csiro.ontology.importer.owl.FunctionalSyntaxParser;
 import au.csiro.ontology.importer.owl.OWLImporter;
 import au.csiro.ontology.input.Input;
 import au.csiro.ontology.input.Input.InputType;
@@ -55,9 +75,7 @@ import au.csiro.ontology.model.Axiom;
 import au.csiro.ontology.model.Concept;
 import au.csiro.ontology.model.ConceptInclusion;
 import au.csiro.ontology.model.Conjunction;
-import au.csiro.ontology.model.Datatype;
 import au.csiro.ontology.model.DecimalLiteral;
-import au.csiro.ontology.model.Existential;
 import au.csiro.ontology.model.FunctionalFeature;
 import au.csiro.ontology.model.IntegerLiteral;
 import au.csiro.ontology.model.Literal;
@@ -70,7 +88,10 @@ import au.csiro.ontology.model.RoleInclusion;
 import au.csiro.ontology.snomed.refset.rf2.IModuleDependencyRefset;
 import au.csiro.ontology.snomed.refset.rf2.ModuleDependency;
 import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+import au.csiro.ontology.util.EffectiveTime;
 import au.csiro.ontology.util.IProgressMonitor;
+import au.csiro.ontology.util.LongMap;
+import au.csiro.ontology.util.LongSet;
 
 /**
  * Imports ontologies specified in RF2 format into the internal representation.
@@ -97,6 +118,79 @@ public class RF2Importer extends BaseImporter {
      */
     protected final Queue<RF2Input> inputs = new LinkedList<>();
 
+    /**
+     * Executor used to load the files of an import entry concurrently. If null, files are loaded sequentially.
+     */
+    protected ExecutorService executor;
+
+    /**
+     * Indicates if rows loaded concurrently should be merged in file order, which gives exactly the same result as a
+     * sequential load. Otherwise rows are merged as soon as each file has been loaded.
+     */
+    protected boolean deterministic = false;
+
+    /**
+     * Number of chunks each relationships file is split into to be parsed in parallel. Values lower than 2 disable
+     * chunked parsing.
+     */
+    protected int relationshipChunks = 0;
+
+    /**
+     * Pool used to parse the chunks of relationships files.
+     */
+    protected ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    /**
+     * Indicates if all the versions of an input should be loaded in a single pass over its files.
+     */
+    protected boolean singlePass = false;
+
+    /**
+     * The number of versions whose rows are loaded in the background while the current version is built.
+     */
+    protected int prefetchDepth = 0;
+
+    /**
+     * Shared instances of the values of the columns with few distinct values, such as types and modules.
+     */
+    protected final SymbolTable symbols = new SymbolTable();
+
+    /**
+     * Indicates if the rows of each version are stored in columns.
+     */
+    protected boolean columnar = false;
+
+    /**
+     * Directory where the rows of each version are cached, or null if rows are not cached.
+     */
+    protected File cacheDirectory;
+
+    private VersionRowsCache cache;
+
+    /**
+     * Indicates if the axioms of the concepts are created in parallel, using the fork-join pool.
+     */
+    protected boolean parallelBuild = false;
+
+    /**
+     * Indicates if the axioms in the OWL reference sets are parsed with {@link FunctionalSyntaxParser}. Axioms it does
+     * not support are still loaded with the OWL API.
+     */
+    protected boolean nativeOwlParsing = false;
+
+    /**
+     * Indicates if equal expressions in the built ontologies are the same instance.
+     */
+    protected boolean hashConsing = false;
+
+    /**
+     * The maximum number of OWL axiom reference set members whose axioms are cached between versions, or zero if they
+     * are not cached.
+     */
+    protected int axiomCacheSize = 0;
+
+    private AxiomCache axiomCache;
+
     /**
      * Imports an ontology using the supplied configuration object.
      *
@@ -119,11 +213,290 @@ public class RF2Importer extends BaseImporter {
         }
     }
 
+    /**
+     * Sets the executor used to load the concepts, relationships and reference set files of each version
+     * concurrently. The executor is not shut down by the importer. Set to null to load files sequentially (the
+     * default).
+     *
+     * @param executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * When files are loaded concurrently, indicates if the results should be merged in file order so that the
+     * imported rows are exactly the same as in a sequential load.
+     *
+     * @param deterministic
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Sets the number of chunks each relationships file is split into. When greater than one, relationships files that
+     * are available in the local file system are memory-mapped and their chunks parsed in parallel using the fork-join
+     * pool. Relationships files in ZIP files or the class path are always read sequentially.
+     *
+     * @param relationshipChunks
+     */
+    public void setRelationshipChunks(int relationshipChunks) {
+        this.relationshipChunks = relationshipChunks;
+    }
+
+    /**
+     * Sets the fork-join pool used for parallel parsing. Defaults to {@link ForkJoinPool#commonPool()}.
+     *
+     * @param forkJoinPool
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * When several versions of an input are imported, indicates if the files should be read only once. Every version
+     * of each row that is part of any of the versions is then kept in memory, and the rows of each version are
+     * selected from them. This is much faster than reading the files again for each version but uses more memory.
+     * Relationships files are not split into chunks in this mode.
+     *
+     * @param singlePass
+     */
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Sets the number of versions whose rows are loaded in the background, in a separate thread, while the ontology of
+     * the current version is built and consumed. Each prefetched version is kept in memory until it is consumed.
+     * Versions are only prefetched within the same input. Set to zero to load each version when it is requested (the
+     * default).
+     *
+     * @param prefetchDepth
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Indicates if the rows of each version should be stored in columns, as {@link ColumnarVersionRows}, before the
+     * ontology is built. This uses much less memory when several versions are prefetched, but takes some time to copy
+     * the rows.
+     *
+     * @param columnar
+     */
+    public void setColumnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
+    /**
+     * Indicates if the axioms of the concepts should be created in parallel, using the fork-join pool, when each
+     * ontology is built. The resulting axioms are the same as in a sequential build.
+     *
+     * @param parallelBuild
+     */
+    public void setParallelBuild(boolean parallelBuild) {
+        this.parallelBuild = parallelBuild;
+    }
+
+    /**
+     * Indicates if the named concepts, roles, existentials, conjunctions and datatype expressions of the ontologies
+     * should be hash-consed with {@link au.csiro.ontology.Factory#canonical(Object)}, so equal expressions are the
+     * same instance and share their sub-expressions, across concepts and versions. This uses much less memory when
+     * many versions are built, but the expressions must not be modified afterwards. Defaults to false.
+     *
+     * @param hashConsing
+     */
+    public void setHashConsing(boolean hashConsing) {
+        this.hashConsing = hashConsing;
+    }
+
+    /**
+     * Indicates if the axioms in the OWL reference sets should be parsed directly into the model, one at a time,
+     * instead of loading them all into an OWL ontology with the OWL API. Only the axioms that are not supported by
+     * {@link FunctionalSyntaxParser} are loaded with the OWL API. Axioms are parsed in parallel when parallel builds
+     * are enabled. Defaults to false.
+     *
+     * @param nativeOwlParsing
+     */
+    public void setNativeOwlParsing(boolean nativeOwlParsing) {
+        this.nativeOwlParsing = nativeOwlParsing;
+    }
+
+    /**
+     * Sets the maximum number of OWL axiom reference set members whose parsed axioms are kept between the versions
+     * built by this importer. Members whose id and effective time have not changed are then not parsed again. The
+     * least recently used members are discarded when the cache is full. Only used when the axioms are parsed natively.
+     * Set to zero to disable the cache (the default).
+     *
+     * @param axiomCacheSize
+     */
+    public void setAxiomCacheSize(int axiomCacheSize) {
+        this.axiomCacheSize = axiomCacheSize;
+        this.axiomCache = (axiomCacheSize > 0) ? new AxiomCache(axiomCacheSize) : null;
+    }
+
+    /**
+     * Sets the directory where the rows of each imported version are cached. When the same files and modules are
+     * imported again the rows are read from the cache instead of the RF2 files. Cache files are discarded when any of
+     * the input files changes. Set to null to disable the cache (the default).
+     *
+     * @param cacheDirectory
+     */
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        this.cache = cacheDirectory != null ? new VersionRowsCache(cacheDirectory) : null;
+    }
+
+    /**
+     * Returns an iterator over the ontologies of all the versions in the inputs. An iterator that is abandoned before
+     * it has been consumed to the end should be closed, which stops loading the versions that were prefetched.
+     */
     @Override
-    public Iterator<Ontology> getOntologyVersions(IProgressMonitor monitor) throws ImportException {
+    public OntologyInterator getOntologyVersions(IProgressMonitor monitor) throws ImportException {
         return new OntologyInterator(monitor);
     }
 
+    /**
+     * Returns the rows of a version of a root module in an input. These can be used as the base of a delta. The
+     * input is closed once the rows have been loaded.
+     *
+     * @param input
+     * @param rootModuleId
+     * @param rootModuleVersion
+     * @return
+     * @throws ImportException
+     * @see #applyDelta(VersionRows, RF2Input, IProgressMonitor)
+     */
+    public VersionRows getVersionRows(RF2Input input, String rootModuleId, String rootModuleVersion)
+            throws ImportException {
+        try {
+            for (ImportEntry entry : getImportEntries(input)) {
+                if (entry.getRootModuleId().equals(rootModuleId)
+                        && entry.getRootModuleVersion().equals(rootModuleVersion)) {
+                    final Map<String, String> modMap = cache != null ? getModuleMap(entry) : null;
+                    VersionRows res = cache != null ? cache.get(input, modMap) : null;
+                    if (res == null) {
+                        res = getBundle(entry);
+                        if (cache != null) {
+                            cache.put(input, modMap, res);
+                        }
+                    }
+                    return res;
+                }
+            }
+        } finally {
+            closeInput(input);
+        }
+        throw new ImportException("Version " + rootModuleVersion + " of module " + rootModuleId
+                + " is not part of the input.");
+    }
+
+    /**
+     * Applies an RF2 delta release to the rows of a previously imported version and builds the resulting ontology.
+     * The delta input must specify a single version of a single root module, which is the version that is produced,
+     * and its module dependency reference set must contain that version. The rows of the delta replace the rows of the
+     * base with the same id unless they are older. The delta input is closed once its rows have been loaded.
+     *
+     * @param base The rows of the previous version.
+     * @param delta
+     * @param monitor
+     * @return
+     * @throws ImportException
+     */
+    public DeltaResult applyDelta(VersionRows base, RF2Input delta, IProgressMonitor monitor) throws ImportException {
+        final ImportEntry entry;
+        final VersionRows rows;
+        try {
+            final List<ImportEntry> entries = getImportEntries(delta);
+            if (entries.size() != 1) {
+                throw new ImportException("A delta input must specify exactly one version of one root module but "
+                        + entries.size() + " were found.");
+            }
+            entry = entries.get(0);
+            rows = loadBundle(entry);
+        } finally {
+            closeInput(delta);
+        }
+
+        final Set<String> changed = new LinkedHashSet<>();
+        final Collection<ConceptRow> concepts = applyRows(base.getConceptRows(), rows.getConceptRows(),
+                ConceptRow::getId, ConceptRow::getPackedEffectiveTime, row -> changed.add(row.getId()));
+        final Collection<RelationshipRow> inferred = applyRows(base.getInferredRelationshipRows(),
+                rows.getInferredRelationshipRows(), RelationshipRow::getId, RelationshipRow::getPackedEffectiveTime,
+                row -> changed.add(row.getSourceId()));
+        final Collection<RelationshipRow> stated = applyRows(base.getStatedRelationshipRows(),
+                rows.getStatedRelationshipRows(), RelationshipRow::getId, RelationshipRow::getPackedEffectiveTime,
+                row -> changed.add(row.getSourceId()));
+
+        // Concrete domain members reference relationships
+        final LongSet changedRels = new LongSet();
+        final Collection<RefsetRow> cds = applyRows(base.getConcreteDomainRows(), rows.getConcreteDomainRows(),
+                RefsetRow::getId, RefsetRow::getPackedEffectiveTime,
+                row -> changedRels.add(toSctid(row.getReferencedComponentId())));
+        if (!changedRels.isEmpty()) {
+            for (Collection<RelationshipRow> rels : Arrays.asList(inferred, stated)) {
+                for (RelationshipRow row : rels) {
+                    if (changedRels.contains(toSctid(row.getId()))) {
+                        changed.add(row.getSourceId());
+                    }
+                }
+            }
+        }
+
+        final Collection<RefsetRow> ads = applyRows(base.getAttributeDomainRows(), rows.getAttributeDomainRows(),
+                RefsetRow::getId, RefsetRow::getPackedEffectiveTime, row -> changed.add(row.getReferencedComponentId()));
+        final Collection<RefsetRow> owl = applyRows(base.getOwlRows(), rows.getOwlRows(), RefsetRow::getId,
+                RefsetRow::getPackedEffectiveTime, row -> changed.add(row.getReferencedComponentId()));
+
+        final VersionRows res = new VersionRows(concepts, inferred, stated, cds, ads, owl);
+        log.info("Applied delta with " + rows.getConceptRows().size() + " concepts; " + changed.size()
+                + " concepts changed.");
+
+        StructuredLog.OntologyGeneration.info(log, entry.getRootModuleId(), entry.getRootModuleVersion());
+        final OntologyBuilder builder = getOntologyBuilder(res, entry.getRootModuleId(), entry.getRootModuleVersion(),
+                entry.getMetadata());
+        try {
+            return new DeltaResult(res, builder.build(monitor), changed);
+        } catch (URISyntaxException e) {
+            throw new ImportException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces the base rows with the delta rows that have the same id, unless the delta row is older, and adds the
+     * delta rows that are not in the base. Both the replaced and the new version of each changed row are passed to
+     * the listener. Delta rows with a blank effective time, packed as -1, are unpublished content and are newer than
+     * any base row.
+     */
+    private static <R> Collection<R> applyRows(Collection<R> base, Collection<R> delta, Function<R, String> id,
+            ToLongFunction<R> effectiveTime, Consumer<R> changed) {
+        if (delta.isEmpty()) {
+            return base;
+        }
+
+        final Map<String, R> res = new LinkedHashMap<>(base.size() + delta.size());
+        for (R row : base) {
+            res.put(id.apply(row), row);
+        }
+        for (R row : delta) {
+            final R old = res.get(id.apply(row));
+            if (old == null) {
+                res.put(id.apply(row), row);
+                changed.accept(row);
+            } else if (isNewer(effectiveTime.applyAsLong(row), effectiveTime.applyAsLong(old)) && !old.equals(row)) {
+                res.put(id.apply(row), row);
+                changed.accept(old);
+                changed.accept(row);
+            }
+        }
+        return new ArrayList<>(res.values());
+    }
+
+    private static boolean isNewer(long time, long oldTime) {
+        return time == -1 || time >= oldTime;
+    }
+
     @Override
     public List<String> getProblems() {
         return problems;
@@ -184,7 +557,7 @@ public class RF2Importer extends BaseImporter {
      * @param value
      * @param unit
      */
-    protected void populateCDs(Map<String, List<String[]>> cdMap, String referencedComponentId, String featureId,
+    protected void populateCDs(LongMap<List<String[]>> cdMap, long referencedComponentId, String featureId,
             String operator, String value, String unit) {
         checkRel(referencedComponentId);
         List<String[]> list;
@@ -198,8 +571,9 @@ public class RF2Importer extends BaseImporter {
         list.add(new String[] { featureId, operator, value, unit });
     }
 
-    private void checkRel(String referencedComponentId) {
-        if ('2' != referencedComponentId.charAt(referencedComponentId.length()-2)) {
+    private void checkRel(long referencedComponentId) {
+        // The partition identifier is the second to last digit of an SCTID
+        if (2 != (referencedComponentId / 10) % 10) {
             throw new RuntimeException("Expected a Relationship SCTID: " + referencedComponentId);
         }
     }
@@ -207,46 +581,45 @@ public class RF2Importer extends BaseImporter {
     protected <R extends RefsetRow> void loadReferenceSet(RF2Input input, String refsetFile, Map<String, String> modMap,
             Map<String, R> refsetMap, IRefsetFactory<R> factory)
             throws ImportException {
+        loadReferenceSet(input, refsetFile, new ModuleFilter(modMap), MemberSink.latest(refsetMap), factory);
+    }
 
-        Set<String> unknownModules = new HashSet<>();
-        BufferedReader br = null;
-        try {
-            br = new BufferedReader(new InputStreamReader(input.getInputStream(refsetFile), Charset.forName("UTF8")));
-            String line = br.readLine(); // Skip first line
+    <R extends RefsetRow> void loadReferenceSet(RF2Input input, String refsetFile, ModuleFilter modules,
+            MemberSink<? super R> refsetMap, IRefsetFactory<R> factory) throws ImportException {
+        try (RowTokenizer rows = new RowTokenizer(input.getInputStream(refsetFile))) {
+            rows.next(); // Skip first line
 
-            while (null != (line = br.readLine())) {
-                if (line.trim().length() < 1) {
+            while (rows.next()) {
+                if (rows.isBlank()) {
                     continue;
                 }
-                String[] fields = line.split("\t");
 
-                if (fields.length < 6) {
-                    throw new RuntimeException("Refset: Mis-formatted line, expected >= 6 tab-separated fields, got: " + line);
+                // Trailing empty fields are ignored, as with String.split
+                int numFields = rows.getFieldCount();
+                while (numFields > 0 && rows.getLength(numFields - 1) == 0) {
+                    numFields--;
+                }
+                if (numFields < 6) {
+                    throw new RuntimeException("Refset: Mis-formatted line, expected >= 6 tab-separated fields, got: " + rows.getLine());
                 }
 
-                final String id = fields[0];
-                final String effectiveTime = fields[1];
-                final String active = fields[2];
-                final String moduleId = fields[3];
-                final String refsetId = fields[4];
-                final String referencedComponentId = fields[5];
-
-                String tgtVer = modMap.get(moduleId);
-                if (null == tgtVer) {
-                    unknownModules.add(moduleId);
+                // 0 id, 1 effectiveTime, 2 active, 3 moduleId, 4 refsetId, 5 referencedComponentId, 6.. extras
+                final int module = modules.indexOf(rows, 3);
+                if (module < 0) {
                     continue;
                 }
 
-                // FIXME Use a more sophisticated (date/time aware) comparison method
-                int rel = effectiveTime.compareTo(tgtVer);
-                if (rel <= 0) {
-                    RefsetRow currRow = refsetMap.get(id);
-                    if (currRow == null || effectiveTime.compareTo(currRow.getEffectiveTime()) > 0) {
-                        String[] extras = new String[fields.length - 6];
-                        System.arraycopy(fields, 6, extras, 0, extras.length);
-                        R rr = factory.create(id, effectiveTime, active, moduleId, refsetId, referencedComponentId,
-                                extras);
-                        refsetMap.put(id, rr);
+                final long effectiveTime = rows.getEffectiveTime(1);
+                if (modules.includes(module, effectiveTime)) {
+                    final String id = rows.getString(0);
+                    if (refsetMap.accepts(id, effectiveTime)) {
+                        String[] extras = new String[numFields - 6];
+                        for (int i = 0; i < extras.length; i++) {
+                            extras[i] = rows.getString(i + 6);
+                        }
+                        R rr = factory.create(id, rows.getSymbol(1, symbols), rows.getSymbol(2, symbols),
+                                modules.getModuleId(module), rows.getSymbol(4, symbols), rows.getString(5), extras);
+                        refsetMap.add(id, rr);
                     }
                 }
             }
@@ -255,23 +628,21 @@ public class RF2Importer extends BaseImporter {
             final String message = StructuredLog.FileLoadFailure.error(log, "referenceSet", input.getInputType(), refsetFile, t);
             throw new ImportException(message, t);
         } finally {
-            for (String moduleId : unknownModules) {
+            for (String moduleId : modules.getUnknownModules()) {
                 StructuredLog.IgnoredModules.info(log, moduleId, refsetFile);
             }
         }
     }
 
     /**
-     * Returns a {@link VersionRows} object for an {@link ImportEntry}.
+     * Returns the modules of an {@link ImportEntry} and their target versions.
      *
      * @param entry
      * @return
-     * @throws ImportException
      */
-    protected VersionRows getBundle(ImportEntry entry) throws ImportException {
-
+    protected Map<String, String> getModuleMap(ImportEntry entry) {
         // Add module information to map for easy lookup
-        Map<String, String> modMap = new HashMap<>();
+        final Map<String, String> modMap = new HashMap<>();
         for (Module module : entry.getModules()) {
             String modId = module.getModuleId();
             String modVer = module.getModuleVersion();
@@ -280,136 +651,491 @@ public class RF2Importer extends BaseImporter {
         for (Entry<String, String> mapEntry: modMap.entrySet()) {
             log.info("Modules: '" + mapEntry.getKey() + "'\t'" + mapEntry.getValue() + "'");
         }
+        return modMap;
+    }
+
+    /**
+     * Creates an {@link ImportEntry} for each version of each root module of an input.
+     *
+     * @param in
+     * @return
+     * @throws ImportException
+     */
+    protected List<ImportEntry> getImportEntries(RF2Input in) throws ImportException {
+        // 1. Load module dependencies
+        log.info("Loading module dependencies");
+        IModuleDependencyRefset mdr = loadModuleDependencies(in);
+
+        if(mdr == null) {
+            throw new ImportException("Couldn't load module dependency reference set for RF2 input files.");
+        }
+
+        // Each map entry contains a map of modules indexed by version
+        Map<String, Map<String, ModuleDependency>> deps =
+                mdr.getModuleDependencies();
+
+        // 2. Determine which modules and versions must be loaded
+        log.info("Determining which root modules and versions to load");
+        Map<String, Set<Version>> toLoad = getModuleVersionsToLoad(in);
+
+        // 3. Create import entries
+        log.info("Creating import entries");
+        final List<ImportEntry> res = new ArrayList<>();
+        for(String rootModuleId : toLoad.keySet()) {
+            Set<Version> versions = toLoad.get(rootModuleId);
+            for(Version version : versions) {
+                String ver = version.getId();
+                Map<String, String> metadata = version.getMetadata();
+                Map<String, ModuleDependency> versionMap = deps.get(rootModuleId);
+                if (null == versionMap) {
+                    throw new ImportException("Root module not found in MDRS: " + rootModuleId);
+                }
+                ModuleDependency md = versionMap.get(ver);
+                if(md == null) {
+                    throw new ImportException("Version " + ver + " of module " + rootModuleId +
+                            " was not found in MDRS.");
+                }
+                Set<Module> modules = new HashSet<>();
+
+                Queue<ModuleDependency> depends = new LinkedList<>();
+                depends.add(md);
+
+                while (!depends.isEmpty()) {
+                    ModuleDependency d = depends.poll();
+                    modules.add(new Module(d.getId(), d.getVersion()));
+                    depends.addAll(d.getDependencies());
+                }
+
+                res.add(new ImportEntry(rootModuleId, ver, metadata, modules, in));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns a {@link VersionRows} object for an {@link ImportEntry}.
+     *
+     * @param entry
+     * @return
+     * @throws ImportException
+     */
+    protected VersionRows getBundle(ImportEntry entry) throws ImportException {
+        final VersionRows res = loadBundle(entry);
+
+        Set<String> statedRelationshipsFiles = ((RF2Input) entry.getInput()).getStatedRelationshipsFiles();
+        if(res.getOwlRows().isEmpty() && (statedRelationshipsFiles == null || statedRelationshipsFiles.isEmpty())) {
+            throw new ImportException("No relationships files were specified.");
+        }
+        return res;
+    }
+
+    /**
+     * Loads the rows of an {@link ImportEntry}, without checking that any relationships or axioms were found.
+     */
+    private VersionRows loadBundle(ImportEntry entry) throws ImportException {
+        final Map<String, String> modMap = getModuleMap(entry);
 
         // Map needed to find the correct version of each concept to load for this import entry
-        Map<String, ConceptRow> conceptMap = new HashMap<>();
+        final LongMap<ConceptRow> conceptMap = new LongMap<>();
 
         // Map needed to find the correct version of each relationship to load
         // for this import entry
-        Map<String, RelationshipRow> statedRelationshipMap = new HashMap<>();
-        Map<String, RelationshipRow> inferredRelationshipMap = new HashMap<>();
+        final LongMap<RelationshipRow> statedRelationshipMap = new LongMap<>();
+        final LongMap<RelationshipRow> inferredRelationshipMap = new LongMap<>();
 
-        Map<String, RefsetRow> cdMap = new HashMap<>();
+        final Map<String, RefsetRow> cdMap = new HashMap<>();
 
-        Map<String, RefsetRow> adMap = new HashMap<>();
+        final Map<String, RefsetRow> adMap = new HashMap<>();
 
-        Map<String, RefsetRow> owlMap = new HashMap<>();
+        final Map<String, RefsetRow> owlMap = new HashMap<>();
 
-        RF2Input input = (RF2Input) entry.getInput();
+        final RF2Input input = (RF2Input) entry.getInput();
+        final List<LoadTask<?>> tasks = new ArrayList<>();
+        addLoadTasks(tasks, input, modMap, true, new LoadTargets() {
+            @Override
+            public LoadTask<?> concepts(RowLoader<RowSink<ConceptRow>> loader) {
+                return loadTask(conceptMap, ConceptRow::getPackedEffectiveTime,
+                        rows -> loader.load(RowSink.latest(rows, ConceptRow::getPackedEffectiveTime)));
+            }
+
+            @Override
+            public LoadTask<?> statedRelationships(RowLoader<RowSink<RelationshipRow>> loader) {
+                return loadTask(statedRelationshipMap, RelationshipRow::getPackedEffectiveTime,
+                        rows -> loader.load(RowSink.latest(rows, RelationshipRow::getPackedEffectiveTime)));
+            }
+
+            @Override
+            public LoadTask<?> inferredRelationships(RowLoader<RowSink<RelationshipRow>> loader) {
+                return loadTask(inferredRelationshipMap, RelationshipRow::getPackedEffectiveTime,
+                        rows -> loader.load(RowSink.latest(rows, RelationshipRow::getPackedEffectiveTime)));
+            }
+
+            @Override
+            public LoadTask<?> concreteDomains(RowLoader<MemberSink<RefsetRow>> loader) {
+                return loadTask(cdMap, RefsetRow::getPackedEffectiveTime,
+                        rows -> loader.load(MemberSink.latest(rows)));
+            }
+
+            @Override
+            public LoadTask<?> attributeDomains(RowLoader<MemberSink<RefsetRow>> loader) {
+                return loadTask(adMap, RefsetRow::getPackedEffectiveTime,
+                        rows -> loader.load(MemberSink.latest(rows)));
+            }
+
+            @Override
+            public LoadTask<?> owl(RowLoader<MemberSink<RefsetRow>> loader) {
+                return loadTask(owlMap, RefsetRow::getPackedEffectiveTime,
+                        rows -> loader.load(MemberSink.latest(rows)));
+            }
+        });
+
+        runLoadTasks(tasks);
+
+        log.info("Imported " + conceptMap.size() + " concepts.");
+
+        return new VersionRows(conceptMap.values(), inferredRelationshipMap.values(), statedRelationshipMap.values(), cdMap.values(), adMap.values(), owlMap.values());
+    }
+
+    /**
+     * Loads every version of the rows of an input that is part of a set of modules, reading each file once. This is
+     * used to import several versions of an input in a single pass.
+     *
+     * @param input
+     * @param modMap The modules of all the versions being imported, with the latest target version of each one.
+     * @return
+     * @throws ImportException
+     */
+    protected VersionChains loadVersionChains(RF2Input input, Map<String, String> modMap) throws ImportException {
+        final VersionChains chains = new VersionChains();
+        final List<LoadTask<?>> tasks = new ArrayList<>();
+        addLoadTasks(tasks, input, modMap, false, new LoadTargets() {
+            @Override
+            public LoadTask<?> concepts(RowLoader<RowSink<ConceptRow>> loader) {
+                return new LoadTask<>(chains.concepts,
+                        () -> new RowChains<>(ConceptRow::getPackedEffectiveTime, ConceptRow::getModuleId),
+                        RowChains::addAll, loader::load);
+            }
+
+            @Override
+            public LoadTask<?> statedRelationships(RowLoader<RowSink<RelationshipRow>> loader) {
+                return new LoadTask<>(chains.statedRelationships,
+                        () -> new RowChains<>(RelationshipRow::getPackedEffectiveTime, RelationshipRow::getModuleId),
+                        RowChains::addAll, loader::load);
+            }
+
+            @Override
+            public LoadTask<?> inferredRelationships(RowLoader<RowSink<RelationshipRow>> loader) {
+                return new LoadTask<>(chains.inferredRelationships,
+                        () -> new RowChains<>(RelationshipRow::getPackedEffectiveTime, RelationshipRow::getModuleId),
+                        RowChains::addAll, loader::load);
+            }
+
+            @Override
+            public LoadTask<?> concreteDomains(RowLoader<MemberSink<RefsetRow>> loader) {
+                return new LoadTask<>(chains.concreteDomains, MemberChains::new, MemberChains::addAll, loader::load);
+            }
+
+            @Override
+            public LoadTask<?> attributeDomains(RowLoader<MemberSink<RefsetRow>> loader) {
+                return new LoadTask<>(chains.attributeDomains, MemberChains::new, MemberChains::addAll, loader::load);
+            }
+
+            @Override
+            public LoadTask<?> owl(RowLoader<MemberSink<RefsetRow>> loader) {
+                return new LoadTask<>(chains.owl, MemberChains::new, MemberChains::addAll, loader::load);
+            }
+        });
+
+        runLoadTasks(tasks);
+
+        log.info("Loaded the versions of " + chains.concepts.size() + " concepts.");
+        return chains;
+    }
+
+    /**
+     * Where the rows of each type of file are loaded.
+     */
+    protected interface LoadTargets {
+        LoadTask<?> concepts(RowLoader<RowSink<ConceptRow>> loader);
+        LoadTask<?> statedRelationships(RowLoader<RowSink<RelationshipRow>> loader);
+        LoadTask<?> inferredRelationships(RowLoader<RowSink<RelationshipRow>> loader);
+        LoadTask<?> concreteDomains(RowLoader<MemberSink<RefsetRow>> loader);
+        LoadTask<?> attributeDomains(RowLoader<MemberSink<RefsetRow>> loader);
+        LoadTask<?> owl(RowLoader<MemberSink<RefsetRow>> loader);
+    }
+
+    /**
+     * Creates a task for each file of an input.
+     *
+     * @param tasks
+     * @param input
+     * @param modMap
+     * @param chunked Indicates if relationships files can be split into chunks, which is only possible when only the
+     * latest version of each relationship is kept.
+     * @param targets
+     * @throws ImportException
+     */
+    private void addLoadTasks(List<LoadTask<?>> tasks, RF2Input input, Map<String, String> modMap, boolean chunked,
+            LoadTargets targets) throws ImportException {
+        final InputType inputType = input.getInputType();
+        final List<String> order = new ArrayList<>();
 
-        InputType inputType = input.getInputType();
         Set<String> conceptsFiles = input.getConceptsFiles();
         log.info("Reading concepts info: " + conceptsFiles.size());
         for(String conceptsFile : conceptsFiles) {
-            try {
-                loadConceptRows(modMap, conceptMap, input.getInputStream(conceptsFile));
-            } catch (NullPointerException | IOException e) {
-                final String message = StructuredLog.FileLoadFailure.error(log, "concepts", inputType, conceptsFile, e);
-                throw new ImportException(message, e);
-            }
+            order.add(conceptsFile);
+            tasks.add(targets.concepts(rows -> {
+                try {
+                    loadConceptRows(new ModuleFilter(modMap), rows, input.getInputStream(conceptsFile));
+                } catch (NullPointerException | IOException e) {
+                    final String message = StructuredLog.FileLoadFailure.error(log, "concepts", inputType, conceptsFile, e);
+                    throw new ImportException(message, e);
+                }
+            }));
         }
-        log.info("Imported " + conceptMap.size() + " concepts.");
 
         // Load concrete domains refsets
         final Set<String> concreteDomainRefsetFiles = input.getConcreteDomainRefsetFiles();
         log.info("Reading concrete domains reference set info: " + concreteDomainRefsetFiles.size());
         for (String filename : concreteDomainRefsetFiles) {
-            try {
-                loadReferenceSet(input, filename, modMap, cdMap, IRefsetFactory.CD);
-            } catch (ArrayIndexOutOfBoundsException e) {
-                final String msg = StructuredLog.RefsetLoadFailure.error(log, "concrete domains", filename, e);
-                throw new ImportException(msg, e);
-            }
+            order.add(filename);
+            tasks.add(targets.concreteDomains(rows -> {
+                try {
+                    loadReferenceSet(input, filename, new ModuleFilter(modMap), rows, IRefsetFactory.CD);
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    final String msg = StructuredLog.RefsetLoadFailure.error(log, "concrete domains", filename, e);
+                    throw new ImportException(msg, e);
+                }
+            }));
         }
 
         // Load attribute domains refsets
         final Set<String> attributeDomainRefsetFiles = input.getAttributeDomainRefsetFiles();
         log.info("Reading attribute domains reference set info: " + attributeDomainRefsetFiles.size());
         for (String filename : attributeDomainRefsetFiles) {
-            try {
-                loadReferenceSet(input, filename, modMap, adMap, IRefsetFactory.AD);
-            } catch (ArrayIndexOutOfBoundsException e) {
-                final String msg = StructuredLog.RefsetLoadFailure.error(log, "attribute domains", filename, e);
-                throw new ImportException(msg, e);
-            }
+            order.add(filename);
+            tasks.add(targets.attributeDomains(rows -> {
+                try {
+                    loadReferenceSet(input, filename, new ModuleFilter(modMap), rows, IRefsetFactory.AD);
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    final String msg = StructuredLog.RefsetLoadFailure.error(log, "attribute domains", filename, e);
+                    throw new ImportException(msg, e);
+                }
+            }));
         }
 
         // Load OWL reference sets
         final Set<String> owlExpressionRefsetFiles = input.getOwlExpressionRefsetFiles();
         log.info("Reading OWL Expression reference set info: " + owlExpressionRefsetFiles.size());
         for (String filename : owlExpressionRefsetFiles) {
-            try {
-                loadReferenceSet(input, filename, modMap, owlMap, IRefsetFactory.OWL);
-            } catch (ArrayIndexOutOfBoundsException e) {
-                final String msg = StructuredLog.RefsetLoadFailure.error(log, "OWL Expression", filename, e);
-                log.error(msg, e);
-                throw new ImportException(msg, e);
-            }
+            order.add(filename);
+            tasks.add(targets.owl(rows -> {
+                try {
+                    loadReferenceSet(input, filename, new ModuleFilter(modMap), rows, IRefsetFactory.OWL);
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    final String msg = StructuredLog.RefsetLoadFailure.error(log, "OWL Expression", filename, e);
+                    log.error(msg, e);
+                    throw new ImportException(msg, e);
+                }
+            }));
         }
-        boolean hasAxioms = !owlMap.isEmpty();
 
         // Load stated relationships, if any
         Set<String> statedRelationshipsFiles = input.getStatedRelationshipsFiles();
 
-        if(!hasAxioms && (statedRelationshipsFiles == null || statedRelationshipsFiles.isEmpty())) {
-            throw new ImportException("No relationships files were specified.");
-        }
-
         if (statedRelationshipsFiles != null && !statedRelationshipsFiles.isEmpty()) {
             log.info("Reading stated relationships info: " + statedRelationshipsFiles.size());
+            for (String file : statedRelationshipsFiles) {
+                order.add(file);
+                tasks.add(targets.statedRelationships(relationshipLoader(input, file, modMap, chunked)));
+            }
+        }
+
+        // Load inferred relationships, if any
+        Set<String> inferredRelationshipsFiles = input.getNnfRelationshipsFiles();
+
+        if (inferredRelationshipsFiles != null && !inferredRelationshipsFiles.isEmpty()) {
+            log.info("Reading inferred relationships info: " + inferredRelationshipsFiles.size());
+            for (String file : inferredRelationshipsFiles) {
+                order.add(file);
+                tasks.add(targets.inferredRelationships(relationshipLoader(input, file, modMap, chunked)));
+            }
+        }
+
+        // Load inferred concrete values, if any
+        Set<String> inferredConcreteDomainsFiles = input.getNnfConcreteDomainsFiles();
+
+        if (inferredConcreteDomainsFiles != null && !inferredConcreteDomainsFiles.isEmpty()) {
+            log.info("Reading inferred concrete values info: " + inferredConcreteDomainsFiles.size());
+            for (String file : inferredConcreteDomainsFiles) {
+                order.add(file);
+                tasks.add(targets.inferredRelationships(relationshipLoader(input, file, modMap, chunked)));
+            }
+        }
+    
+        // Without an executor the files are read in task order, so each file can be inflated while the previous one
+        // is parsed
+        input.scheduleReadAhead(executor == null ? order : Collections.<String>emptyList());
+    }
+
+
+    private RowLoader<RowSink<RelationshipRow>> relationshipLoader(RF2Input input, String relationshipsFile,
+            Map<String, String> modMap, boolean chunked) {
+        return rows -> {
+            try {
+                final File file = (chunked && relationshipChunks > 1) ? input.getFile(relationshipsFile) : null;
+                if (file != null) {
+                    new ChunkedRelationshipLoader(this, forkJoinPool, relationshipChunks).load(file, modMap, rows);
+                } else {
+                    loadRelationshipRows(new ModuleFilter(modMap), rows, input.getInputStream(relationshipsFile));
+                }
+            } catch (NullPointerException | IOException e) {
+                final String message = StructuredLog.FileLoadFailure.error(log, "relationships",
+                        input.getInputType(), relationshipsFile, e);
+                throw new ImportException(message, e);
+            }
+        };
+    }
+
+    /**
+     * Closes an input once all its versions have been loaded, so the ZIP file, the read-ahead thread and the files
+     * that were inflated ahead of time are released. The input is opened again if more files are read from it.
+     *
+     * @param input
+     */
+    private void closeInput(RF2Input input) {
+        try {
+            input.close();
+        } catch (IOException e) {
+            log.warn("Could not close the input", e);
+        }
+    }
+
+    /**
+     * Runs the load tasks of an import entry. If no executor has been set the tasks are run in order on the calling
+     * thread. Otherwise each file is loaded into its own map on the executor and the results are merged into the
+     * shared maps, keeping the latest version of each row, either in task order (deterministic) or as soon as each
+     * task completes.
+     *
+     * @param tasks
+     * @throws ImportException
+     */
+    protected void runLoadTasks(List<LoadTask<?>> tasks) throws ImportException {
+        if (executor == null) {
+            for (LoadTask<?> task : tasks) {
+                task.load();
+            }
+            return;
+        }
 
-            for(String relationshipsFile : statedRelationshipsFiles) {
-                try {
-                    loadRelationshipRows(modMap, statedRelationshipMap, input.getInputStream(relationshipsFile));
-                } catch (NullPointerException | IOException e) {
-                    final String message = StructuredLog.FileLoadFailure.error(log, "relationships", inputType, relationshipsFile, e);
-                    throw new ImportException(message, e);
-                }
+        final CompletionService<LoadTask<?>> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<LoadTask<?>>> futures = new ArrayList<>();
+        try {
+            for (LoadTask<?> task : tasks) {
+                futures.add(completionService.submit(task));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                final LoadTask<?> done = deterministic ? futures.get(i).get() : completionService.take().get();
+                done.merge();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException("Interrupted while loading RF2 files.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ImportException) {
+                throw (ImportException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ImportException("Failed to load RF2 files.", cause);
+        } finally {
+            for (Future<LoadTask<?>> future : futures) {
+                future.cancel(true);
             }
         }
+    }
 
-        // Load inferred relationships, if any
-        Set<String> inferredRelationshipsFiles = input.getNnfRelationshipsFiles();
+    /**
+     * Loads the rows of a single file into a map.
+     *
+     * @param <M>
+     */
+    protected interface RowLoader<M> {
+        void load(M rows) throws ImportException;
+    }
 
-        if (inferredRelationshipsFiles != null && !inferredRelationshipsFiles.isEmpty()) {
-            log.info("Reading inferred relationships info: " + inferredRelationshipsFiles.size());
+    /**
+     * A file to load, together with the map that will hold the latest version of its rows.
+     *
+     * @param <M>
+     */
+    protected static class LoadTask<M> implements Callable<LoadTask<?>> {
+        private final M target;
+        private final Supplier<M> factory;
+        private final BiConsumer<M, M> merger;
+        private final RowLoader<M> loader;
+        private M loaded;
+
+        public LoadTask(M target, Supplier<M> factory, BiConsumer<M, M> merger, RowLoader<M> loader) {
+            this.target = target;
+            this.factory = factory;
+            this.merger = merger;
+            this.loader = loader;
+        }
 
-            for(String relationshipsFile : inferredRelationshipsFiles) {
-                try {
-                    loadRelationshipRows(modMap, inferredRelationshipMap, input.getInputStream(relationshipsFile));
-                } catch (NullPointerException | IOException e) {
-                    final String message = StructuredLog.FileLoadFailure.error(log, "relationships", inputType, relationshipsFile, e);
-                    throw new ImportException(message, e);
-                }
-            }
+        void load() throws ImportException {
+            loader.load(target);
         }
 
-        // Load inferred concrete values, if any
-        Set<String> inferredConcreteDomainsFiles = input.getNnfConcreteDomainsFiles();
+        @Override
+        public LoadTask<M> call() throws ImportException {
+            // The maps keep the rows in the order they were read so merging in task order reproduces the sequential
+            // load
+            loaded = factory.get();
+            loader.load(loaded);
+            return this;
+        }
 
-        if (inferredConcreteDomainsFiles != null && !inferredConcreteDomainsFiles.isEmpty()) {
-            log.info("Reading inferred concrete values info: " + inferredConcreteDomainsFiles.size());
+        void merge() {
+            merger.accept(target, loaded);
+            loaded = null;
+        }
+    }
 
-            for(String relationshipsFile : inferredConcreteDomainsFiles) {
-                try {
-                    loadRelationshipRows(modMap, inferredRelationshipMap, input.getInputStream(relationshipsFile));
-                } catch (NullPointerException | IOException e) {
-                    final String message = StructuredLog.FileLoadFailure.error(log, "relationships", inputType, relationshipsFile, e);
-                    throw new ImportException(message, e);
+    /**
+     * Creates a task that loads rows identified by SCTIDs.
+     */
+    protected static <R> LoadTask<LongMap<R>> loadTask(LongMap<R> target, ToLongFunction<R> effectiveTime,
+            RowLoader<LongMap<R>> loader) {
+        return new LoadTask<>(target, LongMap::new, (into, rows) -> {
+            final LongMap<R>.Cursor cursor = rows.cursor();
+            while (cursor.next()) {
+                final R curr = into.get(cursor.key());
+                final R row = cursor.value();
+                if (curr == null || effectiveTime.applyAsLong(row) > effectiveTime.applyAsLong(curr)) {
+                    into.put(cursor.key(), row);
                 }
             }
-        }
-
-        VersionRows vr = new VersionRows(conceptMap.values(), inferredRelationshipMap.values(), statedRelationshipMap.values(), cdMap.values(), adMap.values(), owlMap.values());
-
-        conceptMap = null;
-        inferredRelationshipMap = null;
-        statedRelationshipMap = null;
-        cdMap = null;
-        adMap = null;
-        owlMap = null;
+        }, loader);
+    }
 
-        return vr;
+    /**
+     * Creates a task that loads reference set rows, which are identified by UUIDs.
+     */
+    protected static <R> LoadTask<Map<String, R>> loadTask(Map<String, R> target, ToLongFunction<R> effectiveTime,
+            RowLoader<Map<String, R>> loader) {
+        return new LoadTask<>(target, LinkedHashMap::new, (into, rows) -> {
+            for (Entry<String, R> entry : rows.entrySet()) {
+                final R curr = into.get(entry.getKey());
+                final R row = entry.getValue();
+                if (curr == null || effectiveTime.applyAsLong(row) > effectiveTime.applyAsLong(curr)) {
+                    into.put(entry.getKey(), row);
+                }
+            }
+        }, loader);
     }
 
     /**
@@ -418,74 +1144,65 @@ public class RF2Importer extends BaseImporter {
      * @param relationshipMap Map from Relationship SCTID to parsed row
      * @param inputStream Stream to parse, filtering based on MDRS data
      * @throws IOException
-     * @throws UnsupportedEncodingException
      */
-    protected void loadRelationshipRows(Map<String, String> modMap, Map<String, RelationshipRow> relationshipMap,
+    protected void loadRelationshipRows(Map<String, String> modMap, LongMap<RelationshipRow> relationshipMap,
             final InputStream inputStream) throws IOException {
-        BufferedReader br = null;
-        try {
-            br = new BufferedReader(new InputStreamReader(inputStream));
-            String line = br.readLine(); // Skip first line
-            while (null != (line = br.readLine())) {
-                if (line.trim().length() < 1) {
-                    continue;
-                }
-                int idx1 = line.indexOf('\t');
-                int idx2 = line.indexOf('\t', idx1 + 1);
-                int idx3 = line.indexOf('\t', idx2 + 1);
-                int idx4 = line.indexOf('\t', idx3 + 1);
-                int idx5 = line.indexOf('\t', idx4 + 1);
-                int idx6 = line.indexOf('\t', idx5 + 1);
-                int idx7 = line.indexOf('\t', idx6 + 1);
-                int idx8 = line.indexOf('\t', idx7 + 1);
-                int idx9 = line.indexOf('\t', idx8 + 1);
-
-                // 0..idx1 == id
-                // idx1+1..idx2 == effectiveTime
-                // idx2+1..idx3 == active
-                // idx3+1..idx4 == moduleId
-                // idx4+1..idx5 == sourceId
-                // idx5+1..idx6 == destinationId
-                // idx6+1..idx7 == relationshipGroup
-                // idx7+1..idx8 == typeId
-                // idx8+1..idx9 == characteristicTypeId
-                // idx9+1..end == modifierId
-
-                if (idx1 < 0 || idx2 < 0 || idx3 < 0 || idx4 < 0 ||
-                        idx5 < 0 || idx6 < 0 || idx7 < 0 || idx8 < 0 ||
-                        idx9 < 0) {
-                    br.close();
-                    throw new RuntimeException("Relationships: Mis-formatted line, expected 10 " +
-                        "tab-separated fields, got: " + line);
-                }
+        loadRelationshipRows(new ModuleFilter(modMap),
+                RowSink.latest(relationshipMap, RelationshipRow::getPackedEffectiveTime), inputStream);
+    }
 
-                final String id = line.substring(0, idx1);
-                final String effectiveTime = line.substring(idx1 + 1, idx2);
-                final String active = line.substring(idx2 + 1, idx3);
-                final String moduleId = line.substring(idx3 + 1, idx4);
-                final String sourceId = line.substring(idx4 + 1, idx5);
-                final String destinationId = line.substring(idx5 + 1, idx6);
-                final String relationshipGroup = line.substring(idx6 + 1, idx7);
-                final String typeId = line.substring(idx7 + 1, idx8);
-                final String characteristicTypeId = line.substring(idx8 + 1, idx9);
-                final String modifierId = line.substring(idx9 + 1);
-
-                String tgtVer = modMap.get(moduleId);
-                if(tgtVer == null) continue;
-                int rel = effectiveTime.compareTo(tgtVer);
-                if(rel <= 0) {
-                    RelationshipRow currRelationshipRow = relationshipMap.get(id);
-                    if(currRelationshipRow == null || effectiveTime.compareTo(
-                            currRelationshipRow.getEffectiveTime()) > 0) {
-                        RelationshipRow rr = new RelationshipRow(id, effectiveTime, active, moduleId, sourceId,
-                                destinationId, relationshipGroup, typeId, characteristicTypeId, modifierId);
-                        relationshipMap.put(id, rr);
-                    }
-                }
+    void loadRelationshipRows(ModuleFilter modules, RowSink<RelationshipRow> relationshipMap,
+            final InputStream inputStream) throws IOException {
+        try (RowTokenizer rows = new RowTokenizer(inputStream)) {
+            rows.next(); // Skip first line
+            while (rows.next()) {
+                loadRelationshipRow(modules, relationshipMap, rows);
             }
-        } finally {
-            if(br != null) {
-                try { br.close(); } catch(Exception e) {};
+        }
+    }
+
+    /**
+     * Adds the current row of a relationships file to the sink if it is part of the modules being loaded and the sink
+     * accepts it. Only the rows that are kept are decoded.
+     *
+     * @param modules The MDRS data for this version
+     * @param relationshipMap Destination of the parsed rows
+     * @param rows The tokenizer, positioned on the row to load
+     */
+    void loadRelationshipRow(ModuleFilter modules, RowSink<RelationshipRow> relationshipMap, RowTokenizer rows) {
+        if (rows.isBlank()) {
+            return;
+        }
+
+        // 0 id
+        // 1 effectiveTime
+        // 2 active
+        // 3 moduleId
+        // 4 sourceId
+        // 5 destinationId
+        // 6 relationshipGroup
+        // 7 typeId
+        // 8 characteristicTypeId
+        // 9 modifierId
+
+        if (rows.getFieldCount() < 10) {
+            throw new RuntimeException("Relationships: Mis-formatted line, expected 10 " +
+                "tab-separated fields, got: " + rows.getLine());
+        }
+
+        final int module = modules.indexOf(rows, 3);
+        if (module < 0) {
+            return;
+        }
+        final long effectiveTime = rows.getEffectiveTime(1);
+        if (modules.includes(module, effectiveTime)) {
+            final long id = rows.getLong(0);
+            if(relationshipMap.accepts(id, effectiveTime)) {
+                RelationshipRow rr = new RelationshipRow(rows.getString(0), rows.getSymbol(1, symbols),
+                        rows.getSymbol(2, symbols), modules.getModuleId(module), rows.getString(4), rows.getString(5),
+                        rows.getSymbol(6, symbols), rows.getSymbol(7, symbols), rows.getSymbol(8, symbols),
+                        rows.getSymbol(9, symbols));
+                relationshipMap.add(id, rr);
             }
         }
     }
@@ -496,95 +1213,88 @@ public class RF2Importer extends BaseImporter {
      * @param conceptMap Map from Concept SCTID to parsed row
      * @param inputStream Stream to parse, filtering based on MDRS data
      * @throws IOException
-     * @throws UnsupportedEncodingException
      */
-    protected void loadConceptRows(Map<String, String> modMap, Map<String, ConceptRow> conceptMap,
-            final InputStream inputStream) throws IOException, UnsupportedEncodingException {
-        BufferedReader br = null;
-        try {
-            br = new BufferedReader(new InputStreamReader(inputStream));
-            String line = br.readLine(); // Skip first line
+    protected void loadConceptRows(Map<String, String> modMap, LongMap<ConceptRow> conceptMap,
+            final InputStream inputStream) throws IOException {
+        loadConceptRows(new ModuleFilter(modMap), RowSink.latest(conceptMap, ConceptRow::getPackedEffectiveTime),
+                inputStream);
+    }
 
-            while (null != (line = br.readLine())) {
-                line = new String(line.getBytes(), "UTF8");
-                if (line.trim().length() < 1) {
+    void loadConceptRows(ModuleFilter modules, RowSink<ConceptRow> conceptMap, final InputStream inputStream)
+            throws IOException {
+        try (RowTokenizer rows = new RowTokenizer(inputStream)) {
+            rows.next(); // Skip first line
+
+            while (rows.next()) {
+                if (rows.isBlank()) {
                     continue;
                 }
-                int idx1 = line.indexOf('\t');
-                int idx2 = line.indexOf('\t', idx1 + 1);
-                int idx3 = line.indexOf('\t', idx2 + 1);
-                int idx4 = line.indexOf('\t', idx3 + 1);
-
-                // 0..idx1 == id
-                // idx1+1..idx2 == effectiveTime
-                // idx2+1..idx3 == active
-                // idx3+1..idx4 == moduleId
-                // idx4+1..end == definitionStatusId
-
-                if (idx1 < 0 || idx2 < 0 || idx3 < 0 || idx4 < 0) {
-                    br.close();
+
+                // 0 id
+                // 1 effectiveTime
+                // 2 active
+                // 3 moduleId
+                // 4 definitionStatusId
+
+                if (rows.getFieldCount() < 5) {
                     throw new RuntimeException("Concepts: Mis-formatted line, expected at least 5 tab-separated " +
-                        "fields, got: " + line);
+                        "fields, got: " + rows.getLine());
+                }
+
+                final int module = modules.indexOf(rows, 3);
+                if (module < 0) {
+                    continue;
                 }
 
-                final String id = line.substring(0, idx1);
-                final String effectiveTime = line.substring(idx1 + 1, idx2);
-                final String active = line.substring(idx2 + 1, idx3);
-                final String moduleId = line.substring(idx3 + 1, idx4);
-                final String definitionStatusId = line.substring(idx4 + 1);
-
-                String tgtVer = modMap.get(moduleId);
-                if(tgtVer == null) continue;
-
-                int rel = effectiveTime.compareTo(tgtVer);
-                if(rel <= 0) {
-                    ConceptRow currConceptRow = conceptMap.get(id);
-                    if(currConceptRow == null || effectiveTime.compareTo(currConceptRow.getEffectiveTime()) > 0) {
-                        ConceptRow cr = new ConceptRow(id, effectiveTime, active, moduleId, definitionStatusId);
-                        conceptMap.put(id, cr);
+                final long effectiveTime = rows.getEffectiveTime(1);
+                if (modules.includes(module, effectiveTime)) {
+                    final long id = rows.getLong(0);
+                    if(conceptMap.accepts(id, effectiveTime)) {
+                        ConceptRow cr = new ConceptRow(rows.getString(0), rows.getSymbol(1, symbols),
+                                rows.getSymbol(2, symbols), modules.getModuleId(module), rows.getSymbol(4, symbols));
+                        conceptMap.add(id, cr);
                     }
                 }
             }
-        } finally {
-            if(br != null) {
-                try { br.close(); } catch(Exception e) {};
-            }
         }
     }
 
-    protected void populateParent(String src, String tgt, Map<String, Set<String>> parents) {
-        Set<String> prs = parents.get(src);
+    protected void populateParent(long src, long tgt, LongMap<LongSet> parents) {
+        LongSet prs = parents.get(src);
         if (prs == null) {
-            prs = new TreeSet<>();
+            prs = new LongSet();
             parents.put(src, prs);
         }
         prs.add(tgt);
     }
 
-    protected void populateChildren(String src, String tgt, Map<String, Set<String>> children) {
-        Set<String> prs = children.get(src);
+    protected void populateChildren(long src, long tgt, LongMap<LongSet> children) {
+        LongSet prs = children.get(src);
         if (prs == null) {
-            prs = new TreeSet<>();
+            prs = new LongSet();
             children.put(src, prs);
         }
         prs.add(tgt);
     }
 
-    protected void populateRels(String comp, String src, String role, String tgt, String group,
-            Map<String, List<String[]>> rels) {
-        List<String[]> val = rels.get(src);
+    protected void populateRels(long comp, long src, long role, long tgt, long group,
+            LongMap<List<long[]>> rels) {
+        List<long[]> val = rels.get(src);
         if (val == null) {
             val = new ArrayList<>();
             rels.put(src, val);
         }
-        val.add(new String[] { comp, role, tgt, group });
+        val.add(new long[] { comp, role, tgt, group });
     }
 
-    protected void populateRoles(Set<String> roles, String parentSCTID, String rightIdentityIds, Map<String,
-            Set<String>> children, Map<String, Map<String, String>> rolesMap) {
+    protected void populateRoles(LongSet roles, String parentSCTID, String rightIdentityIds,
+            LongMap<LongSet> children, Map<String, Map<String, String>> rolesMap) {
         if(roles == null) return;
-        for (String role : roles) {
-            Set<String> cs = children.get(role);
+        final PrimitiveIterator.OfLong it = roles.iterator();
+        while (it.hasNext()) {
+            final long roleId = it.nextLong();
+            final String role = Long.toString(roleId);
+            LongSet cs = children.get(roleId);
             if (cs != null) {
                 populateRoles(cs, role, rightIdentityIds, children, rolesMap);
             }
@@ -616,16 +1326,16 @@ public class RF2Importer extends BaseImporter {
      * @param relationships
      * @return
      */
-    protected Set<Set<RoleValuePair>> groupRoles(List<String[]> relationships) {
-        final Map<String, Set<RoleValuePair>> roleGroups = new HashMap<>();
+    protected Set<Set<RoleValuePair>> groupRoles(List<long[]> relationships) {
+        final LongMap<Set<RoleValuePair>> roleGroups = new LongMap<>();
 
         // group relationships by roleGroupId
         // all "0"-grouped go together
-        for (String[] rel : relationships) {
-            String comp = rel[0];
-            String attr = rel[1];
-            String val = rel[2];
-            String roleGroup = rel[3];
+        for (long[] rel : relationships) {
+            long comp = rel[0];
+            long attr = rel[1];
+            long val = rel[2];
+            long roleGroup = rel[3];
             Set<RoleValuePair> lrvp = roleGroups.get(roleGroup);
             if (lrvp == null) {
                 lrvp = new HashSet<>();
@@ -636,11 +1346,12 @@ public class RF2Importer extends BaseImporter {
 
         // Split out the "0"-grouped relationships
         final Set<Set<RoleValuePair>> res = new HashSet<>();
-        for (String roleGroup : roleGroups.keySet()) {
-            Set<RoleValuePair> val = roleGroups.get(roleGroup);
+        final LongMap<Set<RoleValuePair>>.Cursor cursor = roleGroups.cursor();
+        while (cursor.next()) {
+            Set<RoleValuePair> val = cursor.value();
 
             // 0 indicates not grouped
-            if ("0".equals(roleGroup)) {
+            if (cursor.key() == 0) {
                 for (RoleValuePair rvp : val) {
                     final Set<RoleValuePair> sin = new HashSet<>();
                     sin.add(rvp);
@@ -674,11 +1385,11 @@ public class RF2Importer extends BaseImporter {
      *
      */
     protected class RoleValuePair {
-        final String role;
-        final String value;
-        final String id;
+        final long role;
+        final long value;
+        final long id;
 
-        RoleValuePair(String role, String value, String id) {
+        RoleValuePair(long role, long value, long id) {
             this.role = role;
             this.value = value;
             this.id = id;
@@ -689,8 +1400,8 @@ public class RF2Importer extends BaseImporter {
             final int prime = 31;
             int result = 1;
             result = prime * result + getOuterType().hashCode();
-            result = prime * result + ((role == null) ? 0 : role.hashCode());
-            result = prime * result + ((value == null) ? 0 : value.hashCode());
+            result = prime * result + Long.hashCode(role);
+            result = prime * result + Long.hashCode(value);
             return result;
         }
 
@@ -705,13 +1416,9 @@ public class RF2Importer extends BaseImporter {
             RoleValuePair other = (RoleValuePair) obj;
             if (!getOuterType().equals(other.getOuterType()))
                 return false;
-            if (role == null && other.role != null)
+            if (role != other.role)
                 return false;
-            else if (!role.equals(other.role))
-                return false;
-            if (value == null && other.value != null)
-                return false;
-            else if (!value.equals(other.value))
+            if (value != other.value)
                 return false;
             return true;
         }
@@ -721,62 +1428,104 @@ public class RF2Importer extends BaseImporter {
         }
     }
 
-    class OntologyInterator implements Iterator<Ontology> {
+    /**
+     * An iterator over the ontologies of the versions in the inputs. See
+     * {@link RF2Importer#getOntologyVersions(IProgressMonitor)}.
+     */
+    public class OntologyInterator implements Iterator<Ontology>, Closeable {
 
         private final Queue<ImportEntry> entries = new LinkedList<>();
         @SuppressWarnings("unused")
         private final IProgressMonitor monitor;
 
+        /**
+         * The input whose versions are being imported. It is kept open until all its versions have been loaded.
+         */
+        private RF2Input input;
+
+        /**
+         * The modules of all the entries of the current input, when they are loaded in a single pass.
+         */
+        private Map<String, String> sharedModules;
+        private VersionChains chains;
+
+        /**
+         * The entries whose rows are being loaded in the background, in import order.
+         */
+        private final Queue<ImportEntry> prefetched = new LinkedList<>();
+        private final Queue<Future<VersionRows>> prefetchedRows = new LinkedList<>();
+        private ExecutorService prefetcher;
+
         private void processNext() throws ImportException {
-            RF2Input in = inputs.remove();
-
-            // 1. Load module dependencies
-            log.info("Loading module dependencies");
-            IModuleDependencyRefset mdr = loadModuleDependencies(in);
-
-            if(mdr == null) {
-                throw new ImportException("Couldn't load module dependency reference set for RF2 input files.");
-            }
-
-            // Each map entry contains a map of modules indexed by version
-            Map<String, Map<String, ModuleDependency>> deps =
-                    mdr.getModuleDependencies();
-
-            // 2. Determine which modules and versions must be loaded
-            log.info("Determining which root modules and versions to load");
-            Map<String, Set<Version>> toLoad = getModuleVersionsToLoad(in);
-
-            // 3. Create import entries
-            log.info("Creating import entries");
-            for(String rootModuleId : toLoad.keySet()) {
-                Set<Version> versions = toLoad.get(rootModuleId);
-                for(Version version : versions) {
-                    String ver = version.getId();
-                    Map<String, String> metadata = version.getMetadata();
-                    Map<String, ModuleDependency> versionMap = deps.get(rootModuleId);
-                    if (null == versionMap) {
-                        throw new ImportException("Root module not found in MDRS: " + rootModuleId);
-                    }
-                    ModuleDependency md = versionMap.get(ver);
-                    if(md == null) {
-                        throw new ImportException("Version " + ver + " of module " + rootModuleId +
-                                " was not found in MDRS.");
-                    }
-                    Set<Module> modules = new HashSet<>();
+            if (input != null) {
+                closeInput(input);
+            }
+            input = inputs.remove();
+            entries.addAll(getImportEntries(input));
+            log.info("Found "+entries.size()+" entries to import");     // TODO - consider formal logging
 
-                    Queue<ModuleDependency> depends = new LinkedList<>();
-                    depends.add(md);
+            chains = null;
+            sharedModules = (singlePass && entries.size() > 1) ? getSharedModules() : null;
+        }
 
-                    while (!depends.isEmpty()) {
-                        ModuleDependency d = depends.poll();
-                        modules.add(new Module(d.getId(), d.getVersion()));
-                        depends.addAll(d.getDependencies());
+        /**
+         * Returns all the modules used by the entries, with the latest target version of each one.
+         */
+        private Map<String, String> getSharedModules() {
+            final Map<String, String> res = new HashMap<>();
+            for (ImportEntry entry : entries) {
+                for (Module module : entry.getModules()) {
+                    final String curr = res.get(module.getModuleId());
+                    if (curr == null
+                            || EffectiveTime.pack(module.getModuleVersion()) > EffectiveTime.pack(curr)) {
+                        res.put(module.getModuleId(), module.getModuleVersion());
                     }
+                }
+            }
+            return res;
+        }
 
-                    entries.add(new ImportEntry(rootModuleId, ver, metadata, modules, in));
+        /**
+         * Returns the rows of an entry. Entries must be passed in import order, and are loaded by a single thread at a
+         * time.
+         *
+         * @param entry
+         * @param last Indicates if this is the last entry of the current input.
+         */
+        private VersionRows getRows(ImportEntry entry, boolean last) throws ImportException {
+            final RF2Input input = (RF2Input) entry.getInput();
+            final Map<String, String> modMap = cache != null ? getModuleMap(entry) : null;
+            VersionRows res = cache != null ? cache.get(input, modMap) : null;
+            if (res == null) {
+                res = loadRows(entry);
+                if (cache != null) {
+                    cache.put(input, modMap, res);
                 }
             }
-            log.info("Found "+entries.size()+" entries to import");     // TODO - consider formal logging
+
+            if (last) {
+                chains = null;
+                sharedModules = null;
+            }
+            return columnar ? ColumnarVersionRows.copyOf(res, symbols) : res;
+        }
+
+        private VersionRows loadRows(ImportEntry entry) throws ImportException {
+            if (sharedModules == null) {
+                return getBundle(entry);
+            }
+
+            if (chains == null) {
+                chains = loadVersionChains((RF2Input) entry.getInput(), sharedModules);
+            }
+            final VersionRows res = chains.snapshot(getModuleMap(entry));
+
+            final Set<String> statedRelationshipsFiles = ((RF2Input) entry.getInput()).getStatedRelationshipsFiles();
+            if (res.getOwlRows().isEmpty()
+                    && (statedRelationshipsFiles == null || statedRelationshipsFiles.isEmpty())) {
+                throw new ImportException("No relationships files were specified.");
+            }
+            return res;
         }
 
         public OntologyInterator(IProgressMonitor monitor) throws ImportException {
@@ -785,9 +1534,63 @@ public class RF2Importer extends BaseImporter {
             processNext();
         }
 
+        /**
+         * Starts loading the rows of the next entry of the current input in the background.
+         */
+        private void prefetch() {
+            if (prefetcher == null) {
+                prefetcher = Executors.newSingleThreadExecutor(r -> {
+                    final Thread t = new Thread(r, "rf2-prefetch");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            final ImportEntry entry = entries.remove();
+            final boolean last = entries.isEmpty();
+            prefetched.add(entry);
+            prefetchedRows.add(prefetcher.submit(() -> getRows(entry, last)));
+        }
+
+        private VersionRows getPrefetchedRows(Future<VersionRows> rows) throws ImportException {
+            try {
+                return rows.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImportException("Interrupted while loading rows", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ImportException) {
+                    throw (ImportException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ImportException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+
         @Override
         public boolean hasNext() {
-            return !entries.isEmpty() || !inputs.isEmpty();
+            return !entries.isEmpty() || !prefetched.isEmpty() || !inputs.isEmpty();
+        }
+
+        /**
+         * Cancels the versions that are being loaded in the background, stops the background thread and closes the
+         * current input. The iterator is closed when it has been consumed to the end, or when {@link #next()} fails.
+         */
+        @Override
+        public void close() {
+            for (Future<VersionRows> rows : prefetchedRows) {
+                rows.cancel(true);
+            }
+            prefetchedRows.clear();
+            prefetched.clear();
+            if (prefetcher != null) {
+                prefetcher.shutdownNow();
+                prefetcher = null;
+            }
+            if (input != null) {
+                closeInput(input);
+                input = null;
+            }
         }
 
         /**
@@ -796,9 +1599,30 @@ public class RF2Importer extends BaseImporter {
         @Override
         public Ontology next() throws RuntimeException {
             try {
-                if(entries.isEmpty()) processNext();
-                ImportEntry entry = entries.remove();
-                VersionRows bundle = getBundle(entry);
+                if(entries.isEmpty() && prefetched.isEmpty()) processNext();
+                final ImportEntry entry;
+                final VersionRows bundle;
+                if (prefetchDepth > 0) {
+                    if (prefetched.isEmpty()) {
+                        prefetch();
+                    }
+                    entry = prefetched.remove();
+                    final Future<VersionRows> rows = prefetchedRows.remove();
+                    while (prefetched.size() < prefetchDepth && !entries.isEmpty()) {
+                        prefetch();
+                    }
+                    if (!hasNext()) {
+                        prefetcher.shutdown();
+                        prefetcher = null;
+                    }
+                    bundle = getPrefetchedRows(rows);
+                } else {
+                    entry = entries.remove();
+                    bundle = getRows(entry, entries.isEmpty());
+                }
+                if (!hasNext()) {
+                    close();
+                }
                 String ontologyId = entry.getRootModuleId();
                 String ontologyVersion = entry.getRootModuleVersion();
 
@@ -806,8 +1630,12 @@ public class RF2Importer extends BaseImporter {
                 OntologyBuilder builder = getOntologyBuilder(bundle, ontologyId, ontologyVersion, entry.getMetadata());
                 return builder.build(monitor);
             } catch (ImportException | URISyntaxException e) {
+                close();
                 StructuredLog.GenericException.error(log, e.getMessage(), e);
                 throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                close();
+                throw e;
             }
         }
 
@@ -818,42 +1646,158 @@ public class RF2Importer extends BaseImporter {
 
     }
 
+    /**
+     * Creates and caches the named entities of an ontology. Entities identified by SCTIDs are cached by their numeric
+     * id; the {@link String} form of the id is only created once, when the entity is created.
+     * <p>
+     * The factory can be used by several threads at the same time. The caches of concepts and roles are split into
+     * stripes, each with its own lock, so threads that look up different ids rarely wait for each other.
+     * <p>
+     * When hash-consing is enabled the entities and expressions it creates are canonical instances, see
+     * {@link au.csiro.ontology.Factory#canonical(Object)}.
+     */
     static class Factory {
-        protected final Map<String, Concept> ci = new HashMap<>();
-        protected final Map<String, NamedRole> ri = new HashMap<>();
-        protected final Map<String, NamedFeature> fi = new HashMap<>();
+        private static final int STRIPES = 32;
+
+        private final boolean hashConsing;
+
+        protected final LongMap<Concept>[] ci = newStripes();
+        protected final LongMap<NamedRole>[] ri = newStripes();
+        protected final Map<String, Concept> namedConcepts = new ConcurrentHashMap<>();
+        protected final Map<String, NamedRole> namedRoles = new ConcurrentHashMap<>();
+        protected final Map<String, NamedFeature> fi = new ConcurrentHashMap<>();
+
+        Factory() {
+            this(false);
+        }
+
+        Factory(boolean hashConsing) {
+            this.hashConsing = hashConsing;
+        }
+
+        private <T> T canonical(T expression) {
+            return hashConsing ? au.csiro.ontology.Factory.canonical(expression) : expression;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static <V> LongMap<V>[] newStripes() {
+            final LongMap<V>[] res = new LongMap[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                res[i] = new LongMap<>();
+            }
+            return res;
+        }
+
+        private static <V> LongMap<V> stripe(LongMap<V>[] stripes, long id) {
+            final int h = Long.hashCode(id * 0x9E3779B97F4A7C15L);
+            return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        }
+
+        protected Concept getConcept(long id) {
+            final LongMap<Concept> map = stripe(ci, id);
+            synchronized (map) {
+                Concept c = map.get(id);
+                if (c == null) {
+                    c = canonical(au.csiro.ontology.Factory.createNamedConcept(Long.toString(id)));
+                    map.put(id, c);
+                }
+                return c;
+            }
+        }
 
+        /**
+         * Returns a concept from its id. Ids in the metadata and in the concrete domain reference sets, such as unit
+         * ids, are not necessarily SCTIDs.
+         *
+         * @param id
+         * @return
+         */
         protected Concept getConcept(String id) {
-            Concept c = ci.get(id);
-            if (c == null) {
-                c = new NamedConcept(id);
-                ci.put(id, c);
+            if (isSctid(id)) {
+                return getConcept(Long.parseLong(id));
+            }
+            return namedConcepts.computeIfAbsent(id, k -> canonical(au.csiro.ontology.Factory.createNamedConcept(k)));
+        }
+
+        protected NamedRole getRole(long id) {
+            final LongMap<NamedRole> map = stripe(ri, id);
+            synchronized (map) {
+                NamedRole r = map.get(id);
+                if (r == null) {
+                    r = canonical((NamedRole) au.csiro.ontology.Factory.createNamedRole(Long.toString(id)));
+                    map.put(id, r);
+                }
+                return r;
             }
-            return c;
         }
 
+        /**
+         * Returns a role from its id. Ids in the metadata, such as the role group id, are not necessarily SCTIDs.
+         *
+         * @param id
+         * @return
+         * @throws IllegalArgumentException if the id is null, e.g. because it is missing from the metadata
+         */
         protected NamedRole getRole(String id) {
-            NamedRole r = ri.get(id);
-            if (r == null) {
-                r = new NamedRole(id);
-                ri.put(id, r);
+            if (id == null) {
+                throw new IllegalArgumentException("Missing role id. Check that the metadata of the version includes "
+                        + "the roleGroupId and the other role ids.");
+            } else if (isSctid(id)) {
+                return getRole(Long.parseLong(id));
             }
-            return r;
+            return namedRoles.computeIfAbsent(id, k -> canonical(new NamedRole(k)));
         }
 
         protected NamedFeature getFeature(String id) {
-            NamedFeature f = fi.get(id);
-            if (f == null) {
-                f = new NamedFeature(id);
-                fi.put(id, f);
-            }
-            return f;
+            return fi.computeIfAbsent(id, NamedFeature::new);
         }
 
         public Collection<NamedFeature> getFeatures() {
             return fi.values();
         }
 
+        protected Concept getExistential(Role role, Concept filler) {
+            return canonical(au.csiro.ontology.Factory.createExistential(role, filler));
+        }
+
+        protected Concept getConjunction(Collection<? extends Concept> concepts) {
+            return canonical(au.csiro.ontology.Factory.createConjunction(concepts));
+        }
+
+        protected Concept getDatatype(NamedFeature feature, Operator operator, Literal literal) {
+            return canonical(au.csiro.ontology.Factory.createDatatype(feature, operator, literal));
+        }
+
+    }
+
+    /**
+     * Indicates if an id can be stored as a long without changing its {@link String} form.
+     *
+     * @param id
+     * @return
+     */
+    static boolean isSctid(String id) {
+        final int len = id.length();
+        if (len == 0 || len > 18 || id.charAt(0) == '0') {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            final char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts an id in the metadata to a long, or -1 if it is missing or is not an SCTID.
+     *
+     * @param id
+     * @return
+     */
+    static long toSctid(String id) {
+        return (id != null && isSctid(id)) ? Long.parseLong(id) : -1;
     }
 
     /**
@@ -883,13 +1827,13 @@ public class RF2Importer extends BaseImporter {
         protected final String equalsOperatorId;
         protected final String unitRoleId;
         protected final boolean isNNF;
-        protected final Set<String> neverGroupedIds = new HashSet<>();
+        protected final LongSet neverGroupedIds = new LongSet();
 
-        protected final Factory factory = new Factory();
+        protected final Factory factory = new Factory(hashConsing);
 
         protected final Map<String, String> featureType = new HashMap<>();
 
-        protected final Map<String, List<String[]>> cdsMap = new HashMap<>();
+        protected final LongMap<List<String[]>> cdsMap = new LongMap<>();
 
         public OntologyBuilder(VersionRows vr, String rootModuleId, String rootModuleVersion,
                 Map<String, String> metadata) {
@@ -949,7 +1893,7 @@ public class RF2Importer extends BaseImporter {
             initDefaultNeverGroupedIds();
             for (RefsetRow row: vr.getAttributeDomainRows()) {
                 if (isActive(row.getActive()) && isNeverGrouped(row)) {
-                    neverGroupedIds.add(row.getReferencedComponentId());
+                    neverGroupedIds.add(Long.parseLong(row.getReferencedComponentId()));
                 }
             }
             if (log.isInfoEnabled()) {
@@ -1009,7 +1953,7 @@ public class RF2Importer extends BaseImporter {
                 String[] parts = neverGroupedIdsString.split("[,]");
                 for (String part : parts) {
                     if (!part.isEmpty()) {
-                        neverGroupedIds.add(part);
+                        neverGroupedIds.add(Long.parseLong(part));
                     }
                 }
             }
@@ -1028,49 +1972,51 @@ public class RF2Importer extends BaseImporter {
          * @throws URISyntaxException
          */
         protected Ontology build(IProgressMonitor monitor) throws URISyntaxException {
-            final Map<String, String> primitive = new HashMap<>();
-            final Map<String, Set<String>> parents = new HashMap<>();
-            final Map<String, Set<String>> children = new HashMap<>();
-            final Map<String, List<String[]>> rels = new HashMap<>();
+            final LongMap<Boolean> primitive = new LongMap<>();
+            final LongMap<LongSet> parents = new LongMap<>();
+            final LongMap<LongSet> children = new LongMap<>();
+            final LongMap<List<long[]>> rels = new LongMap<>();
             final Map<String, Map<String, String>> roles = new HashMap<>();
-            final List<String> lateralizableConcepts = new LinkedList<>();
+            final LongSet lateralizableConcepts = new LongSet();
+            final long lateralityType = toSctid(lateralityId);
 
             final Collection<Axiom> statedAxioms = new ArrayList<>();
 
             // Process concept rows
             log.info("Processing " + vr.getConceptRows().size() + " concept rows");
-            for (ConceptRow cr : vr.getConceptRows()) {
-                String id = cr.getId();
-                if (isActive(cr.getActive())) {
-                    if (!conceptDefinedId.equals(cr.getDefinitionStatusId())) {
-                        primitive.put(id, "1");
-                    } else {
-                        primitive.put(id, "0");
-                    }
+            final long conceptDefined = toSctid(conceptDefinedId);
+            final ConceptCursor conceptRows = vr.conceptCursor();
+            while (conceptRows.next()) {
+                if (conceptRows.isActive()) {
+                    primitive.put(conceptRows.getId(), conceptDefined != conceptRows.getDefinitionStatusId());
                 }
             }
 
             // Process relationship rows
             log.info("Processing " + vr.getStatedRelationshipRows().size() + " stated relationship rows");
-            for (RelationshipRow rr : vr.getStatedRelationshipRows()) {
-                // only process active concepts and defining relationships
-                if (isActive(rr.getActive()) && isDefining(rr.getCharacteristicTypeId())) {
-                    if (!someId.equals(rr.getModifierId())) {
+            final long some = toSctid(someId);
+            final long isA = toSctid(isAId);
+            final RelationshipCursor relationshipRows = vr.statedRelationshipCursor();
+            while (relationshipRows.next()) {
+                // only process active conceptRows and defining relationshipRows
+                if (relationshipRows.isActive() && isDefining(relationshipRows.getCharacteristicTypeId())) {
+                    if (some != relationshipRows.getModifierId()) {
                         throw new RuntimeException("Only existentials are supported.");
                     }
 
-                    String type = rr.getTypeId();
-                    String src = rr.getSourceId();
-                    String dest = rr.getDestinationId();
-                    if (isAId.equals(type)) {
+                    final long src = relationshipRows.getSourceId();
+                    final long dest = relationshipRows.getDestinationId();
+                    final long type = relationshipRows.getTypeId();
+                    if (isA == type) {
                         populateParent(src, dest, parents);
                         populateChildren(dest, src, children);
                     } else {
-                        if (lateralityId.equals(type)) {
+                        if (lateralityType == type) {
                             lateralizableConcepts.add(src);
                         }
-                        // Populate relationships
-                        populateRels(rr.getId(), src, type, dest, rr.getRelationshipGroup(), rels);
+                        // Populate relationshipRows
+                        populateRels(relationshipRows.getId(), src, type, dest, relationshipRows.getRelationshipGroup(),
+                                rels);
                     }
                 }
             }
@@ -1078,6 +2024,8 @@ public class RF2Importer extends BaseImporter {
             log.info("Processing " + vr.getConcreteDomainRows().size() + " concrete domain rows");
             final Set<String> untypedFeatures = new LinkedHashSet<>();
             final Set<String> missingRefsets = new LinkedHashSet<>();
+            final long floatType = toSctid(measurementTypeFloat);
+            final long intType = toSctid(measurementTypeInt);
 
             for (RefsetRow rr : vr.getConcreteDomainRows()) {
                 if (isActive(rr.getActive())) {
@@ -1087,16 +2035,17 @@ public class RF2Importer extends BaseImporter {
                     // $values[8], $values[6] );
                     final String[] extras = rr.getExtras();
                     final String featureId = rr.getRefsetId();
-                    populateCDs(cdsMap, rr.getReferencedComponentId(), featureId, extras[1], extras[2], extras[0]);
+                    populateCDs(cdsMap, Long.parseLong(rr.getReferencedComponentId()), featureId, extras[1],
+                            extras[2], extras[0]);
 
-                    final Set<String> allParents = parents.get(featureId);
+                    final LongSet allParents = parents.get(Long.parseLong(featureId));
                     if (allParents == null) {
                         missingRefsets.add(featureId);
                         continue;
                     }
-                    if (allParents.contains(measurementTypeFloat)) {
+                    if (allParents.contains(floatType)) {
                         featureType.put(featureId, "float");
-                    } else if (allParents.contains(measurementTypeInt)) {
+                    } else if (allParents.contains(intType)) {
                         featureType.put(featureId, "int");
                     } else if (!featureType.containsKey(featureId)) {
                         untypedFeatures.add(featureId);
@@ -1114,7 +2063,7 @@ public class RF2Importer extends BaseImporter {
             }
 
             log.info("Creating role axioms");
-            populateRoles(children.get(conceptModelAttId), "", rightIdentityIds, children, roles);
+            populateRoles(children.get(toSctid(conceptModelAttId)), "", rightIdentityIds, children, roles);
 
             // Add role axioms
             for (String r1 : roles.keySet()) {
@@ -1136,12 +2085,43 @@ public class RF2Importer extends BaseImporter {
 
             // Add concept axioms
             log.info("Creating axioms for " + primitive.size() + " active concepts");
-            for (String focus : primitive.keySet()) {
-                final Set<String> focusParents = parents.get(focus);
-                final int numParents = (focusParents != null) ? focusParents.size() : 0;
+            if (parallelBuild) {
+                addConceptAxiomsInParallel(primitive, parents, rels, statedAxioms);
+            } else {
+                final LongMap<Boolean>.Cursor concepts = primitive.cursor();
+                while (concepts.next()) {
+                    addConceptAxioms(concepts.key(), concepts.value(), parents, rels, statedAxioms);
+                }
+            }
+
+            log.info("Add functional feature axioms");
+            for (NamedFeature feature: factory.getFeatures()) {
+                statedAxioms.add(new FunctionalFeature(feature));
+            }
+
+            processAxiomRows(statedAxioms, monitor);
+
+            log.info("Finished building ontology");
+
+            return new Ontology(rootModuleId, rootModuleVersion, statedAxioms, null);
+        }
+
+        /**
+         * Adds the axioms that define a concept from its parents and defining relationships.
+         *
+         * @param focus The id of the concept.
+         * @param primitive Indicates if the concept is primitive.
+         * @param parents
+         * @param rels
+         * @param axioms
+         */
+        protected void addConceptAxioms(long focus, boolean primitive, LongMap<LongSet> parents,
+                LongMap<List<long[]>> rels, Collection<Axiom> axioms) {
+            final LongSet focusParents = parents.get(focus);
+            final int numParents = (focusParents != null) ? focusParents.size() : 0;
 
-                final List<String[]> focusRelationships = rels.get(focus);
-                final int numRels = (focusRelationships != null) ? 1 : 0;
+            final List<long[]> focusRelationships = rels.get(focus);
+            final int numRels = (focusRelationships != null) ? 1 : 0;
 
 //                List<String[]> cdsVal = cdsMap.get(c1);
 //                int numCds = (cdsVal != null) ? 1 : 0;
@@ -1150,27 +2130,28 @@ public class RF2Importer extends BaseImporter {
 //                    throw new RuntimeException("Unexpected relationship id: " + c1);
 //                }
 
-                int numElems = numParents + numRels; // + numCds;
+            int numElems = numParents + numRels; // + numCds;
 
-                if (numParents == 0 && numElems > 0) {
-                    StructuredLog.DefinedWithoutParents.warn(log, focus);
-                }
+            if (numParents == 0 && numElems > 0) {
+                StructuredLog.DefinedWithoutParents.warn(log, Long.toString(focus));
+            }
 
-                if (numElems == 0) {
-                    // do nothing; expect axioms in vr.getOwlRows()
-                } else if (numElems == 1 && numParents == 1) {
-                    Concept lhs = factory.getConcept(focus);
-                    Concept rhs = factory.getConcept(focusParents.iterator().next());
-                    statedAxioms.add(new ConceptInclusion(lhs, rhs));
-                } else {
-                    final List<Concept> conjuncts = new ArrayList<>();
+            if (numElems == 0) {
+                // do nothing; expect axioms in vr.getOwlRows()
+            } else if (numElems == 1 && numParents == 1) {
+                Concept lhs = factory.getConcept(focus);
+                Concept rhs = factory.getConcept(focusParents.iterator().nextLong());
+                axioms.add(new ConceptInclusion(lhs, rhs));
+            } else {
+                final List<Concept> conjuncts = new ArrayList<>();
 
-                    // Add parents
-                    if (focusParents != null) {
-                        for (String pr : focusParents) {
-                            conjuncts.add(factory.getConcept(pr));
-                        }
+                // Add parents
+                if (focusParents != null) {
+                    final PrimitiveIterator.OfLong it = focusParents.iterator();
+                    while (it.hasNext()) {
+                        conjuncts.add(factory.getConcept(it.nextLong()));
                     }
+                }
 
 //                    // Process concrete domains
 //                    if (cdsVal != null) {
@@ -1179,45 +2160,70 @@ public class RF2Importer extends BaseImporter {
 //                        }
 //                    }
 
-                    // Process relationships
-                    if (focusRelationships != null) {
-                        for (Set<RoleValuePair> rvs : groupRoles(focusRelationships)) {
-                            mapRoles(conjuncts, rvs);
-                        }
+                // Process relationships
+                if (focusRelationships != null) {
+                    for (Set<RoleValuePair> rvs : groupRoles(focusRelationships)) {
+                        mapRoles(conjuncts, rvs);
                     }
+                }
 
-                    final ConceptInclusion axiom = new ConceptInclusion(factory.getConcept(focus), new Conjunction(conjuncts));
-                    statedAxioms.add(axiom);
+                final Concept definition = factory.getConjunction(conjuncts);
+                final ConceptInclusion axiom = new ConceptInclusion(factory.getConcept(focus), definition);
+                axioms.add(axiom);
 
-                    if ("0".equals(primitive.get(focus))) {        // if not primitive
-                        final ConceptInclusion axiom2 = new ConceptInclusion(new Conjunction(conjuncts), factory.getConcept(focus));
-                        statedAxioms.add(axiom2);
-                    }
+                if (!primitive) {
+                    final ConceptInclusion axiom2 = new ConceptInclusion(definition, factory.getConcept(focus));
+                    axioms.add(axiom2);
                 }
             }
+        }
 
-            log.info("Add functional feature axioms");
-            for (NamedFeature feature: factory.getFeatures()) {
-                statedAxioms.add(new FunctionalFeature(feature));
+        /**
+         * Adds the axioms of all the concepts using the fork-join pool. The concepts are split into slices that are
+         * processed concurrently, each one into its own list of axioms, and the lists are then added in slice order.
+         * The shared maps are only read, and the factory is safe for concurrent use.
+         *
+         * @param primitive
+         * @param parents
+         * @param rels
+         * @param axioms
+         */
+        protected void addConceptAxiomsInParallel(LongMap<Boolean> primitive, LongMap<LongSet> parents,
+                LongMap<List<long[]>> rels, Collection<Axiom> axioms) {
+            final long[] focusIds = primitive.keys();
+            final int slices = Math.max(1, Math.min(focusIds.length, forkJoinPool.getParallelism() * 4));
+            final List<ForkJoinTask<List<Axiom>>> tasks = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                final int from = (int) ((long) focusIds.length * i / slices);
+                final int to = (int) ((long) focusIds.length * (i + 1) / slices);
+                tasks.add(forkJoinPool.submit(() -> {
+                    final List<Axiom> res = new ArrayList<>();
+                    for (int j = from; j < to; j++) {
+                        final long focus = focusIds[j];
+                        addConceptAxioms(focus, primitive.get(focus), parents, rels, res);
+                    }
+                    return res;
+                }));
             }
 
-            processAxiomRows(statedAxioms, monitor);
-
-            log.info("Finished building ontology");
-
-            return new Ontology(rootModuleId, rootModuleVersion, statedAxioms, null);
+            for (ForkJoinTask<List<Axiom>> task : tasks) {
+                // join() rethrows the unchecked exceptions of the task, such as grouping errors
+                axioms.addAll(task.join());
+            }
         }
 
         protected void processAxiomRows(Collection<Axiom> statedAxioms, IProgressMonitor monitor) {
             // Process axiom rows
             List<String> namespace = new ArrayList<>();
             List<String> axiomList = new ArrayList<>();
+            final List<RefsetRow> axiomRows = new ArrayList<>();
             log.info("Processing " + vr.getOwlRows().size() + " OWL rows");
             for (RefsetRow row: vr.getOwlRows()) {
                 if (isActive(row.getActive())) {
                     final String owlFragment = row.getExtras()[0];
                     if ("733073007".equals(row.getRefsetId())) {
                         axiomList.add(owlFragment);
+                        axiomRows.add(row);
                     } else if ("762103008".equals(row.getRefsetId())) {
                         if ("734146004".equals(row.getReferencedComponentId())) {
                             if (!owlFragment.startsWith("Prefix(:=")) {
@@ -1243,6 +2249,19 @@ public class RF2Importer extends BaseImporter {
                 statedAxioms.add(new ConceptInclusion(conceptModelDataAttribute, conceptModelAttribute));
             }
 
+            if (nativeOwlParsing) {
+                try {
+                    axiomList = parseAxioms(new FunctionalSyntaxParser(namespace), namespace, axiomRows,
+                            statedAxioms);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Unable to parse OWL namespaces; using the OWL API instead: " + e.getMessage());
+                }
+                if (axiomList.isEmpty()) {
+                    return;
+                }
+                log.info("Loading " + axiomList.size() + " OWL axioms with the OWL API");
+            }
+
             final String namespaceStr = namespace.stream().collect(Collectors.joining("\n"));
             final String axiomStr = axiomList.stream().collect(Collectors.joining("\n  "));
 
@@ -1254,7 +2273,11 @@ public class RF2Importer extends BaseImporter {
             final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
             try {
                 final OWLOntology owlOntology = manager.loadOntologyFromOntologyDocument(source);
-                final Iterator<Ontology> itr = new OWLImporter(owlOntology).getOntologyVersions(monitor);
+                final OWLImporter owlImporter = new OWLImporter(owlOntology);
+                owlImporter.setParallel(parallelBuild);
+                owlImporter.setMemoize(true);
+                owlImporter.setForkJoinPool(forkJoinPool);
+                final Iterator<Ontology> itr = owlImporter.getOntologyVersions(monitor);
                 while (itr.hasNext()) {
                     final Collection<Axiom> importedStatedAxioms = itr.next().getStatedAxioms();
                     statedAxioms.addAll(importedStatedAxioms);
@@ -1264,6 +2287,57 @@ public class RF2Importer extends BaseImporter {
             }
         }
 
+        /**
+         * Parses the axioms of the OWL axiom reference set members one at a time, in parallel if the concept axioms
+         * are also created in parallel. Members that are in the axiom cache are not parsed again.
+         *
+         * @param parser
+         * @param namespaces The namespaces used by the parser.
+         * @param rows The active members of the OWL axiom reference set.
+         * @param statedAxioms
+         * @return The axioms that are not supported by the parser, which need to be loaded with the OWL API.
+         */
+        protected List<String> parseAxioms(FunctionalSyntaxParser parser, List<String> namespaces,
+                List<RefsetRow> rows, Collection<Axiom> statedAxioms) {
+            final AxiomCache cache = axiomCache;
+            if (cache != null) {
+                cache.setNamespaces(namespaces);
+            }
+            final Function<RefsetRow, List<Axiom>> parse = row -> {
+                List<Axiom> res = (cache != null) ? cache.get(row) : null;
+                if (res == null) {
+                    res = parser.parse(row.getExtras()[0]);
+                    if (res != null && cache != null) {
+                        cache.put(row, res);
+                    }
+                }
+                return res;
+            };
+
+            final List<List<Axiom>> parsed;
+            if (parallelBuild) {
+                parsed = forkJoinPool.submit(() -> rows.parallelStream().map(parse)
+                        .collect(Collectors.toList())).join();
+            } else {
+                parsed = rows.stream().map(parse).collect(Collectors.toList());
+            }
+
+            final List<String> unsupported = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                final List<Axiom> axioms = parsed.get(i);
+                if (axioms != null) {
+                    statedAxioms.addAll(axioms);
+                } else {
+                    unsupported.add(rows.get(i).getExtras()[0]);
+                }
+            }
+            if (cache != null) {
+                log.info("OWL axiom cache: " + cache.size() + " members, " + cache.getHits() + " hits, "
+                        + cache.getMisses() + " misses");
+            }
+            return unsupported;
+        }
+
         protected boolean isActive(final String active) {
             return "1".equals(active);
         }
@@ -1275,6 +2349,13 @@ public class RF2Importer extends BaseImporter {
                     ;
         }
 
+        protected boolean isDefining(final long characteristicType) {
+            return 900000000000010007L == characteristicType            // stated
+                    || 900000000000006009L == characteristicType        // defining (abstract?, unexpected)
+                    || 900000000000011006L == characteristicType        // inferred (unexpected, shouldn't hurt)
+                    ;
+        }
+
         /**
          * Process all the grouped relationships and add associated axioms to the list of conjuncts
          *
@@ -1287,32 +2368,33 @@ public class RF2Importer extends BaseImporter {
                 for (RoleValuePair rv : rvs) {
                     resolveFiller(innerConjs, rv.id);
                     if (neverGroupedIds.contains(rv.role)) {
-                        throw new RuntimeException(StructuredLog.GroupingError.error(log, rv.role));
+                        throw new RuntimeException(StructuredLog.GroupingError.error(log, Long.toString(rv.role)));
                     } else {
                         final NamedRole role = factory.getRole(rv.role);
-                        final Existential exis = new Existential(role, factory.getConcept(rv.value));
+                        final Concept exis = factory.getExistential(role, factory.getConcept(rv.value));
                         innerConjs.add(exis);
                     }
                 }
                 // Wrap with a role group
-                conjuncts.add(new Existential(factory.getRole(roleGroupId), new Conjunction(innerConjs)));
+                conjuncts.add(factory.getExistential(factory.getRole(roleGroupId), factory.getConjunction(innerConjs)));
             } else {
                 final TreeSet<Concept> innerConjs = new TreeSet<Concept>();
                 RoleValuePair rv = rvs.iterator().next();
 
                 resolveFiller(innerConjs, rv.id);
                 final NamedRole role = factory.getRole(rv.role);
-                final Existential exis = new Existential(role, factory.getConcept(rv.value));
+                final Concept exis = factory.getExistential(role, factory.getConcept(rv.value));
                 if (neverGroupedIds.contains(rv.role)) {
                     // Must not be in a role group
                     if (!innerConjs.isEmpty()) {
-                        throw new RuntimeException(StructuredLog.UngroupedConcreteDomains.error(log, rv.id, rv.role));
+                        throw new RuntimeException(StructuredLog.UngroupedConcreteDomains.error(log,
+                                Long.toString(rv.id), Long.toString(rv.role)));
                     }
                     conjuncts.add(exis);
                 } else {
                     // Needs a role group
                     innerConjs.add(exis);
-                    conjuncts.add(new Existential(factory.getRole(roleGroupId), new Conjunction(innerConjs)));
+                    conjuncts.add(factory.getExistential(factory.getRole(roleGroupId), factory.getConjunction(innerConjs)));
                 }
             }
         }
@@ -1324,10 +2406,11 @@ public class RF2Importer extends BaseImporter {
          * @param innerConjs
          * @param relationshipId
          */
-        protected void resolveFiller(Collection<Concept> innerConjs, String relationshipId) {
-            if (cdsMap.containsKey(relationshipId)) {
+        protected void resolveFiller(Collection<Concept> innerConjs, long relationshipId) {
+            final List<String[]> datatypes = cdsMap.get(relationshipId);
+            if (datatypes != null) {
                 final List<Concept> concepts = new ArrayList<>();
-                for (String[] datatype : cdsMap.get(relationshipId)) {
+                for (String[] datatype : datatypes) {
                     mapDatatype(concepts, datatype);
                 }
                 innerConjs.addAll(concepts);
@@ -1360,8 +2443,8 @@ public class RF2Importer extends BaseImporter {
             }
 
             if (equalsOperatorId.equals(operatorId)) {
-                conjs.add(new Existential(factory.getRole(unitRoleId), factory.getConcept(unitId)));
-                conjs.add(new Datatype(feature, Operator.EQUALS, value));
+                conjs.add(factory.getExistential(factory.getRole(unitRoleId), factory.getConcept(unitId)));
+                conjs.add(factory.getDatatype(feature, Operator.EQUALS, value));
             } else {
                 StructuredLog.UnknownConcreteDomainOperator.error(log, operatorId);
             }
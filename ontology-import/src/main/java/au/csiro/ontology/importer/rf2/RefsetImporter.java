@@ -4,18 +4,18 @@
  */
 package au.csiro.ontology.importer.rf2;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import au.csiro.ontology.importer.ImportException;
+import au.csiro.ontology.importer.RowTokenizer;
 import au.csiro.ontology.snomed.refset.rf2.IModuleDependencyRefset;
 import au.csiro.ontology.snomed.refset.rf2.ModuleDependencyRefset;
 import au.csiro.ontology.snomed.refset.rf2.ModuleDependencyRow;
@@ -47,38 +47,39 @@ public class RefsetImporter {
 
         Set<ModuleDependencyRow> members = new HashSet<ModuleDependencyRow>();
         for(InputStream refsetFile : refsetFiles) {
-            BufferedReader br = null;
-            try {
-                br = new BufferedReader(new InputStreamReader(refsetFile));
-                String line = br.readLine();
-
-                String[] cols = line.split("[\t]");
-                assert(cols.length >= 6);
+            try (RowTokenizer rows = new RowTokenizer(refsetFile)) {
+                rows.next();
 
                 // Test if it is a module dependency refset
-                if (cols.length == 8
-                        && cols[6].equals("sourceEffectiveTime")
-                        && cols[7].equals("targetEffectiveTime")) {
+                if (rows.getFieldCount() == 8
+                        && rows.fieldEquals(6, "sourceEffectiveTime")
+                        && rows.fieldEquals(7, "targetEffectiveTime")) {
 
-                    while (null != (line = br.readLine())) {
-                        cols = line.split("[\t]");
-                        boolean active = cols[2].equals("1");
+                    while (rows.next()) {
+                        if (rows.isBlank()) {
+                            continue;
+                        }
+                        if (rows.getFieldCount() < 8) {
+                            throw new ImportException("Malformed module dependency reference set row: " +
+                                    rows.getLine());
+                        }
+                        boolean active = rows.fieldEquals(2, "1");
                         ModuleDependencyRow m =
-                                new ModuleDependencyRow(cols[0],
-                                        cols[1], active , cols[3], cols[4],
-                                        cols[5], cols[6], cols[7]);
+                                new ModuleDependencyRow(rows.getString(0),
+                                        rows.getString(1), active , rows.getString(3), rows.getString(4),
+                                        rows.getString(5), rows.getString(6), rows.getString(7));
                         members.add(m);
                     }
                 } else {
-                    throw new ImportException("Malformed module dependency reference set with " + cols.length + " columns "+Arrays.asList(cols));
+                    final List<String> cols = new ArrayList<>();
+                    for (int i = 0; i < rows.getFieldCount(); i++) {
+                        cols.add(rows.getString(i));
+                    }
+                    throw new ImportException("Malformed module dependency reference set with " + cols.size() + " columns "+cols);
                 }
             } catch (IOException e) {
                 log.error("Problem reading refset file "+refsetFile, e);
                 throw new ImportException("Problem reading refset file ", e);
-            } finally {
-                if(br != null) {
-                    try { br.close(); } catch(Exception e) {}
-                }
             }
         }
 
@@ -0,0 +1,141 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Iterator;
+
+/**
+ * A cursor over the relationship rows of a {@link VersionRows}. The cursor starts before the first row and each call
+ * to {@link #next()} moves it to the next row. Ids are returned as numbers, so rows can be read without creating a
+ * {@link RelationshipRow} for each one.
+ */
+public interface RelationshipCursor {
+
+    /**
+     * Moves to the next row.
+     *
+     * @return false if there are no more rows.
+     */
+    boolean next();
+
+    long getId();
+
+    /**
+     * @return the effectiveTime, packed as by {@link au.csiro.ontology.util.EffectiveTime#packOptional(String)}
+     */
+    long getEffectiveTime();
+
+    boolean isActive();
+
+    long getModuleId();
+
+    long getSourceId();
+
+    /**
+     * @return the destination, or -1 if the destination is a concrete value such as {@code #500} rather than an SCTID
+     */
+    long getDestinationId();
+
+    long getRelationshipGroup();
+
+    long getTypeId();
+
+    long getCharacteristicTypeId();
+
+    long getModifierId();
+
+    /**
+     * Returns a cursor over a collection of {@link RelationshipRow}s. The fields of each row are parsed once, when the
+     * cursor moves to the row.
+     *
+     * @param rows
+     * @return
+     */
+    static RelationshipCursor over(Iterable<RelationshipRow> rows) {
+        final Iterator<RelationshipRow> itr = rows.iterator();
+        return new RelationshipCursor() {
+            private long id;
+            private long effectiveTime;
+            private boolean active;
+            private long moduleId;
+            private long sourceId;
+            private long destinationId;
+            private long relationshipGroup;
+            private long typeId;
+            private long characteristicTypeId;
+            private long modifierId;
+
+            @Override
+            public boolean next() {
+                if (!itr.hasNext()) {
+                    return false;
+                }
+                final RelationshipRow row = itr.next();
+                id = Long.parseLong(row.getId());
+                effectiveTime = row.getPackedEffectiveTime();
+                active = "1".equals(row.getActive());
+                moduleId = Long.parseLong(row.getModuleId());
+                sourceId = Long.parseLong(row.getSourceId());
+                destinationId = RF2Importer.toSctid(row.getDestinationId());
+                relationshipGroup = Long.parseLong(row.getRelationshipGroup());
+                typeId = Long.parseLong(row.getTypeId());
+                characteristicTypeId = Long.parseLong(row.getCharacteristicTypeId());
+                modifierId = Long.parseLong(row.getModifierId());
+                return true;
+            }
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public long getEffectiveTime() {
+                return effectiveTime;
+            }
+
+            @Override
+            public boolean isActive() {
+                return active;
+            }
+
+            @Override
+            public long getModuleId() {
+                return moduleId;
+            }
+
+            @Override
+            public long getSourceId() {
+                return sourceId;
+            }
+
+            @Override
+            public long getDestinationId() {
+                return destinationId;
+            }
+
+            @Override
+            public long getRelationshipGroup() {
+                return relationshipGroup;
+            }
+
+            @Override
+            public long getTypeId() {
+                return typeId;
+            }
+
+            @Override
+            public long getCharacteristicTypeId() {
+                return characteristicTypeId;
+            }
+
+            @Override
+            public long getModifierId() {
+                return modifierId;
+            }
+        };
+    }
+
+}
@@ -4,6 +4,8 @@
  */
 package au.csiro.ontology.importer.rf2;
 
+import au.csiro.ontology.util.EffectiveTime;
+
 /**
  * @author Alejandro Metke
  * 
@@ -12,6 +14,7 @@ public class RelationshipRow implements Comparable<RelationshipRow> {
 
     private final String id;
     private final String effectiveTime;
+    private final long packedEffectiveTime;
     private final String active;
     private final String moduleId;
     private final String sourceId;
@@ -42,6 +45,7 @@ public class RelationshipRow implements Comparable<RelationshipRow> {
         super();
         this.id = id;
         this.effectiveTime = effectiveTime;
+        this.packedEffectiveTime = EffectiveTime.packOptional(effectiveTime);
         this.active = active;
         this.moduleId = moduleId;
         this.sourceId = sourceId;
@@ -66,6 +70,13 @@ public class RelationshipRow implements Comparable<RelationshipRow> {
         return effectiveTime;
     }
 
+    /**
+     * @return the effectiveTime, packed as by {@link EffectiveTime#packOptional(String)}
+     */
+    public long getPackedEffectiveTime() {
+        return packedEffectiveTime;
+    }
+
     /**
      * @return the active
      */
@@ -224,7 +235,7 @@ public class RelationshipRow implements Comparable<RelationshipRow> {
         if(this.equals(other))
             return 0;
         else {
-            int res = effectiveTime.compareTo(other.effectiveTime);
+            int res = Long.compare(packedEffectiveTime, other.packedEffectiveTime);
             if(res != 0) return res;
             res = moduleId.compareTo(other.moduleId);
             if(res != 0) return res;
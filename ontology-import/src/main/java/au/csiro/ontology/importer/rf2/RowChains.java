@@ -0,0 +1,143 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import au.csiro.ontology.util.LongMap;
+
+/**
+ * All the versions of the rows of components identified by SCTIDs, such as concepts or relationships, that are part of
+ * any of the versions being imported. The versions of each component are kept in a chain, in the order they were
+ * loaded, so the rows of a single version can be selected later without reading the files again.
+ *
+ * @param <R>
+ */
+final class RowChains<R> implements RowSink<R> {
+
+    /**
+     * A chain with more than one row. Chains with a single row are stored as the row itself.
+     */
+    @SuppressWarnings("serial")
+    static final class Chain extends ArrayList<Object> {
+        Chain(Object first) {
+            add(first);
+        }
+    }
+
+    private final LongMap<Object> chains = new LongMap<>();
+    private final ToLongFunction<R> effectiveTime;
+    private final Function<R, String> moduleId;
+
+    RowChains(ToLongFunction<R> effectiveTime, Function<R, String> moduleId) {
+        this.effectiveTime = effectiveTime;
+        this.moduleId = moduleId;
+    }
+
+    @Override
+    public boolean accepts(long id, long time) {
+        // Every version is kept
+        return true;
+    }
+
+    @Override
+    public void add(long id, R row) {
+        chains.put(id, append(chains.get(id), row));
+    }
+
+    /**
+     * Adds the rows of another set of chains after the rows of this one.
+     *
+     * @param other
+     */
+    void addAll(RowChains<R> other) {
+        final LongMap<Object>.Cursor cursor = other.chains.cursor();
+        while (cursor.next()) {
+            chains.put(cursor.key(), appendAll(chains.get(cursor.key()), cursor.value()));
+        }
+    }
+
+    /**
+     * @return The number of components.
+     */
+    int size() {
+        return chains.size();
+    }
+
+    /**
+     * Selects the rows of a single version: the latest row of each component that is part of the modules in the
+     * filter and is not newer than the target version of its module.
+     *
+     * @param modules
+     * @return
+     */
+    LongMap<R> snapshot(ModuleFilter modules) {
+        final LongMap<R> res = new LongMap<>(chains.size());
+        final LongMap<Object>.Cursor cursor = chains.cursor();
+        while (cursor.next()) {
+            final R row = select(cursor.value(), modules, effectiveTime, moduleId);
+            if (row != null) {
+                res.put(cursor.key(), row);
+            }
+        }
+        return res;
+    }
+
+    static Object append(Object chain, Object row) {
+        if (chain == null) {
+            return row;
+        } else if (chain instanceof Chain) {
+            ((Chain) chain).add(row);
+            return chain;
+        } else {
+            final Chain res = new Chain(chain);
+            res.add(row);
+            return res;
+        }
+    }
+
+    static Object appendAll(Object chain, Object rows) {
+        if (rows instanceof Chain) {
+            for (Object row : (Chain) rows) {
+                chain = append(chain, row);
+            }
+            return chain;
+        } else {
+            return append(chain, rows);
+        }
+    }
+
+    /**
+     * Returns the latest row in a chain that is part of the modules in the filter, or null if there is none. If
+     * several rows have the same effective time the first one is returned, as in a sequential load.
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R select(Object chain, ModuleFilter modules, ToLongFunction<R> effectiveTime,
+            Function<R, String> moduleId) {
+        if (!(chain instanceof Chain)) {
+            final R row = (R) chain;
+            final int module = modules.indexOf(moduleId.apply(row));
+            return (module >= 0 && modules.includes(module, effectiveTime.applyAsLong(row))) ? row : null;
+        }
+
+        R res = null;
+        long resTime = Long.MIN_VALUE;
+        for (Object o : (Chain) chain) {
+            final R row = (R) o;
+            final long time = effectiveTime.applyAsLong(row);
+            if (time > resTime) {
+                final int module = modules.indexOf(moduleId.apply(row));
+                if (module >= 0 && modules.includes(module, time)) {
+                    res = row;
+                    resTime = time;
+                }
+            }
+        }
+        return res;
+    }
+
+}
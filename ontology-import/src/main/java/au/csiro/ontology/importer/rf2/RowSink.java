@@ -0,0 +1,53 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.function.ToLongFunction;
+
+import au.csiro.ontology.util.LongMap;
+
+/**
+ * Receives the rows of a component identified by an SCTID, such as a concept or a relationship, that are part of the
+ * modules being loaded. Rows are only created if the sink accepts them.
+ *
+ * @param <R>
+ */
+interface RowSink<R> {
+
+    /**
+     * Indicates if a row should be created and added to the sink.
+     *
+     * @param id The SCTID of the component.
+     * @param effectiveTime The packed effective time of the row.
+     * @return
+     */
+    boolean accepts(long id, long effectiveTime);
+
+    void add(long id, R row);
+
+    /**
+     * Returns a sink that only keeps the latest version of each component in a map. If there are several rows with
+     * the same effective time, the first one is kept.
+     *
+     * @param rows
+     * @param effectiveTime
+     * @return
+     */
+    static <R> RowSink<R> latest(LongMap<R> rows, ToLongFunction<R> effectiveTime) {
+        return new RowSink<R>() {
+            @Override
+            public boolean accepts(long id, long time) {
+                final R curr = rows.get(id);
+                return curr == null || time > effectiveTime.applyAsLong(curr);
+            }
+
+            @Override
+            public void add(long id, R row) {
+                rows.put(id, row);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Map;
+
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+
+/**
+ * The rows of all the versions of an RF2 input that are being imported, loaded in a single pass over the files. The
+ * {@link VersionRows} of each version are then selected from these rows.
+ */
+class VersionChains {
+
+    final RowChains<ConceptRow> concepts =
+            new RowChains<>(ConceptRow::getPackedEffectiveTime, ConceptRow::getModuleId);
+    final RowChains<RelationshipRow> statedRelationships =
+            new RowChains<>(RelationshipRow::getPackedEffectiveTime, RelationshipRow::getModuleId);
+    final RowChains<RelationshipRow> inferredRelationships =
+            new RowChains<>(RelationshipRow::getPackedEffectiveTime, RelationshipRow::getModuleId);
+    final MemberChains<RefsetRow> concreteDomains = new MemberChains<>();
+    final MemberChains<RefsetRow> attributeDomains = new MemberChains<>();
+    final MemberChains<RefsetRow> owl = new MemberChains<>();
+
+    /**
+     * Returns the rows of a version.
+     *
+     * @param modMap The modules of the version and their target versions.
+     * @return
+     */
+    VersionRows snapshot(Map<String, String> modMap) {
+        final ModuleFilter modules = new ModuleFilter(modMap);
+        return new VersionRows(concepts.snapshot(modules).values(), inferredRelationships.snapshot(modules).values(),
+                statedRelationships.snapshot(modules).values(), concreteDomains.snapshot(modules).values(),
+                attributeDomains.snapshot(modules).values(), owl.snapshot(modules).values());
+    }
+
+}
@@ -113,6 +113,27 @@ public class VersionRows {
 		return owlRows;
 	}
 
+	/**
+	 * @return a cursor over the concept rows
+	 */
+	public ConceptCursor conceptCursor() {
+		return ConceptCursor.over(conceptRows);
+	}
+
+	/**
+	 * @return a cursor over the inferred relationship rows
+	 */
+	public RelationshipCursor inferredRelationshipCursor() {
+		return RelationshipCursor.over(inferredRelationshipRows);
+	}
+
+	/**
+	 * @return a cursor over the stated relationship rows
+	 */
+	public RelationshipCursor statedRelationshipCursor() {
+		return RelationshipCursor.over(statedRelationshipRows);
+	}
+
 	/**
 	 * Merges another {@link VersionRows} into this.
 	 *
@@ -124,7 +145,7 @@ public class VersionRows {
 		statedRelationshipRows.addAll(other.statedRelationshipRows);
 		concreteDomainRows.addAll(other.getConcreteDomainRows());
                 attributeDomainRows.addAll(other.getAttributeDomainRows());
-		owlRows.addAll(other.getConcreteDomainRows());
+		owlRows.addAll(other.getOwlRows());
 	}
 
 }
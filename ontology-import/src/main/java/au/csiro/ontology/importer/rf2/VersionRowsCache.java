@@ -0,0 +1,428 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import au.csiro.ontology.input.Input.InputType;
+import au.csiro.ontology.input.RF2Input;
+import au.csiro.ontology.input.StructuredLog;
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+
+/**
+ * Stores the {@link VersionRows} of an import entry in a binary file so later imports of the same files and modules
+ * don't need to parse the RF2 files again.
+ * <p>
+ * Cache files are named after a hash of the names of the input files and the modules and target versions of the entry.
+ * Each file also records the size and modification time of every input file, and is discarded if any of them has
+ * changed. Cache files are memory-mapped when they are read.
+ * <p>
+ * Rows are stored as a sequence of strings. Columns with few distinct values, such as module ids, are stored as
+ * references to a dictionary of the values seen before.
+ */
+class VersionRowsCache {
+
+    private final static Logger log = LoggerFactory.getLogger(VersionRowsCache.class);
+
+    private static final int MAGIC = 0x52463256;
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".rows";
+
+    /**
+     * String codes: a literal, a literal that is added to the dictionary, or a reference to a dictionary entry.
+     */
+    private static final int LITERAL = 0;
+    private static final int NEW_ENTRY = 1;
+    private static final int ENTRY = 2;
+
+    private final File directory;
+
+    VersionRowsCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cached rows of an import entry, or null if they are not in the cache or the input files have changed.
+     *
+     * @param input
+     * @param modMap
+     * @return
+     */
+    VersionRows get(RF2Input input, Map<String, String> modMap) {
+        final File file = getFile(input, modMap);
+        if (!file.isFile()) {
+            StructuredLog.CacheMiss.info(log, file);
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Cache file is too large");
+            }
+            final ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final Reader reader = new Reader(buf);
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION
+                    || !getFingerprint(input).equals(reader.readString())) {
+                StructuredLog.CacheInvalidated.info(log, file);
+                delete(file);
+                return null;
+            }
+
+            final VersionRows res = new VersionRows(reader.readConcepts(), reader.readRelationships(),
+                    reader.readRelationships(), reader.readRefset(IRefsetFactory.CD),
+                    reader.readRefset(IRefsetFactory.AD), reader.readRefset(IRefsetFactory.OWL));
+            StructuredLog.CacheHit.info(log, file);
+            return res;
+        } catch (IOException | RuntimeException e) {
+            // A truncated or corrupt file is handled as a stale one
+            StructuredLog.CacheInvalidated.info(log, file);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the rows of an import entry. Failures are logged and otherwise ignored.
+     *
+     * @param input
+     * @param modMap
+     * @param rows
+     */
+    void put(RF2Input input, Map<String, String> modMap, VersionRows rows) {
+        final File file = getFile(input, modMap);
+        File tmp = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            tmp = File.createTempFile("rows", ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp.toPath()), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                final Writer writer = new Writer(out);
+                writer.writeLiteral(getFingerprint(input));
+                writer.writeConcepts(rows.getConceptRows());
+                writer.writeRelationships(rows.getInferredRelationshipRows());
+                writer.writeRelationships(rows.getStatedRelationshipRows());
+                writer.writeRefset(rows.getConcreteDomainRows());
+                writer.writeRefset(rows.getAttributeDomainRows());
+                writer.writeRefset(rows.getOwlRows());
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            StructuredLog.CacheWriteFailure.warn(log, file, e);
+            if (tmp != null) {
+                delete(tmp);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            log.warn("Could not delete " + file, e);
+        }
+    }
+
+    /**
+     * Returns the cache file for an import entry.
+     *
+     * @param input
+     * @param modMap
+     * @return
+     */
+    File getFile(RF2Input input, Map<String, String> modMap) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(FORMAT_VERSION).append('\n');
+        sb.append(input.getInputType()).append('\n');
+        sb.append(input.getBase()).append('\n');
+        for (String name : getFileNames(input)) {
+            sb.append(name).append('\n');
+        }
+        for (Map.Entry<String, String> entry : new TreeMap<>(modMap).entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    sb.toString().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", digest[i]));
+            }
+            return new File(directory, name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the names of the files that the rows are loaded from, prefixed with their type.
+     */
+    private static List<String> getFileNames(RF2Input input) {
+        final List<String> res = new ArrayList<>();
+        addFileNames(res, "concepts", input.getConceptsFiles());
+        addFileNames(res, "stated", input.getStatedRelationshipsFiles());
+        addFileNames(res, "inferred", input.getNnfRelationshipsFiles());
+        addFileNames(res, "inferredConcreteDomains", input.getNnfConcreteDomainsFiles());
+        addFileNames(res, "concreteDomains", input.getConcreteDomainRefsetFiles());
+        addFileNames(res, "attributeDomains", input.getAttributeDomainRefsetFiles());
+        addFileNames(res, "owl", input.getOwlExpressionRefsetFiles());
+        return res;
+    }
+
+    private static void addFileNames(List<String> res, String type, Set<String> names) {
+        if (names != null) {
+            for (String name : new TreeSet<>(names)) {
+                res.add(type + ":" + name);
+            }
+        }
+    }
+
+    /**
+     * Returns the size and modification time of every input file.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    String getFingerprint(RF2Input input) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        final File base = input.getBase() != null ? new File(input.getBase()) : null;
+        if (InputType.EXTERNAL.equals(input.getInputType()) && base != null && base.isFile()) {
+            // Files are read from a ZIP file
+            appendStat(sb, base);
+            return sb.toString();
+        }
+
+        for (String name : getFileNames(input)) {
+            final String fileName = name.substring(name.indexOf(':') + 1);
+            if (InputType.CLASSPATH.equals(input.getInputType())) {
+                final URL url = input.getClass().getResource(fileName);
+                if (url == null) {
+                    throw new IOException(fileName + " not found in classpath");
+                }
+                if ("file".equals(url.getProtocol())) {
+                    appendStat(sb, new File(url.getPath()));
+                } else {
+                    final URLConnection conn = url.openConnection();
+                    sb.append(conn.getContentLengthLong()).append(':').append(conn.getLastModified()).append(';');
+                }
+            } else {
+                final File file = input.getFile(fileName);
+                if (file == null) {
+                    throw new IOException(fileName + " not found");
+                }
+                appendStat(sb, file);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendStat(StringBuilder sb, File file) {
+        sb.append(file.length()).append(':').append(file.lastModified()).append(';');
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeConcepts(Collection<ConceptRow> rows) throws IOException {
+            writeVarInt(rows.size());
+            for (ConceptRow row : rows) {
+                writeLiteral(row.getId());
+                writeEntry(row.getEffectiveTime());
+                writeEntry(row.getActive());
+                writeEntry(row.getModuleId());
+                writeEntry(row.getDefinitionStatusId());
+            }
+        }
+
+        void writeRelationships(Collection<RelationshipRow> rows) throws IOException {
+            writeVarInt(rows.size());
+            for (RelationshipRow row : rows) {
+                writeLiteral(row.getId());
+                writeEntry(row.getEffectiveTime());
+                writeEntry(row.getActive());
+                writeEntry(row.getModuleId());
+                writeLiteral(row.getSourceId());
+                writeLiteral(row.getDestinationId());
+                writeEntry(row.getRelationshipGroup());
+                writeEntry(row.getTypeId());
+                writeEntry(row.getCharacteristicTypeId());
+                writeEntry(row.getModifierId());
+            }
+        }
+
+        void writeRefset(Collection<RefsetRow> rows) throws IOException {
+            writeVarInt(rows.size());
+            for (RefsetRow row : rows) {
+                writeLiteral(row.getId());
+                writeEntry(row.getEffectiveTime());
+                writeEntry(row.getActive());
+                writeEntry(row.getModuleId());
+                writeEntry(row.getRefsetId());
+                writeLiteral(row.getReferencedComponentId());
+                final String[] extras = row.getExtras();
+                writeVarInt(extras.length);
+                for (String extra : extras) {
+                    writeLiteral(extra);
+                }
+            }
+        }
+
+        /**
+         * Writes a value of a column with few distinct values.
+         */
+        void writeEntry(String value) throws IOException {
+            final Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarInt(ENTRY + index);
+            } else {
+                dictionary.put(value, dictionary.size());
+                writeVarInt(NEW_ENTRY);
+                writeBytes(value);
+            }
+        }
+
+        void writeLiteral(String value) throws IOException {
+            writeVarInt(LITERAL);
+            writeBytes(value);
+        }
+
+        private void writeBytes(String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            VersionRowsCache.writeVarInt(out, value);
+        }
+    }
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarInt(ByteBuffer buf) {
+        int res = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = buf.get();
+            res |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return res;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static class Reader {
+        private final ByteBuffer buf;
+        private final List<String> dictionary = new ArrayList<>();
+        private byte[] bytes = new byte[256];
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        Collection<ConceptRow> readConcepts() {
+            final int size = readVarInt(buf);
+            final List<ConceptRow> res = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                res.add(new ConceptRow(readString(), readString(), readString(), readString(), readString()));
+            }
+            return res;
+        }
+
+        Collection<RelationshipRow> readRelationships() {
+            final int size = readVarInt(buf);
+            final List<RelationshipRow> res = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                res.add(new RelationshipRow(readString(), readString(), readString(), readString(), readString(),
+                        readString(), readString(), readString(), readString(), readString()));
+            }
+            return res;
+        }
+
+        Collection<RefsetRow> readRefset(IRefsetFactory<RefsetRow> factory) {
+            final int size = readVarInt(buf);
+            final List<RefsetRow> res = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final String id = readString();
+                final String effectiveTime = readString();
+                final String active = readString();
+                final String moduleId = readString();
+                final String refsetId = readString();
+                final String referencedComponentId = readString();
+                final String[] extras = new String[readVarInt(buf)];
+                for (int j = 0; j < extras.length; j++) {
+                    extras[j] = readString();
+                }
+                res.add(factory.create(id, effectiveTime, active, moduleId, refsetId, referencedComponentId, extras));
+            }
+            return res;
+        }
+
+        String readString() throws BufferUnderflowException {
+            final int code = readVarInt(buf);
+            if (code >= ENTRY) {
+                return dictionary.get(code - ENTRY);
+            }
+
+            final int len = readVarInt(buf);
+            if (len > bytes.length) {
+                bytes = new byte[Math.max(len, bytes.length * 2)];
+            }
+            buf.get(bytes, 0, len);
+            final String res = new String(bytes, 0, len, StandardCharsets.UTF_8);
+            if (code == NEW_ENTRY) {
+                dictionary.add(res);
+            }
+            return res;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link RowTokenizer}.
+ */
+public class TestRowTokenizer {
+
+    private static final String DATA =
+            "id\teffectiveTime\tactive\tterm\r\n" +
+            "100005\t20020131\t1\tSNOMED RT Concept (special concept)\r\n" +
+            "\r\n" +
+            "101009\t20020131\t0\tQuilonia ethiopica (organism) é\t\n" +
+            "102002\t20120731\t1\tlast";
+
+    @Test
+    public void testStream() throws IOException {
+        check(new RowTokenizer(new ByteArrayInputStream(DATA.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testByteBuffer() throws IOException {
+        final byte[] bytes = ("xx" + DATA).getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buf = ByteBuffer.wrap(bytes);
+        buf.position(2);
+        check(new RowTokenizer(buf));
+    }
+
+    @Test
+    public void testLongLines() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i).append('\t');
+        }
+        sb.append("end\n");
+        sb.append(sb);
+        try (RowTokenizer rows = new RowTokenizer(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)))) {
+            for (int j = 0; j < 2; j++) {
+                Assert.assertTrue(rows.next());
+                Assert.assertEquals(100001, rows.getFieldCount());
+                Assert.assertEquals(99999, rows.getLong(99999));
+                Assert.assertEquals("end", rows.getString(100000));
+            }
+            Assert.assertFalse(rows.next());
+        }
+    }
+
+    private void check(RowTokenizer rows) throws IOException {
+        try {
+            Assert.assertTrue(rows.next());
+            Assert.assertEquals(4, rows.getFieldCount());
+            Assert.assertTrue(rows.fieldEquals(1, "effectiveTime"));
+
+            Assert.assertTrue(rows.next());
+            Assert.assertEquals(4, rows.getFieldCount());
+            Assert.assertEquals(100005L, rows.getLong(0));
+            Assert.assertEquals("SNOMED RT Concept (special concept)", rows.getString(3));
+            Assert.assertEquals(0, rows.compareField(1, "20020131"));
+            Assert.assertTrue(rows.compareField(1, "20020201") < 0);
+            Assert.assertTrue(rows.compareField(1, "2002013") > 0);
+            Assert.assertTrue(rows.fieldEquals(2, "1"));
+            Assert.assertFalse(rows.fieldEquals(2, "0"));
+
+            Assert.assertTrue(rows.next());
+            Assert.assertTrue(rows.isBlank());
+
+            Assert.assertTrue(rows.next());
+            Assert.assertFalse(rows.isBlank());
+            Assert.assertEquals(5, rows.getFieldCount());
+            Assert.assertEquals("Quilonia ethiopica (organism) é", rows.getString(3));
+            Assert.assertEquals(0, rows.getLength(4));
+
+            Assert.assertTrue(rows.next());
+            Assert.assertEquals("last", rows.getString(3));
+            Assert.assertEquals("102002\t20120731\t1\tlast", rows.getLine());
+
+            Assert.assertFalse(rows.next());
+            Assert.assertFalse(rows.next());
+        } finally {
+            rows.close();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link SymbolTable}.
+ */
+public class TestSymbolTable {
+
+    @Test
+    public void testIntern() {
+        final SymbolTable symbols = new SymbolTable();
+        final byte[] buf = "x\t116680003\t1\t116680003".getBytes(StandardCharsets.UTF_8);
+
+        final String isA = symbols.intern(buf, 2, 9);
+        Assert.assertEquals("116680003", isA);
+        Assert.assertSame(isA, symbols.intern(buf, 14, 9));
+        Assert.assertSame(isA, symbols.intern(new String("116680003")));
+        final String active = symbols.intern(buf, 12, 1);
+        Assert.assertEquals("1", active);
+        Assert.assertSame(active, symbols.intern("1"));
+
+        Assert.assertEquals(0, symbols.code("116680003"));
+        Assert.assertEquals(1, symbols.code(buf, 12, 1));
+        Assert.assertEquals("1", symbols.get(1));
+        Assert.assertEquals(2, symbols.size());
+    }
+
+    @Test
+    public void testGrow() {
+        final SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, symbols.code(Integer.toString(i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, symbols.code(Integer.toString(i)));
+            Assert.assertEquals(Integer.toString(i), symbols.get(i));
+        }
+        Assert.assertEquals(1000, symbols.size());
+    }
+
+}
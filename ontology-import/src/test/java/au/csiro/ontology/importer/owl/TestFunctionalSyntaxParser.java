@@ -0,0 +1,97 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.FunctionalSyntaxDocumentFormat;
+import org.semanticweb.owlapi.io.ReaderDocumentSource;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import au.csiro.ontology.Ontology;
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.util.NullProgressMonitor;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link FunctionalSyntaxParser}.
+ */
+public class TestFunctionalSyntaxParser {
+
+    private static final List<String> NAMESPACES = Arrays.asList(
+            "Prefix(:=<>)",
+            "Prefix(owl:=<http://www.w3.org/2002/07/owl#>)",
+            "Prefix(xsd:=<http://www.w3.org/2001/XMLSchema#>)");
+
+    private static final List<String> AXIOMS = Arrays.asList(
+            "SubClassOf(:10000006 :29857009)",
+            "SubClassOf(:138875005 owl:Thing)",
+            "EquivalentClasses(:10001005 ObjectIntersectionOf(:438508001 ObjectSomeValuesFrom(:609096000 "
+                    + "ObjectIntersectionOf(ObjectSomeValuesFrom(:116676008 :409774005) "
+                    + "ObjectSomeValuesFrom(:246075003 :87628006)))))",
+            "SubClassOf(ObjectIntersectionOf(:73211009 ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom("
+                    + ":363698007 :113331007))) :8801005)",
+            "SubClassOf(:322236009 ObjectIntersectionOf(:763158003 ObjectSomeValuesFrom(:609096000 "
+                    + "ObjectIntersectionOf(ObjectSomeValuesFrom(:127489000 :387517004) "
+                    + "DataHasValue(:1142135004 \"500\"^^xsd:decimal))) "
+                    + "DataHasValue(:1142139005 \"1\"^^xsd:integer)))",
+            "SubObjectPropertyOf(:363701004 :762705008)",
+            "SubObjectPropertyOf(ObjectPropertyChain(:363701004 :738774007) :363701004)",
+            "TransitiveObjectProperty(:774081006)",
+            "ReflexiveObjectProperty(:733930001)",
+            "SubDataPropertyOf(:1142135004 :762706009)",
+            "FunctionalDataProperty(:1142139005)");
+
+    @Test
+    public void testParse() throws Exception {
+        final FunctionalSyntaxParser parser = new FunctionalSyntaxParser(NAMESPACES);
+        final Set<String> actual = new HashSet<>();
+        for (String axiom : AXIOMS) {
+            final List<Axiom> axioms = parser.parse(axiom);
+            Assert.assertNotNull(axiom, axioms);
+            for (Axiom a : axioms) {
+                actual.add(a.toString());
+            }
+        }
+
+        // Role inclusions don't implement equals()
+        Assert.assertEquals(importWithOWLAPI(AXIOMS), actual);
+    }
+
+    @Test
+    public void testUnsupported() {
+        final FunctionalSyntaxParser parser = new FunctionalSyntaxParser(NAMESPACES);
+        Assert.assertNull(parser.parse("SubClassOf(:1 ObjectUnionOf(:2 :3))"));
+        Assert.assertNull(parser.parse("SubClassOf(Annotation(rdfs:label \"x\") :1 :2)"));
+        Assert.assertNull(parser.parse("SubObjectPropertyOf(ObjectPropertyChain(:1 :2 :3) :4)"));
+        Assert.assertNull(parser.parse("SubClassOf(:1 :2"));
+        Assert.assertNull(parser.parse("SubClassOf(:1 :2) :3"));
+        Assert.assertNull(parser.parse("SubClassOf(:1 foo:2)"));
+    }
+
+    private static Set<String> importWithOWLAPI(List<String> axioms) throws Exception {
+        final String input = String.join("\n", NAMESPACES) + "\nOntology(\n  " + String.join("\n  ", axioms) + "\n)";
+        final OWLOntology ont = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+                new ReaderDocumentSource(new StringReader(input), IRI.generateDocumentIRI(),
+                        new FunctionalSyntaxDocumentFormat(), null));
+        final Set<String> res = new HashSet<>();
+        final Iterator<Ontology> it = new OWLImporter(ont).getOntologyVersions(new NullProgressMonitor());
+        while (it.hasNext()) {
+            for (Axiom a : it.next().getStatedAxioms()) {
+                res.add(a.toString());
+            }
+        }
+        return res;
+    }
+
+}
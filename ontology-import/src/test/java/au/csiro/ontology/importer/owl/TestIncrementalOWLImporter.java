@@ -0,0 +1,106 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+
+import au.csiro.ontology.Factory;
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Role;
+import au.csiro.ontology.util.NullProgressMonitor;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link IncrementalOWLImporter}.
+ */
+public class TestIncrementalOWLImporter {
+
+    @Test
+    public void testChanges() throws Exception {
+        final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        final OWLDataFactory df = manager.getOWLDataFactory();
+        final OWLOntology ont = manager.createOntology();
+        final OWLAxiom ab = df.getOWLSubClassOfAxiom(df.getOWLClass(IRI.create("A")), df.getOWLClass(IRI.create("B")));
+        final OWLAxiom bc = df.getOWLSubClassOfAxiom(df.getOWLClass(IRI.create("B")), df.getOWLClass(IRI.create("C")));
+        final OWLAxiom ad = df.getOWLSubClassOfAxiom(df.getOWLClass(IRI.create("A")),
+                df.getOWLObjectSomeValuesFrom(df.getOWLObjectProperty(IRI.create("r")),
+                        df.getOWLClass(IRI.create("D"))));
+        manager.addAxiom(ont, ab);
+
+        final IncrementalOWLImporter importer = new IncrementalOWLImporter(ont);
+        final Axiom abAxiom = Factory.createConceptInclusion(Factory.createNamedConcept("A"),
+                Factory.createNamedConcept("B"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(abAxiom)), importer.getAxioms());
+
+        final List<AxiomDelta> deltas = new ArrayList<>();
+        importer.register(deltas::add);
+        manager.applyChanges(Arrays.asList(new AddAxiom(ont, bc), new AddAxiom(ont, ad), new RemoveAxiom(ont, ab)));
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(2, deltas.get(0).getAdded().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(abAxiom)), deltas.get(0).getRemoved());
+
+        // Adding and removing an axiom in the same changes has no effect
+        final AxiomDelta delta = importer.apply(Arrays.asList(new AddAxiom(ont, ab), new RemoveAxiom(ont, ab)));
+        Assert.assertTrue(delta.isEmpty());
+
+        Assert.assertEquals(new HashSet<>(new OWLImporter(ont).getOntologyVersions(new NullProgressMonitor())
+                .next().getStatedAxioms()), importer.getAxioms());
+
+        importer.unregister();
+        manager.removeAxiom(ont, bc);
+        Assert.assertEquals(1, deltas.size());
+    }
+
+    @Test
+    public void testRoleInclusions() throws Exception {
+        final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        final OWLDataFactory df = manager.getOWLDataFactory();
+        final OWLOntology ont = manager.createOntology();
+        final OWLAxiom rs = df.getOWLSubObjectPropertyOfAxiom(df.getOWLObjectProperty(IRI.create("r")),
+                df.getOWLObjectProperty(IRI.create("s")));
+        final OWLAxiom eq = df.getOWLEquivalentObjectPropertiesAxiom(df.getOWLObjectProperty(IRI.create("r")),
+                df.getOWLObjectProperty(IRI.create("s")));
+        manager.addAxiom(ont, rs);
+
+        final IncrementalOWLImporter importer = new IncrementalOWLImporter(ont);
+        final Role r = Factory.createNamedRole("r");
+        final Role s = Factory.createNamedRole("s");
+        final Axiom rsAxiom = Factory.createRoleInclusion(new Role[] { r }, s);
+        final Axiom srAxiom = Factory.createRoleInclusion(new Role[] { s }, r);
+        final Set<Axiom> before = importer.getAxioms();
+        Assert.assertTrue(before.contains(rsAxiom));
+
+        // The equivalence adds s ⊑ r, and r ⊑ s is counted twice
+        AxiomDelta delta = importer.apply(Arrays.asList(new AddAxiom(ont, eq)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(srAxiom)), delta.getAdded());
+        Assert.assertTrue(importer.getAxioms().contains(srAxiom));
+        Assert.assertFalse(before.contains(srAxiom));
+
+        delta = importer.apply(Arrays.asList(new RemoveAxiom(ont, rs)));
+        Assert.assertFalse(delta.getRemoved().contains(rsAxiom));
+        Assert.assertTrue(importer.getAxioms().contains(rsAxiom));
+
+        // Removing and adding an axiom in the same changes cancels out
+        delta = importer.apply(Arrays.asList(new RemoveAxiom(ont, eq), new AddAxiom(ont, rs)));
+        Assert.assertFalse(delta.getAdded().contains(rsAxiom));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(srAxiom)), delta.getRemoved());
+        Assert.assertEquals(before, importer.getAxioms());
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.owl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.FunctionalSyntaxDocumentFormat;
+import org.semanticweb.owlapi.io.ReaderDocumentSource;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.util.NullProgressMonitor;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link OWLImporter}.
+ */
+public class TestOWLImporter {
+
+    private static OWLOntology createOntology() throws Exception {
+        final StringBuilder sb = new StringBuilder("Prefix(:=<>)\nOntology(\n");
+        for (int i = 1; i <= 500; i++) {
+            sb.append("  SubClassOf(:").append(i).append(" :").append(i / 2).append(")\n");
+            sb.append("  EquivalentClasses(:d").append(i).append(" ObjectIntersectionOf(:").append(i)
+                    .append(" ObjectSomeValuesFrom(:r").append(i % 7).append(" :").append(i / 3).append(")))\n");
+        }
+        sb.append("  ObjectPropertyDomain(:r1 :1)\n");
+        sb.append(")");
+        return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+                new ReaderDocumentSource(new StringReader(sb.toString()), IRI.generateDocumentIRI(),
+                        new FunctionalSyntaxDocumentFormat(), null));
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final OWLOntology ont = createOntology();
+
+        final OWLImporter sequential = new OWLImporter(ont);
+        final Set<Axiom> expected = new HashSet<>(sequential.getOntologyVersions(new NullProgressMonitor()).next()
+                .getStatedAxioms());
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final OWLImporter parallel = new OWLImporter(ont);
+            parallel.setParallel(true);
+            parallel.setMemoize(true);
+            parallel.setForkJoinPool(pool);
+            final Set<Axiom> actual = new HashSet<>(parallel.getOntologyVersions(new NullProgressMonitor()).next()
+                    .getStatedAxioms());
+            Assert.assertEquals(1500, expected.size());
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(sequential.getProblems(), parallel.getProblems());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        final OWLOntology ont = createOntology();
+        final Set<Axiom> expected = new HashSet<>(new OWLImporter(ont).getOntologyVersions(
+                new NullProgressMonitor()).next().getStatedAxioms());
+
+        // Equivalences are transformed into two axioms, so odd batch sizes split them across batches
+        for (int batchSize : new int[] { 1, 7, 100 }) {
+            final List<Axiom> streamed = new ArrayList<>();
+            final List<Integer> sizes = new ArrayList<>();
+            new OWLImporter(ont).streamAxioms(batchSize, batch -> {
+                sizes.add(batch.size());
+                streamed.addAll(batch);
+            }, new NullProgressMonitor());
+            Assert.assertEquals(expected, new HashSet<>(streamed));
+            for (int i = 0; i < sizes.size(); i++) {
+                Assert.assertTrue(sizes.get(i) == batchSize || (i == sizes.size() - 1 && sizes.get(i) < batchSize));
+            }
+        }
+
+        final Set<Axiom> iterated = new HashSet<>();
+        final Iterator<Axiom> it = new OWLImporter(ont).getAxiomIterator(64, new NullProgressMonitor());
+        while (it.hasNext()) {
+            iterated.add(it.next());
+        }
+        Assert.assertEquals(expected, iterated);
+
+        // Closing an abandoned iterator stops the background thread
+        final OWLImporter.AxiomIterator abandoned = new OWLImporter(ont).getAxiomIterator(1,
+                new NullProgressMonitor());
+        Assert.assertTrue(abandoned.hasNext());
+        abandoned.next();
+        abandoned.close();
+        for (int i = 0; i < 50 && abandoned.isProducing(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(abandoned.isProducing());
+    }
+
+    @Test
+    public void testMemoizePartialExpressions() throws Exception {
+        // The conjunction loses its unsupported operand, so it must not be memoized and the problem is reported by
+        // both axioms
+        final String conj = "ObjectIntersectionOf(:b DataHasValue(:f \"true\"^^xsd:boolean))";
+        final OWLOntology ont = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+                new ReaderDocumentSource(new StringReader("Prefix(:=<>)\n"
+                        + "Prefix(xsd:=<http://www.w3.org/2001/XMLSchema#>)\nOntology(\n"
+                        + "  SubClassOf(:a " + conj + ")\n"
+                        + "  SubClassOf(:c " + conj + ")\n)"), IRI.generateDocumentIRI(),
+                        new FunctionalSyntaxDocumentFormat(), null));
+
+        final OWLImporter plain = new OWLImporter(ont);
+        final Set<Axiom> expected = new HashSet<>(plain.getOntologyVersions(new NullProgressMonitor()).next()
+                .getStatedAxioms());
+
+        final OWLImporter memoized = new OWLImporter(ont);
+        memoized.setMemoize(true);
+        final Set<Axiom> actual = new HashSet<>(memoized.getOntologyVersions(new NullProgressMonitor()).next()
+                .getStatedAxioms());
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(plain.getProblems(), memoized.getProblems());
+        int ignored = 0;
+        for (String problem : memoized.getProblems()) {
+            if (problem.contains("unsupported literal")) {
+                ignored++;
+            }
+        }
+        Assert.assertEquals(2, ignored);
+    }
+
+    @Test
+    public void testMemoize() throws Exception {
+        final OWLOntology ont = createOntology();
+
+        final OWLImporter plain = new OWLImporter(ont);
+        Assert.assertFalse(plain.isMemoize());
+        final Set<Axiom> expected = new HashSet<>(plain.getOntologyVersions(new NullProgressMonitor()).next()
+                .getStatedAxioms());
+        Assert.assertEquals(0, plain.getMemoHits() + plain.getMemoMisses());
+
+        final OWLImporter memoized = new OWLImporter(ont);
+        memoized.setMemoize(true);
+        final Set<Axiom> actual = new HashSet<>(memoized.getOntologyVersions(new NullProgressMonitor()).next()
+                .getStatedAxioms());
+        Assert.assertEquals(expected, actual);
+        Assert.assertTrue(memoized.getMemoHits() > 0);
+        Assert.assertTrue(memoized.getMemoHitRate() > 0 && memoized.getMemoHitRate() < 1);
+
+        // The memo is emptied after each full transformation, so a second one misses as often as the first
+        final long misses = memoized.getMemoMisses();
+        memoized.getOntologyVersions(new NullProgressMonitor()).next();
+        Assert.assertEquals(2 * misses, memoized.getMemoMisses());
+
+        // Both inclusions of an equivalence share the same conjunction
+        final Map<Concept, Concept> instances = new HashMap<>();
+        for (Axiom a : actual) {
+            final ConceptInclusion ci = (ConceptInclusion) a;
+            for (Concept c : new Concept[] { ci.getLhs(), ci.getRhs() }) {
+                if (c instanceof Conjunction) {
+                    final Concept prev = instances.putIfAbsent(c, c);
+                    Assert.assertTrue(prev == null || prev == c);
+                }
+            }
+        }
+        Assert.assertEquals(500, instances.size());
+    }
+
+}
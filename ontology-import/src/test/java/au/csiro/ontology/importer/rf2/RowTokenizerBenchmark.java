@@ -0,0 +1,127 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import au.csiro.ontology.input.RF2Input;
+import au.csiro.ontology.util.LongMap;
+
+/**
+ * Compares the memory allocated and the time taken to load a relationships file using the byte-level
+ * {@link au.csiro.ontology.importer.RowTokenizer} with the previous line-based loader.
+ * <p>
+ * Not run as part of the unit tests. Usage: {@code RowTokenizerBenchmark [rows]}.
+ */
+public class RowTokenizerBenchmark {
+
+    private static final String MODULE = "900000000000207008";
+    private static final String OTHER_MODULE = "32506021000036107";
+
+    public static void main(String[] args) throws IOException {
+        final int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        final byte[] data = createFile(numRows);
+        System.out.println("Relationships file: " + numRows + " rows, " + (data.length >> 20) + " MB");
+
+        final Map<String, String> modMap = new HashMap<>();
+        modMap.put(MODULE, "20120731");
+
+        final RF2Importer importer = new RF2Importer(new RF2Input());
+        for (int i = 0; i < 5; i++) {
+            measure("line-based", () -> loadLegacy(modMap, new HashMap<>(), new ByteArrayInputStream(data)));
+            measure("tokenizer ", () -> importer.loadRelationshipRows(modMap, new LongMap<>(),
+                    new ByteArrayInputStream(data)));
+        }
+    }
+
+    /**
+     * Full-release style file: three versions of each relationship, and a third of the rows in a module that is
+     * filtered out.
+     */
+    private static byte[] createFile(int numRows) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("id\teffectiveTime\tactive\tmoduleId\tsourceId\tdestinationId\trelationshipGroup\ttypeId\t"
+                + "characteristicTypeId\tmodifierId\r\n");
+        final String[] times = { "20020131", "20100731", "20130131" };
+        for (int i = 0; i < numRows; i++) {
+            final long id = 100000000020L + (i / 3) * 1000;
+            sb.append(id).append('\t').append(times[i % 3]).append('\t').append(i % 2).append('\t')
+                .append(i % 3 == 1 ? OTHER_MODULE : MODULE).append('\t')
+                .append(10000000 + i).append('\t').append(20000000 + i).append('\t').append(i % 4).append('\t')
+                .append("116680003\t900000000000011006\t900000000000451002\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface Load {
+        void run() throws IOException;
+    }
+
+    private static void measure(String name, Load load) throws IOException {
+        final com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long tid = Thread.currentThread().getId();
+        final long bytes = bean.getThreadAllocatedBytes(tid);
+        final long start = System.nanoTime();
+        load.run();
+        final long time = System.nanoTime() - start;
+        final long allocated = bean.getThreadAllocatedBytes(tid) - bytes;
+        System.out.println(String.format("%s: %6d ms, %6d MB allocated", name, time / 1000000, allocated >> 20));
+    }
+
+    /**
+     * The loader used before {@link au.csiro.ontology.importer.RowTokenizer} was introduced.
+     */
+    private static void loadLegacy(Map<String, String> modMap, Map<String, RelationshipRow> relationshipMap,
+            InputStream inputStream) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
+            String line = br.readLine(); // Skip first line
+            while (null != (line = br.readLine())) {
+                if (line.trim().length() < 1) {
+                    continue;
+                }
+                int idx1 = line.indexOf('\t');
+                int idx2 = line.indexOf('\t', idx1 + 1);
+                int idx3 = line.indexOf('\t', idx2 + 1);
+                int idx4 = line.indexOf('\t', idx3 + 1);
+                int idx5 = line.indexOf('\t', idx4 + 1);
+                int idx6 = line.indexOf('\t', idx5 + 1);
+                int idx7 = line.indexOf('\t', idx6 + 1);
+                int idx8 = line.indexOf('\t', idx7 + 1);
+                int idx9 = line.indexOf('\t', idx8 + 1);
+
+                final String id = line.substring(0, idx1);
+                final String effectiveTime = line.substring(idx1 + 1, idx2);
+                final String active = line.substring(idx2 + 1, idx3);
+                final String moduleId = line.substring(idx3 + 1, idx4);
+                final String sourceId = line.substring(idx4 + 1, idx5);
+                final String destinationId = line.substring(idx5 + 1, idx6);
+                final String relationshipGroup = line.substring(idx6 + 1, idx7);
+                final String typeId = line.substring(idx7 + 1, idx8);
+                final String characteristicTypeId = line.substring(idx8 + 1, idx9);
+                final String modifierId = line.substring(idx9 + 1);
+
+                String tgtVer = modMap.get(moduleId);
+                if (tgtVer == null) continue;
+                if (effectiveTime.compareTo(tgtVer) <= 0) {
+                    RelationshipRow curr = relationshipMap.get(id);
+                    if (curr == null || effectiveTime.compareTo(curr.getEffectiveTime()) > 0) {
+                        relationshipMap.put(id, new RelationshipRow(id, effectiveTime, active, moduleId, sourceId,
+                                destinationId, relationshipGroup, typeId, characteristicTypeId, modifierId));
+                    }
+                }
+            }
+        }
+    }
+
+}
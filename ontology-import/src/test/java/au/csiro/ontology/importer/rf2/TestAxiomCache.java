@@ -0,0 +1,55 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import au.csiro.ontology.Factory;
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.snomed.refset.rf2.RefsetRow;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link AxiomCache}.
+ */
+public class TestAxiomCache {
+
+    private static RefsetRow row(String id, String effectiveTime) {
+        return IRefsetFactory.OWL.create(null, effectiveTime, "1", "900000000000207008", "733073007", id,
+                "SubClassOf(:" + id + " :29857009)");
+    }
+
+    @Test
+    public void testEviction() {
+        final List<Axiom> axioms = Collections.singletonList(Factory.createConceptInclusion(
+                Factory.createNamedConcept("10000006"), Factory.createNamedConcept("29857009")));
+        final AxiomCache cache = new AxiomCache(2);
+        cache.setNamespaces(Arrays.asList("Prefix(:=<>)"));
+
+        cache.put(row("a", "20180131"), axioms);
+        cache.put(row("b", "20180131"), axioms);
+        Assert.assertSame(axioms, cache.get(row("a", "20180131")));
+        Assert.assertNull(cache.get(row("a", "20180731")));
+        Assert.assertNull(cache.get(IRefsetFactory.OWL.create(null, "20180131", "1", "900000000000207008",
+                "733073007", "a", "SubClassOf(:a :404684003)")));
+
+        // b is the least recently used member
+        cache.put(row("c", "20180131"), axioms);
+        Assert.assertNull(cache.get(row("b", "20180131")));
+        Assert.assertNotNull(cache.get(row("a", "20180131")));
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+
+        cache.setNamespaces(Arrays.asList("Prefix(:=<>)"));
+        Assert.assertEquals(2, cache.size());
+        cache.setNamespaces(Arrays.asList("Prefix(:=<>)", "Prefix(xsd:=<http://www.w3.org/2001/XMLSchema#>)"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.importer.rf2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import au.csiro.ontology.util.LongMap;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link ChunkedRelationshipLoader}.
+ */
+public class TestChunkedRelationshipLoader {
+
+    private static final String MODULE = "900000000000207008";
+
+    private static final int NUM_IDS = 1000;
+
+    /**
+     * Writes every relationship twice, once in each half of the file, so the two versions of a relationship are in
+     * different chunks. Even relationships have two versions with the same effectiveTime and the first one must be
+     * kept. Odd relationships have a later version in the second half.
+     */
+    private static File createFile() throws Exception {
+        final File file = File.createTempFile("rf2_rel", ".txt");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print("id\teffectiveTime\tactive\tmoduleId\tsourceId\tdestinationId\trelationshipGroup\ttypeId\t"
+                    + "characteristicTypeId\tmodifierId\n");
+            for (int half = 0; half < 2; half++) {
+                for (int i = 1; i <= NUM_IDS; i++) {
+                    final String time = (half == 1 && i % 2 == 1) ? "20030131" : "20020131";
+                    out.print(i + "\t" + time + "\t1\t" + MODULE + "\t" + (i + 1) + "\t2\t" + half
+                            + "\t116680003\t900000000000010007\t900000000000451002\n");
+                }
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testChunkBoundaries() throws Exception {
+        final Map<String, String> modMap = Collections.singletonMap(MODULE, "20121130");
+        final RF2Importer importer = new RF2Importer(TestRF2Importer.createInput("20110531"));
+        final File file = createFile();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final LongMap<RelationshipRow> expected = new LongMap<>();
+            try (InputStream in = new FileInputStream(file)) {
+                importer.loadRelationshipRows(modMap, expected, in);
+            }
+            Assert.assertEquals(NUM_IDS, expected.size());
+
+            for (int chunks : new int[] { 2, 7, 64 }) {
+                final ChunkedRelationshipLoader loader = new ChunkedRelationshipLoader(importer, pool, chunks);
+
+                // Every chunk is non-empty and starts at the beginning of a line
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    final long[] bounds = loader.split(channel);
+                    Assert.assertEquals(chunks + 1, bounds.length);
+                    Assert.assertEquals(channel.size(), bounds[chunks]);
+                    for (int i = 0; i < chunks; i++) {
+                        Assert.assertTrue(bounds[i] < bounds[i + 1]);
+                        final ByteBuffer buf = ByteBuffer.allocate(1);
+                        channel.read(buf, bounds[i] - 1);
+                        Assert.assertEquals('\n', buf.get(0));
+                    }
+                }
+
+                final LongMap<RelationshipRow> rows = new LongMap<>();
+                loader.load(file, modMap, RowSink.latest(rows, RelationshipRow::getPackedEffectiveTime));
+                Assert.assertEquals(NUM_IDS, rows.size());
+                for (long id = 1; id <= NUM_IDS; id++) {
+                    final RelationshipRow row = rows.get(id);
+                    Assert.assertEquals(expected.get(id), row);
+                    if (id % 2 == 0) {
+                        Assert.assertEquals("0", row.getRelationshipGroup());
+                    } else {
+                        Assert.assertEquals("20030131", row.getEffectiveTime());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            file.delete();
+        }
+    }
+
+}
@@ -4,15 +4,48 @@
  */
 package au.csiro.ontology.importer.rf2;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Test;
 
+import au.csiro.ontology.Factory;
 import au.csiro.ontology.Ontology;
 import au.csiro.ontology.input.Input.InputType;
 import au.csiro.ontology.input.Inputs.ReleaseType;
+import au.csiro.ontology.input.ModuleInfo;
 import au.csiro.ontology.input.RF2Input;
+import au.csiro.ontology.input.Version;
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedRole;
+import au.csiro.ontology.model.Role;
+import au.csiro.ontology.util.NullProgressMonitor;
 import junit.framework.Assert;
 
 /**
@@ -23,6 +56,8 @@ import junit.framework.Assert;
  */
 public class TestRF2Importer {
 
+    private static final String ROOT_MODULE = "32506021000036107";
+
     @Test
     public void testExtractVersionRows() {
         try {
@@ -46,4 +81,699 @@ public class TestRF2Importer {
         }
     }
 
+    @Test
+    public void testImportVersions() throws Exception {
+        final Map<String, Set<Axiom>> versions = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final NamedConcept c1 = new NamedConcept("1");
+        final NamedConcept c2 = new NamedConcept("2");
+        final NamedConcept c3 = new NamedConcept("3");
+
+        final Set<Axiom> v20110531 = versions.get("20110531");
+        Assert.assertEquals(2, v20110531.size());
+        Assert.assertTrue(v20110531.contains(new ConceptInclusion(c2, c3)));
+        Assert.assertTrue(v20110531.contains(new ConceptInclusion(c1, new Conjunction(Arrays.asList(c2, c3)))));
+
+        // Concept 1 and its relationships were retired in 20120131
+        final Set<Axiom> v20121130 = versions.get("20121130");
+        Assert.assertEquals(1, v20121130.size());
+        Assert.assertTrue(v20121130.contains(new ConceptInclusion(c2, c3)));
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (boolean deterministic : new boolean[] { true, false }) {
+                final RF2Importer rf2i = new RF2Importer(createInput("20110531", "20121130"));
+                rf2i.setExecutor(executor);
+                rf2i.setDeterministic(deterministic);
+                Assert.assertEquals(expected, importAll(rf2i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelLoadMultipleFiles() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        // The same rows split across two files of each type. Row 8 is in both relationships files with the same
+        // effectiveTime, and the copy in the first file must win.
+        final RF2Input input = createInput("20110531", "20121130");
+        input.setConceptsFiles(new LinkedHashSet<>(Arrays.asList("/rf2_full_con_test_1.txt",
+                "/rf2_full_con_test_2.txt")));
+        input.setStatedRelationshipsFiles(new LinkedHashSet<>(Arrays.asList("/rf2_full_rel_test_1.txt",
+                "/rf2_full_rel_test_2.txt")));
+
+        final RF2Importer sequential = new RF2Importer(input);
+        Assert.assertEquals(expected, importAll(sequential));
+        final VersionRows rows = sequential.getVersionRows(input, ROOT_MODULE, "20110531");
+        Assert.assertEquals(Arrays.asList("7", "8", "9"), relationshipIds(rows));
+        for (RelationshipRow row : rows.getStatedRelationshipRows()) {
+            if ("8".equals(row.getId())) {
+                Assert.assertEquals("0", row.getRelationshipGroup());
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final RF2Importer rf2i = new RF2Importer(input);
+            rf2i.setExecutor(executor);
+            rf2i.setDeterministic(true);
+            Assert.assertEquals(expected, importAll(rf2i));
+            for (int i = 0; i < 10; i++) {
+                final VersionRows parallel = rf2i.getVersionRows(input, ROOT_MODULE, "20110531");
+                Assert.assertEquals(new ArrayList<>(rows.getConceptRows()),
+                        new ArrayList<>(parallel.getConceptRows()));
+                Assert.assertEquals(new ArrayList<>(rows.getStatedRelationshipRows()),
+                        new ArrayList<>(parallel.getStatedRelationshipRows()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunkedRelationships() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final RF2Input input = createInput("20110531", "20121130");
+        final File base = new File(getClass().getResource("/rf2_full_rel_test.txt").toURI()).getParentFile();
+        input.setInputType(InputType.EXTERNAL);
+        input.setBase(base.getAbsolutePath());
+        input.setModuleDependenciesRefsetFiles(Collections.singleton("der2_ssRefset_ModuleDependencyFull_AU1000036_20121130.txt"));
+        input.setConceptsFiles(Collections.singleton("rf2_full_con_test.txt"));
+        input.setStatedRelationshipsFiles(Collections.singleton("rf2_full_rel_test.txt"));
+        Assert.assertNotNull(input.getFile("rf2_full_rel_test.txt"));
+
+        for (int chunks : new int[] { 2, 3, 16 }) {
+            final RF2Importer rf2i = new RF2Importer(input);
+            rf2i.setRelationshipChunks(chunks);
+            Assert.assertEquals(expected, importAll(rf2i));
+        }
+    }
+
+    @Test
+    public void testSinglePass() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final RF2Importer rf2i = new RF2Importer(createInput("20110531", "20121130"));
+            rf2i.setSinglePass(true);
+            Assert.assertEquals(expected, importAll(rf2i));
+
+            final RF2Importer parallel = new RF2Importer(createInput("20110531", "20121130"));
+            parallel.setSinglePass(true);
+            parallel.setExecutor(executor);
+            parallel.setDeterministic(true);
+            Assert.assertEquals(expected, importAll(parallel));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Each file is read once for all the versions instead of once per version
+        for (boolean singlePass : new boolean[] { false, true }) {
+            final Map<String, Integer> opened = new HashMap<>();
+            final RF2Input input = createInput(new RF2Input() {
+                @Override
+                public InputStream getInputStream(String name) throws IOException {
+                    opened.merge(name, 1, Integer::sum);
+                    return super.getInputStream(name);
+                }
+            }, "20100531", "20110531", "20121130");
+            final RF2Importer counted = new RF2Importer(input);
+            counted.setSinglePass(singlePass);
+            Assert.assertEquals(3, importAll(counted).size());
+            Assert.assertEquals(singlePass ? 1 : 3, (int) opened.get("/rf2_full_con_test.txt"));
+            Assert.assertEquals(singlePass ? 1 : 3, (int) opened.get("/rf2_full_rel_test.txt"));
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        final String[] versions = { "20100531", "20110531", "20120531", "20121130" };
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput(versions)));
+        Assert.assertEquals(versions.length, expected.size());
+
+        for (int depth : new int[] { 1, 2, 3 }) {
+            for (boolean singlePass : new boolean[] { false, true }) {
+                final AtomicInteger opened = new AtomicInteger();
+                final RF2Input input = createInput(new RF2Input() {
+                    @Override
+                    public InputStream getInputStream(String name) throws IOException {
+                        if (name.equals("/rf2_full_con_test.txt")) {
+                            opened.incrementAndGet();
+                        }
+                        return super.getInputStream(name);
+                    }
+                }, versions);
+
+                // The order of the versions only depends on the input
+                final List<String> order = new ArrayList<>();
+                final Iterator<Ontology> sequential = new RF2Importer(input).getOntologyVersions(
+                        new NullProgressMonitor());
+                while (sequential.hasNext()) {
+                    order.add(sequential.next().getVersion());
+                }
+                opened.set(0);
+
+                // Versions are returned in the same order, and no more than depth versions are loaded ahead
+                final RF2Importer rf2i = new RF2Importer(input);
+                rf2i.setPrefetchDepth(depth);
+                rf2i.setSinglePass(singlePass);
+                final Iterator<Ontology> itr = rf2i.getOntologyVersions(new NullProgressMonitor());
+                for (String version : order) {
+                    Assert.assertTrue(itr.hasNext());
+                    final Ontology o = itr.next();
+                    Assert.assertEquals(version, o.getVersion());
+                    Assert.assertEquals(expected.get(version), new HashSet<>(o.getStatedAxioms()));
+                    if (!singlePass && version.equals(order.get(0))) {
+                        Assert.assertTrue(opened.get() <= 1 + depth);
+                    }
+                }
+                Assert.assertFalse(itr.hasNext());
+                Assert.assertEquals(singlePass ? 1 : versions.length, opened.get());
+            }
+        }
+
+        // Closing an abandoned iterator stops the prefetch thread
+        final RF2Importer abandoned = new RF2Importer(createInput(versions));
+        abandoned.setPrefetchDepth(2);
+        final RF2Importer.OntologyInterator itr = abandoned.getOntologyVersions(new NullProgressMonitor());
+        itr.next();
+        itr.close();
+        Assert.assertTrue(waitForThreads("rf2-prefetch"));
+
+        // So does a failure while loading a version
+        final AtomicInteger opened = new AtomicInteger();
+        final RF2Importer failing = new RF2Importer(createInput(new RF2Input() {
+            @Override
+            public InputStream getInputStream(String name) throws IOException {
+                if (name.equals("/rf2_full_con_test.txt") && opened.incrementAndGet() > 1) {
+                    throw new IOException("Test failure");
+                }
+                return super.getInputStream(name);
+            }
+        }, versions));
+        failing.setPrefetchDepth(2);
+        final Iterator<Ontology> failingItr = failing.getOntologyVersions(new NullProgressMonitor());
+        failingItr.next();
+        try {
+            failingItr.next();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        Assert.assertTrue(waitForThreads("rf2-prefetch"));
+    }
+
+    @Test
+    public void testParallelBuild() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final RF2Importer rf2i = new RF2Importer(createInput("20110531", "20121130"));
+            rf2i.setForkJoinPool(pool);
+            rf2i.setParallelBuild(true);
+            Assert.assertEquals(expected, importAll(rf2i));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testHashConsing() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+        final RF2Importer rf2i = new RF2Importer(createInput("20110531", "20121130"));
+        rf2i.setHashConsing(true);
+        Assert.assertEquals(expected, importAll(rf2i));
+
+        // Only factories of importers with hash-consing enabled return canonical instances
+        final RF2Importer.Factory consing = new RF2Importer.Factory(true);
+        final Concept e1 = consing.getExistential(consing.getRole(363698007L), consing.getConcept(71341001L));
+        final Concept e2 = new RF2Importer.Factory(true).getExistential(new NamedRole("363698007"),
+                new NamedConcept("71341001"));
+        Assert.assertSame(e1, e2);
+        final RF2Importer.Factory plain = new RF2Importer.Factory();
+        final Concept e3 = plain.getExistential(plain.getRole(363698007L), plain.getConcept(71341001L));
+        Assert.assertNotSame(e1, e3);
+        Assert.assertEquals(e1, e3);
+    }
+
+    @Test
+    public void testFactoryNonSctidIds() throws Exception {
+        final RF2Importer.Factory factory = new RF2Importer.Factory();
+
+        // Unit ids of concrete domain members can be any string
+        for (String id : new String[] { "mg", "0123", "1234567890123456789012" }) {
+            final Concept unit = factory.getConcept(id);
+            Assert.assertEquals(id, ((NamedConcept) unit).getId());
+            Assert.assertSame(unit, factory.getConcept(id));
+        }
+        Assert.assertSame(factory.getConcept(258684004L), factory.getConcept("258684004"));
+    }
+
+    @Test
+    public void testFactoryConcurrency() throws Exception {
+        final RF2Importer.Factory factory = new RF2Importer.Factory();
+        final int numIds = 2000;
+        final int numThreads = 4;
+        final List<Callable<Object[]>> tasks = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int offset = t * 37;
+            tasks.add(() -> {
+                // Each thread looks up the ids in a different order, mixing the long and String forms
+                final Object[] res = new Object[numIds * 2];
+                for (int i = 0; i < numIds; i++) {
+                    final int j = (i + offset) % numIds;
+                    final long id = 100000000L + j;
+                    res[j] = (j % 2 == 0) ? factory.getConcept(id) : factory.getConcept(Long.toString(id));
+                    res[numIds + j] = (j % 2 == 0) ? factory.getRole(id) : factory.getRole(Long.toString(id));
+                }
+                return res;
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<Object[]>> results = executor.invokeAll(tasks);
+            final Object[] first = results.get(0).get();
+            for (Future<Object[]> result : results) {
+                final Object[] res = result.get();
+                for (int i = 0; i < res.length; i++) {
+                    Assert.assertSame(first[i], res[i]);
+                }
+            }
+            for (int j = 0; j < numIds; j++) {
+                Assert.assertEquals(Long.toString(100000000L + j), ((NamedConcept) first[j]).getId());
+                Assert.assertEquals(Long.toString(100000000L + j), ((NamedRole) first[numIds + j]).getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testNativeOwlParsing() throws Exception {
+        final RF2Importer owlApi = new RF2Importer(createOwlInput());
+        Assert.assertFalse(owlApi.nativeOwlParsing);
+        final Map<String, Set<Axiom>> expected = importAll(owlApi);
+
+        // The annotated axiom is not supported by the parser and is loaded with the OWL API
+        final RF2Importer parsed = new RF2Importer(createOwlInput());
+        parsed.setNativeOwlParsing(true);
+        final Map<String, Set<Axiom>> actual = importAll(parsed);
+        Assert.assertEquals(expected, actual);
+
+        final Set<Axiom> axioms = actual.get("20121130");
+        Assert.assertTrue(axioms.contains(Factory.createConceptInclusion(Factory.createNamedConcept("9"),
+                Factory.createNamedConcept("3"))));
+        Assert.assertTrue(axioms.contains(Factory.createRoleInclusion(new Role[] {
+                Factory.createNamedRole("363701004"), Factory.createNamedRole("738774007") },
+                Factory.createNamedRole("363701004"))));
+        Assert.assertTrue(axioms.contains(Factory.createConceptInclusion(Factory.createNamedConcept("3"),
+                Factory.createNamedConcept("2"))));
+        Assert.assertFalse(axioms.contains(Factory.createConceptInclusion(Factory.createNamedConcept("8"),
+                Factory.createNamedConcept("3"))));
+    }
+
+    private static RF2Input createOwlInput() {
+        final RF2Input input = createInput("20121130");
+        input.setOwlExpressionRefsetFiles(Collections.singleton("/rf2_full_owl_test.txt"));
+        return input;
+    }
+
+    @Test
+    public void testColumnar() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final RF2Importer rf2i = new RF2Importer(createInput("20110531", "20121130"));
+        rf2i.setColumnar(true);
+        Assert.assertEquals(expected, importAll(rf2i));
+
+        final VersionRows rows = rf2i.getVersionRows(createInput("20110531"), ROOT_MODULE, "20110531");
+        final ColumnarVersionRows columns = ColumnarVersionRows.copyOf(rows);
+        Assert.assertEquals(new ArrayList<>(rows.getConceptRows()), new ArrayList<>(columns.getConceptRows()));
+        Assert.assertEquals(new ArrayList<>(rows.getStatedRelationshipRows()),
+                new ArrayList<>(columns.getStatedRelationshipRows()));
+
+        final RelationshipCursor cursor = columns.statedRelationshipCursor();
+        for (RelationshipRow row : rows.getStatedRelationshipRows()) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(Long.parseLong(row.getSourceId()), cursor.getSourceId());
+            Assert.assertEquals(Long.parseLong(row.getTypeId()), cursor.getTypeId());
+            Assert.assertEquals(row.getPackedEffectiveTime(), cursor.getEffectiveTime());
+        }
+        Assert.assertFalse(cursor.next());
+
+        // Columnar rows can be merged
+        final VersionRows merged = ColumnarVersionRows.copyOf(rows);
+        merged.merge(rows);
+        Assert.assertEquals(2 * rows.getStatedRelationshipRows().size(), merged.getStatedRelationshipRows().size());
+    }
+
+    @Test
+    public void testColumnarConcreteValues() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final RF2Input input = createInput("20110531", "20121130");
+        input.setNnfConcreteDomainsFiles(Collections.singleton("/rf2_full_concrete_values_test.txt"));
+        final RF2Importer rf2i = new RF2Importer(input);
+        rf2i.setColumnar(true);
+        Assert.assertEquals(expected, importAll(rf2i));
+
+        final VersionRows plain = rf2i.getVersionRows(input, ROOT_MODULE, "20110531");
+        final ColumnarVersionRows rows = ColumnarVersionRows.copyOf(plain);
+        Assert.assertEquals(new ArrayList<>(plain.getInferredRelationshipRows()),
+                new ArrayList<>(rows.getInferredRelationshipRows()));
+        final Set<String> values = new HashSet<>();
+        for (RelationshipRow row : rows.getInferredRelationshipRows()) {
+            values.add(row.getDestinationId());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("#500", "\"mg\"")), values);
+
+        for (RelationshipCursor cursor : new RelationshipCursor[] { rows.inferredRelationshipCursor(),
+                plain.inferredRelationshipCursor() }) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(-1, cursor.getDestinationId());
+            Assert.assertEquals(2, cursor.getSourceId());
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(-1, cursor.getDestinationId());
+            Assert.assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void testZip() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final String[] names = { "der2_ssRefset_ModuleDependencyFull_AU1000036_20121130.txt", "rf2_full_con_test.txt",
+                "rf2_full_rel_test.txt" };
+        final File zip = File.createTempFile("rf2", ".zip");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+                for (String name : names) {
+                    out.putNextEntry(new ZipEntry(name));
+                    out.write(Files.readAllBytes(new File(getClass().getResource("/" + name).toURI()).toPath()));
+                    out.closeEntry();
+                }
+            }
+
+            for (boolean readAhead : new boolean[] { false, true }) {
+                final RF2Input input = createInput("20110531", "20121130");
+                input.setInputType(InputType.EXTERNAL);
+                input.setBase(zip.getAbsolutePath());
+                input.setReadAhead(readAhead);
+                input.setModuleDependenciesRefsetFiles(Collections.singleton(names[0]));
+                input.setConceptsFiles(Collections.singleton(names[1]));
+                input.setStatedRelationshipsFiles(Collections.singleton(names[2]));
+                try {
+                    Assert.assertEquals(expected, importAll(new RF2Importer(input)));
+
+                    // The importer closes the input, which stops the read-ahead thread
+                    Assert.assertTrue(waitForThreads("input-read-ahead"));
+
+                    // Entries can be streamed concurrently, and the input is opened again after being closed
+                    for (int i = 0; i < 2; i++) {
+                        try (InputStream con = input.getInputStream(names[1]);
+                                InputStream rel = input.getInputStream(names[2])) {
+                            final byte[] conBytes = readAll(con);
+                            final byte[] relBytes = readAll(rel);
+                            Assert.assertTrue(Arrays.equals(Files.readAllBytes(
+                                    new File(getClass().getResource("/" + names[1]).toURI()).toPath()), conBytes));
+                            Assert.assertTrue(Arrays.equals(Files.readAllBytes(
+                                    new File(getClass().getResource("/" + names[2]).toURI()).toPath()), relBytes));
+                        }
+                        input.close();
+                    }
+                } finally {
+                    input.close();
+                }
+            }
+        } finally {
+            zip.delete();
+        }
+    
+        // The input is kept open while its versions are loaded and closed once at the end
+        for (int depth : new int[] { 0, 2 }) {
+            final AtomicInteger closed = new AtomicInteger();
+            final RF2Importer rf2i = new RF2Importer(createInput(new RF2Input() {
+                @Override
+                public synchronized void close() throws IOException {
+                    closed.incrementAndGet();
+                    super.close();
+                }
+            }, "20110531", "20121130"));
+            rf2i.setPrefetchDepth(depth);
+            Assert.assertEquals(expected, importAll(rf2i));
+            Assert.assertEquals(1, closed.get());
+        }
+    }
+
+    /**
+     * Waits for the background threads with a name to finish. Returns false if one is still alive after five seconds.
+     */
+    private static boolean waitForThreads(String name) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            boolean alive = false;
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                alive |= t.isAlive() && name.equals(t.getName());
+            }
+            if (!alive) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[8192];
+        int read;
+        while ((read = in.read(buf)) >= 0) {
+            out.write(buf, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final Map<String, Set<Axiom>> expected = importAll(new RF2Importer(createInput("20110531", "20121130")));
+
+        final File dir = Files.createTempDirectory("rf2cache").toFile();
+        try {
+            final RF2Importer miss = new RF2Importer(createInput("20110531", "20121130"));
+            miss.setCacheDirectory(dir);
+            Assert.assertEquals(expected, importAll(miss));
+            Assert.assertEquals(2, dir.listFiles().length);
+
+            final RF2Importer hit = new RF2Importer(createInput("20110531", "20121130"));
+            hit.setCacheDirectory(dir);
+            Assert.assertEquals(expected, importAll(hit));
+            Assert.assertEquals(2, dir.listFiles().length);
+
+            // Corrupt cache files are discarded and written again
+            for (File file : dir.listFiles()) {
+                Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+            }
+            final RF2Importer corrupt = new RF2Importer(createInput("20110531", "20121130"));
+            corrupt.setCacheDirectory(dir);
+            Assert.assertEquals(expected, importAll(corrupt));
+            for (File file : dir.listFiles()) {
+                Assert.assertTrue(file.length() > 3);
+            }
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testCacheInvalidation() throws Exception {
+        final File dir = Files.createTempDirectory("rf2").toFile();
+        final File cacheDir = new File(dir, "cache");
+        final String[] names = { "der2_ssRefset_ModuleDependencyFull_AU1000036_20121130.txt", "rf2_full_con_test.txt",
+                "rf2_full_rel_test.txt" };
+        try {
+            for (String name : names) {
+                Files.copy(new File(getClass().getResource("/" + name).toURI()).toPath(),
+                        new File(dir, name).toPath());
+            }
+            final RF2Input input = createInput("20110531");
+            input.setInputType(InputType.EXTERNAL);
+            input.setBase(dir.getAbsolutePath());
+            input.setModuleDependenciesRefsetFiles(Collections.singleton(names[0]));
+            input.setConceptsFiles(Collections.singleton(names[1]));
+            input.setStatedRelationshipsFiles(Collections.singleton(names[2]));
+
+            final NamedConcept c2 = new NamedConcept("2");
+            final NamedConcept c3 = new NamedConcept("3");
+            final RF2Importer first = new RF2Importer(input);
+            first.setCacheDirectory(cacheDir);
+            Assert.assertTrue(importAll(first).get("20110531").contains(new ConceptInclusion(c2, c3)));
+            Assert.assertEquals(1, cacheDir.listFiles().length);
+
+            // Same size, different modification time: relationship 8 is inactivated
+            final File rel = new File(dir, names[2]);
+            final long size = rel.length();
+            final long modified = rel.lastModified();
+            final String text = new String(Files.readAllBytes(rel.toPath()), "UTF-8");
+            Files.write(rel.toPath(), text.replace("8\t20030131\t1\t", "8\t20030131\t0\t").getBytes("UTF-8"));
+            Assert.assertTrue(rel.setLastModified(modified + 10000));
+            Assert.assertEquals(size, rel.length());
+
+            final RF2Importer touched = new RF2Importer(input);
+            touched.setCacheDirectory(cacheDir);
+            Assert.assertFalse(importAll(touched).get("20110531").contains(new ConceptInclusion(c2, c3)));
+
+            // Different size, same modification time: relationship 8 is active again in a later row
+            final long before = rel.lastModified();
+            Files.write(rel.toPath(), (text.replace("8\t20030131\t1\t", "8\t20030131\t0\t").trim()
+                    + "\n8\t20040131\t1\t900000000000207008\t2\t3\t0\t116680003\t900000000000010007\t"
+                    + "900000000000451002\n").getBytes("UTF-8"));
+            Assert.assertTrue(rel.setLastModified(before));
+            Assert.assertTrue(rel.length() > size);
+
+            final RF2Importer grown = new RF2Importer(input);
+            grown.setCacheDirectory(cacheDir);
+            Assert.assertTrue(importAll(grown).get("20110531").contains(new ConceptInclusion(c2, c3)));
+            Assert.assertEquals(1, cacheDir.listFiles().length);
+        } finally {
+            for (File dirs : new File[] { cacheDir, dir }) {
+                final File[] files = dirs.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testApplyDelta() throws Exception {
+        final RF2Importer rf2i = new RF2Importer(createInput("20110531"));
+        final VersionRows base = rf2i.getVersionRows(createInput("20110531"), ROOT_MODULE, "20110531");
+
+        // Concept 1 is inactivated and concept 4 is new. Relationship 8 now points to 4, 9 is inactivated and 10 is
+        // new. The row of relationship 7 is older than the one in the base, so it is ignored.
+        final RF2Input delta = createInput("20121130");
+        delta.setReleaseType(ReleaseType.INCREMENTAL);
+        delta.setConceptsFiles(Collections.singleton("/rf2_delta_con_test.txt"));
+        delta.setStatedRelationshipsFiles(Collections.singleton("/rf2_delta_rel_test.txt"));
+
+        final DeltaResult res = rf2i.applyDelta(base, delta, new NullProgressMonitor());
+        Assert.assertEquals("20121130", res.getOntology().getVersion());
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("1", "4", "2")), res.getChangedConcepts());
+
+        final Map<String, ConceptRow> concepts = new HashMap<>();
+        for (ConceptRow row : res.getVersionRows().getConceptRows()) {
+            Assert.assertNull(concepts.put(row.getId(), row));
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4")), concepts.keySet());
+        Assert.assertEquals("0", concepts.get("1").getActive());
+        Assert.assertEquals("20120131", concepts.get("1").getEffectiveTime());
+        Assert.assertEquals("1", concepts.get("4").getActive());
+
+        final Map<String, RelationshipRow> rels = new HashMap<>();
+        for (RelationshipRow row : res.getVersionRows().getStatedRelationshipRows()) {
+            Assert.assertNull(rels.put(row.getId(), row));
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("7", "8", "9", "10")), rels.keySet());
+        Assert.assertEquals("1", rels.get("7").getActive());
+        Assert.assertEquals("20020131", rels.get("7").getEffectiveTime());
+        Assert.assertEquals("4", rels.get("8").getDestinationId());
+        Assert.assertEquals("0", rels.get("9").getActive());
+        Assert.assertEquals("3", rels.get("10").getDestinationId());
+
+        final NamedConcept c2 = new NamedConcept("2");
+        final NamedConcept c3 = new NamedConcept("3");
+        final NamedConcept c4 = new NamedConcept("4");
+        Assert.assertEquals(new HashSet<>(Arrays.asList(new ConceptInclusion(c2, c4), new ConceptInclusion(c4, c3))),
+                new HashSet<>(res.getOntology().getStatedAxioms()));
+
+        // Applying the same delta again changes nothing
+        final DeltaResult again = rf2i.applyDelta(res.getVersionRows(), delta, new NullProgressMonitor());
+        Assert.assertTrue(again.getChangedConcepts().isEmpty());
+        Assert.assertEquals(new HashSet<>(res.getOntology().getStatedAxioms()),
+                new HashSet<>(again.getOntology().getStatedAxioms()));
+
+        // Unpublished rows have a blank effective time and replace the published ones
+        final RF2Input unpublished = createInput("20121130");
+        unpublished.setReleaseType(ReleaseType.INCREMENTAL);
+        unpublished.setConceptsFiles(Collections.singleton("/rf2_delta_con_test.txt"));
+        unpublished.setStatedRelationshipsFiles(Collections.singleton("/rf2_delta_unpublished_rel_test.txt"));
+        final DeltaResult pre = rf2i.applyDelta(res.getVersionRows(), unpublished, new NullProgressMonitor());
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("2", "3")), pre.getChangedConcepts());
+        rels.clear();
+        for (RelationshipRow row : pre.getVersionRows().getStatedRelationshipRows()) {
+            Assert.assertNull(rels.put(row.getId(), row));
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("7", "8", "9", "10", "11")), rels.keySet());
+        Assert.assertEquals("3", rels.get("8").getDestinationId());
+        Assert.assertEquals("", rels.get("8").getEffectiveTime());
+        Assert.assertEquals("2", rels.get("11").getDestinationId());
+        Assert.assertTrue(new HashSet<>(pre.getOntology().getStatedAxioms()).containsAll(Arrays.asList(
+                new ConceptInclusion(c2, c3), new ConceptInclusion(c3, c2))));
+    }
+
+    static RF2Input createInput(String... versions) {
+        return createInput(new RF2Input(), versions);
+    }
+
+    static RF2Input createInput(RF2Input input, String... versions) {
+        final Map<String, String> metadata = new HashMap<>();
+        metadata.put("conceptDefinedId", "900000000000073002");
+        metadata.put("someId", "900000000000451002");
+        metadata.put("isAId", "116680003");
+        metadata.put("conceptModelAttId", "410662002");
+        metadata.put("neverGroupedIds", "123005000,272741003,127489000,411116001");
+        metadata.put("roleGroupId", "609096000");
+
+        final List<Version> vs = new ArrayList<>();
+        for (String version : versions) {
+            final Version v = new Version(version);
+            v.setMetadata(metadata);
+            vs.add(v);
+        }
+        final ModuleInfo mi = new ModuleInfo(ROOT_MODULE);
+        mi.setVersions(vs);
+
+        input.setInputType(InputType.CLASSPATH);
+        input.setReleaseType(ReleaseType.FULL);
+        input.setModuleDependenciesRefsetFiles(Collections.singleton("/der2_ssRefset_ModuleDependencyFull_AU1000036_20121130.txt"));
+        input.setConceptsFiles(Collections.singleton("/rf2_full_con_test.txt"));
+        input.setStatedRelationshipsFiles(Collections.singleton("/rf2_full_rel_test.txt"));
+        input.setModules(Collections.singletonList(mi));
+        return input;
+    }
+
+    static List<String> relationshipIds(VersionRows rows) {
+        final List<String> res = new ArrayList<>();
+        for (RelationshipRow row : rows.getStatedRelationshipRows()) {
+            res.add(row.getId());
+        }
+        return res;
+    }
+
+    static Map<String, Set<Axiom>> importAll(RF2Importer rf2i) throws Exception {
+        final Map<String, Set<Axiom>> res = new HashMap<>();
+        final Iterator<Ontology> itr = rf2i.getOntologyVersions(new NullProgressMonitor());
+        while (itr.hasNext()) {
+            final Ontology o = itr.next();
+            res.put(o.getVersion(), new HashSet<>(o.getStatedAxioms()));
+        }
+        return res;
+    }
+
 }
@@ -4,9 +4,13 @@
  */
 package au.csiro.ontology;
 
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import au.csiro.ontology.model.Axiom;
 import au.csiro.ontology.model.BigIntegerLiteral;
@@ -41,6 +45,52 @@ import au.csiro.ontology.model.StringLiteral;
 @SuppressWarnings("deprecation")
 public class Factory {
 
+    private static final int STRIPES = 32;
+
+    /**
+     * Canonical instances of the expressions passed to {@link #canonical(Object)}. The table is split into stripes,
+     * each with its own lock, and only holds weak references, so expressions that are no longer used elsewhere can be
+     * garbage collected.
+     */
+    private static final Map<Object, WeakReference<Object>>[] canonical = newStripes();
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, WeakReference<Object>>[] newStripes() {
+        final Map<Object, WeakReference<Object>>[] res = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            res[i] = new WeakHashMap<>();
+        }
+        return res;
+    }
+
+    /**
+     * Returns the canonical instance of an expression, which is the expression itself if no equal expression has been
+     * made canonical before. This is used to hash-cons named concepts, named roles, existentials, conjunctions and
+     * datatype expressions: equal expressions are then the same instance and share their sub-expressions, which uses
+     * much less memory when the same expressions are created many times. Each call requires a look up in a table that
+     * is shared by all threads.
+     * <p>
+     * Canonical instances are shared by every caller that creates an equal expression, so they, and their
+     * sub-expressions, must not be modified.
+     *
+     * @param expression
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T canonical(T expression) {
+        final int h = expression.hashCode();
+        final Map<Object, WeakReference<Object>> stripe = canonical[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            final WeakReference<Object> ref = stripe.get(expression);
+            final Object res = (ref != null) ? ref.get() : null;
+            if (res != null) {
+                return (T) res;
+            }
+            stripe.put(expression, new WeakReference<Object>(expression));
+            return expression;
+        }
+    }
+
     public static Concept createNamedConcept(String id) {
         return new NamedConcept(id);
     }
@@ -57,6 +107,10 @@ public class Factory {
         return new Conjunction(concepts);
     }
 
+    public static Concept createConjunction(Collection<? extends Concept> concepts) {
+        return new Conjunction(concepts);
+    }
+
     public static Concept createExistential(Role role, Concept filler) {
         return new Existential(role, filler);
     }
@@ -0,0 +1,526 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import au.csiro.ontology.model.NamedConcept;
+
+/**
+ * An immutable taxonomy that uses a fraction of the memory of a map of {@link Node}s. Nodes are identified by an int
+ * index and their equivalent concepts, parents and children are stored in compressed sparse row arrays: the entries
+ * of node {@code n} are the elements of a flat array between {@code offsets[n]} and {@code offsets[n + 1]}. The
+ * concept ids are kept in a sorted array, which is used as a dictionary to find the node of a concept.
+ * <p>
+ * Node indexes are assigned in topological order, so parents always have lower indexes than their children.
+ * <p>
+ * {@link #getNode(String)} returns read-only {@link Node} views, so existing callers keep working. Views are created
+ * on demand and are equal if they represent the same node.
+ */
+public class FrozenTaxonomy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * All the concept ids, sorted.
+     */
+    private final String[] ids;
+
+    /**
+     * The node of each concept id.
+     */
+    private final int[] nodes;
+
+    private final int[] equivalentOffsets;
+    private final int[] equivalents;
+
+    private final int[] parentOffsets;
+    private final int[] parents;
+
+    private final int[] childOffsets;
+    private final int[] children;
+
+    private final int top;
+    private final int bottom;
+
+    private FrozenTaxonomy(String[] ids, int[] nodes, int[] equivalentOffsets, int[] equivalents,
+            int[] parentOffsets, int[] parents, int[] childOffsets, int[] children) {
+        this.ids = ids;
+        this.nodes = nodes;
+        this.equivalentOffsets = equivalentOffsets;
+        this.equivalents = equivalents;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.top = getNodeIndex(NamedConcept.TOP);
+        this.bottom = getNodeIndex(NamedConcept.BOTTOM);
+    }
+
+    /**
+     * Builds a frozen taxonomy from a map of nodes. Nodes that are reachable from the nodes in the map but are not in
+     * the map are also included.
+     *
+     * @param nodeMap
+     * @return
+     */
+    public static FrozenTaxonomy freeze(Map<String, Node> nodeMap) {
+        // Collect the nodes
+        final Map<Node, Integer> index = new IdentityHashMap<>();
+        final List<Node> all = new ArrayList<>();
+        final Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : nodeMap.values()) {
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                final Node n = stack.pop();
+                if (index.put(n, -1) == null) {
+                    all.add(n);
+                    stack.addAll(n.getParents());
+                    stack.addAll(n.getChildren());
+                }
+            }
+        }
+
+        // Number the nodes in topological order
+        final Map<Node, Integer> pending = new IdentityHashMap<>();
+        final Deque<Node> queue = new ArrayDeque<>();
+        for (Node n : all) {
+            final int numParents = n.getParents().size();
+            if (numParents == 0) {
+                queue.add(n);
+            } else {
+                pending.put(n, numParents);
+            }
+        }
+        final Node[] sorted = new Node[all.size()];
+        int numSorted = 0;
+        while (!queue.isEmpty()) {
+            final Node n = queue.poll();
+            index.put(n, numSorted);
+            sorted[numSorted++] = n;
+            for (Node child : n.getChildren()) {
+                final Integer remaining = pending.get(child);
+                if (remaining == null) {
+                    // Not a parent of the child
+                    continue;
+                } else if (remaining == 1) {
+                    pending.remove(child);
+                    queue.add(child);
+                } else {
+                    pending.put(child, remaining - 1);
+                }
+            }
+        }
+        // Nodes in cycles or with inconsistent parents and children
+        for (Node n : all) {
+            if (index.get(n) < 0) {
+                index.put(n, numSorted);
+                sorted[numSorted++] = n;
+            }
+        }
+
+        // Concept ids
+        final Set<String> idSet = new TreeSet<>();
+        int numEquivalents = 0;
+        for (Node n : sorted) {
+            idSet.addAll(n.getEquivalentConcepts());
+            numEquivalents += n.getEquivalentConcepts().size();
+        }
+        final String[] ids = idSet.toArray(new String[idSet.size()]);
+        final int[] nodes = new int[ids.length];
+        final int[] equivalentOffsets = new int[sorted.length + 1];
+        final int[] equivalents = new int[numEquivalents];
+        int pos = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            for (String id : new TreeSet<>(sorted[i].getEquivalentConcepts())) {
+                final int c = Arrays.binarySearch(ids, id);
+                nodes[c] = i;
+                equivalents[pos++] = c;
+            }
+            equivalentOffsets[i + 1] = pos;
+        }
+
+        final int[] parentOffsets = new int[sorted.length + 1];
+        final int[] childOffsets = new int[sorted.length + 1];
+        final int[] parents = toRows(sorted, index, parentOffsets, true);
+        final int[] children = toRows(sorted, index, childOffsets, false);
+
+        return new FrozenTaxonomy(ids, nodes, equivalentOffsets, equivalents, parentOffsets, parents, childOffsets,
+                children);
+    }
+
+    private static int[] toRows(Node[] sorted, Map<Node, Integer> index, int[] offsets, boolean parents) {
+        int size = 0;
+        for (Node n : sorted) {
+            size += (parents ? n.getParents() : n.getChildren()).size();
+        }
+        final int[] res = new int[size];
+        int pos = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            final int start = pos;
+            for (Node n : parents ? sorted[i].getParents() : sorted[i].getChildren()) {
+                res[pos++] = index.get(n);
+            }
+            Arrays.sort(res, start, pos);
+            offsets[i + 1] = pos;
+        }
+        return res;
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getNodeCount() {
+        return equivalentOffsets.length - 1;
+    }
+
+    /**
+     * @return The number of concepts.
+     */
+    public int getConceptCount() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the index of the node that contains a concept, or -1 if the concept is not in the taxonomy.
+     *
+     * @param id
+     * @return
+     */
+    public int getNodeIndex(String id) {
+        final int c = Arrays.binarySearch(ids, id);
+        return c < 0 ? -1 : nodes[c];
+    }
+
+    /**
+     * @return The index of the top node, or -1 if the taxonomy has no top node.
+     */
+    public int getTopIndex() {
+        return top;
+    }
+
+    /**
+     * @return The index of the bottom node, or -1 if the taxonomy has no bottom node.
+     */
+    public int getBottomIndex() {
+        return bottom;
+    }
+
+    public int getEquivalentCount(int node) {
+        return equivalentOffsets[node + 1] - equivalentOffsets[node];
+    }
+
+    public String getEquivalent(int node, int i) {
+        return ids[equivalents[equivalentOffsets[node] + i]];
+    }
+
+    public int getParentCount(int node) {
+        return parentOffsets[node + 1] - parentOffsets[node];
+    }
+
+    public int getParent(int node, int i) {
+        return parents[parentOffsets[node] + i];
+    }
+
+    public int getChildCount(int node) {
+        return childOffsets[node + 1] - childOffsets[node];
+    }
+
+    public int getChild(int node, int i) {
+        return children[childOffsets[node] + i];
+    }
+
+    /**
+     * Returns the {@link Node} that contains a concept, or null if the concept is not in the taxonomy.
+     *
+     * @param id
+     * @return
+     */
+    public Node getNode(String id) {
+        final int n = getNodeIndex(id);
+        return n < 0 ? null : getNode(n);
+    }
+
+    /**
+     * Returns a view of a node.
+     *
+     * @param node The index of the node.
+     * @return
+     */
+    public Node getNode(int node) {
+        if (node < 0 || node >= getNodeCount()) {
+            throw new IndexOutOfBoundsException("Invalid node " + node);
+        }
+        return new FrozenNode(this, node);
+    }
+
+    /**
+     * Returns the index of a node, or -1 if the node is not a view of this taxonomy.
+     *
+     * @param node
+     * @return
+     */
+    public int getNodeIndex(Node node) {
+        if (node instanceof FrozenNode && ((FrozenNode) node).taxonomy == this) {
+            return ((FrozenNode) node).index;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the frozen taxonomy of a node, or null if the node is not a view of a frozen taxonomy.
+     *
+     * @param node
+     * @return
+     */
+    public static FrozenTaxonomy getTaxonomy(Node node) {
+        return node instanceof FrozenNode ? ((FrozenNode) node).taxonomy : null;
+    }
+
+    /**
+     * @return An iterator over all the nodes, in topological order.
+     */
+    public Iterator<Node> nodeIterator() {
+        return new Iterator<Node>() {
+            int next = 0;
+
+            public boolean hasNext() {
+                return next < getNodeCount();
+            }
+
+            public Node next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getNode(next++);
+            }
+        };
+    }
+
+    /**
+     * @return A read-only view of the taxonomy as a map of nodes indexed by concept id.
+     */
+    public Map<String, Node> asMap() {
+        return new AbstractMap<String, Node>() {
+            @Override
+            public Node get(Object key) {
+                return key instanceof String ? getNode((String) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && Arrays.binarySearch(ids, key) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+
+            @Override
+            public Set<Map.Entry<String, Node>> entrySet() {
+                return new AbstractSet<Map.Entry<String, Node>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, Node>> iterator() {
+                        return new Iterator<Map.Entry<String, Node>>() {
+                            int next = 0;
+
+                            public boolean hasNext() {
+                                return next < ids.length;
+                            }
+
+                            public Map.Entry<String, Node> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                final int c = next++;
+                                return new AbstractMap.SimpleImmutableEntry<String, Node>(ids[c], getNode(nodes[c]));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return ids.length;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * A read-only view of a node of a frozen taxonomy.
+     */
+    private static class FrozenNode extends Node {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FrozenTaxonomy taxonomy;
+        private final int index;
+
+        FrozenNode(FrozenTaxonomy taxonomy, int index) {
+            super(false);
+            this.taxonomy = taxonomy;
+            this.index = index;
+        }
+
+        @Override
+        public Set<String> getEquivalentConcepts() {
+            final int start = taxonomy.equivalentOffsets[index];
+            final int end = taxonomy.equivalentOffsets[index + 1];
+            return new AbstractSet<String>() {
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof String && taxonomy.getNodeIndex((String) o) == index;
+                }
+
+                @Override
+                public Iterator<String> iterator() {
+                    return new RowIterator<String>(start, end) {
+                        @Override
+                        String get(int pos) {
+                            return taxonomy.ids[taxonomy.equivalents[pos]];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return end - start;
+                }
+            };
+        }
+
+        @Override
+        public Set<Node> getParents() {
+            return new NodeSet(taxonomy, taxonomy.parents, taxonomy.parentOffsets[index],
+                    taxonomy.parentOffsets[index + 1]);
+        }
+
+        @Override
+        public Set<Node> getChildren() {
+            return new NodeSet(taxonomy, taxonomy.children, taxonomy.childOffsets[index],
+                    taxonomy.childOffsets[index + 1]);
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof FrozenNode))
+                return false;
+            final FrozenNode other = (FrozenNode) obj;
+            return taxonomy == other.taxonomy && index == other.index;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("{");
+            final int start = taxonomy.equivalentOffsets[index];
+            final int end = taxonomy.equivalentOffsets[index + 1];
+            for (int i = start; i < end; i++) {
+                sb.append(taxonomy.ids[taxonomy.equivalents[i]]);
+                if (i + 1 < end)
+                    sb.append(", ");
+            }
+            sb.append("}");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A read-only set of the nodes in a row of one of the adjacency arrays.
+     */
+    private static class NodeSet extends AbstractSet<Node> {
+
+        private final FrozenTaxonomy taxonomy;
+        private final int[] row;
+        private final int start;
+        private final int end;
+
+        NodeSet(FrozenTaxonomy taxonomy, int[] row, int start, int end) {
+            this.taxonomy = taxonomy;
+            this.row = row;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            final int n = o instanceof Node ? taxonomy.getNodeIndex((Node) o) : -1;
+            return n >= 0 && Arrays.binarySearch(row, start, end, n) >= 0;
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for (Object o : c) {
+                if (!contains(o)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new RowIterator<Node>(start, end) {
+                @Override
+                Node get(int pos) {
+                    return taxonomy.getNode(row[pos]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    private static abstract class RowIterator<T> implements Iterator<T> {
+
+        private int pos;
+        private final int end;
+
+        RowIterator(int start, int end) {
+            this.pos = start;
+            this.end = end;
+        }
+
+        abstract T get(int pos);
+
+        public boolean hasNext() {
+            return pos < end;
+        }
+
+        public T next() {
+            if (pos >= end) {
+                throw new NoSuchElementException();
+            }
+            return get(pos++);
+        }
+    }
+
+}
@@ -24,20 +24,33 @@ public class Node implements Serializable {
     /**
      * Set of equivalent concepts in this node.
      */
-    protected final Set<String> equivalentConcepts = Collections.newSetFromMap(
-            new ConcurrentHashMap<String, Boolean>());
+    protected final Set<String> equivalentConcepts;
     
     /**
      * Set of parents nodes.
      */
-    protected final Set<Node> parents = Collections.newSetFromMap(
-            new ConcurrentHashMap<Node, Boolean>());
+    protected final Set<Node> parents;
     
     /**
      * Set of child nodes.
      */
-    protected final Set<Node> children = Collections.newSetFromMap(
-            new ConcurrentHashMap<Node, Boolean>());
+    protected final Set<Node> children;
+
+    public Node() {
+        this(true);
+    }
+
+    /**
+     * Creates a node. Subclasses that override the getters to provide their own views, such as the nodes of a
+     * {@link FrozenTaxonomy}, can pass false so the sets are not allocated, in which case the fields are null.
+     *
+     * @param allocate
+     */
+    protected Node(boolean allocate) {
+        equivalentConcepts = allocate ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()) : null;
+        parents = allocate ? Collections.newSetFromMap(new ConcurrentHashMap<Node, Boolean>()) : null;
+        children = allocate ? Collections.newSetFromMap(new ConcurrentHashMap<Node, Boolean>()) : null;
+    }
 
     /**
      * @return the equivalentConcepts
@@ -63,6 +76,7 @@ public class Node implements Serializable {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        Set<String> equivalentConcepts = getEquivalentConcepts();
         int size = equivalentConcepts.size();
         int i = 0;
         sb.append("{");
@@ -56,6 +56,11 @@ public class Ontology {
      */
     protected final Set<Node> lastAffectedNodes = new HashSet<Node>();
     
+    /**
+     * The taxonomy in compact form, or null if the taxonomy has not been frozen.
+     */
+    protected FrozenTaxonomy frozenTaxonomy;
+    
     /**
      * Builds a new ontology.
      * 
@@ -99,17 +104,67 @@ public class Ontology {
     }
     
     public Node getNode(String id) {
+        if(frozenTaxonomy != null) {
+            return frozenTaxonomy.getNode(id);
+        }
         return nodeMap.get(id);
     }
 
     public Iterator<Node> nodeIterator() {
+        if(frozenTaxonomy != null) {
+            return frozenTaxonomy.nodeIterator();
+        }
         Set<Node> set = new HashSet<Node>(nodeMap.values());
         return set.iterator();
     }
     
+    /**
+     * Returns the nodes of the taxonomy indexed by concept id. If the taxonomy has been frozen the map is a read-only 
+     * view of the frozen taxonomy.
+     * 
+     * @return
+     */
     public Map<String, Node> getNodeMap() {
+        if(frozenTaxonomy != null) {
+            return frozenTaxonomy.asMap();
+        }
         return nodeMap;
     }
+    
+    /**
+     * Replaces the taxonomy with a {@link FrozenTaxonomy}, which uses a fraction of the memory. The nodes returned 
+     * afterwards are read-only views. Setting a new node map replaces the frozen taxonomy.
+     */
+    public void freeze() {
+        if(frozenTaxonomy != null) {
+            return;
+        }
+        frozenTaxonomy = FrozenTaxonomy.freeze(nodeMap);
+        final Set<Node> affected = new HashSet<Node>();
+        for(Node node : lastAffectedNodes) {
+            Iterator<String> it = node.getEquivalentConcepts().iterator();
+            if(it.hasNext()) {
+                affected.add(frozenTaxonomy.getNode(it.next()));
+            }
+        }
+        lastAffectedNodes.clear();
+        lastAffectedNodes.addAll(affected);
+        nodeMap.clear();
+    }
+    
+    /**
+     * @return true if the taxonomy has been frozen.
+     */
+    public boolean isFrozen() {
+        return frozenTaxonomy != null;
+    }
+    
+    /**
+     * @return The frozen taxonomy, or null if the taxonomy has not been frozen.
+     */
+    public FrozenTaxonomy getFrozenTaxonomy() {
+        return frozenTaxonomy;
+    }
 
     public Node getTopNode() {
         return getNode(NamedConcept.TOP);
@@ -120,6 +175,7 @@ public class Ontology {
     }
     
     public void setNodeMap(Map<String, Node> nodeMap) {
+        this.frozenTaxonomy = null;
         this.nodeMap.clear();
         this.nodeMap.putAll(nodeMap);
     }
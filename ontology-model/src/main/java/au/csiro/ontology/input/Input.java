@@ -5,6 +5,19 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 
@@ -29,8 +42,23 @@ public abstract class Input {
     protected InputType inputType;
     protected String base;
 
+    /**
+     * The ZIP file that contains the inputs, when the base is a ZIP file. It is opened when the first file is read and
+     * shared by all the streams, which can be read concurrently, until the input is closed.
+     */
     protected ZipFile zip = null;
 
+    /**
+     * Indicates if the next file of the read-ahead order should be inflated in the background while the current one is
+     * read. Only used with ZIP files.
+     */
+    protected boolean readAhead = false;
+
+    private Map<String, ZipEntry> zipEntries;
+    private List<String> readAheadOrder = Collections.emptyList();
+    private final Map<String, ReadAheadStream> readAheadStreams = new HashMap<>();
+    private ExecutorService readAheadExecutor;
+
     /**
      * @return the type
      */
@@ -59,6 +87,34 @@ public abstract class Input {
         this.base = base;
     }
 
+    /**
+     * @return true if files in ZIP files are inflated ahead of time
+     */
+    public boolean isReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * Indicates if, when the base is a ZIP file, the next file should be inflated in a background thread while the
+     * current one is read. The order of the files is set with {@link #scheduleReadAhead(List)}. At most 16MB of each
+     * file are inflated ahead.
+     *
+     * @param readAhead
+     */
+    public void setReadAhead(boolean readAhead) {
+        this.readAhead = readAhead;
+    }
+
+    /**
+     * Sets the order in which files are going to be read. When read-ahead is enabled and one of these files is opened,
+     * the next one is inflated in the background.
+     *
+     * @param names
+     */
+    public synchronized void scheduleReadAhead(List<String> names) {
+        readAheadOrder = new ArrayList<>(names);
+    }
+
     public InputStream getInputStream(String name) throws IOException {
         final InputType type = getInputType();
 
@@ -74,8 +130,7 @@ public abstract class Input {
                         file = new File(baseFile, name);        // Relative name resolved against base
                     }
                 } else {
-                    zip = new ZipFile(base);                    // name resolved in Zip file
-                    return zip.getInputStream(zip.getEntry(name));
+                    return getZipInputStream(name);             // name resolved in Zip file
                 }
             } else {
                 file = new File(name);                          // No base; default name resolution
@@ -93,15 +148,217 @@ public abstract class Input {
         }
     }
 
+    private synchronized InputStream getZipInputStream(String name) throws IOException {
+        final ReadAheadStream res = readAheadStreams.remove(name);
+        readAheadNext(name);
+        if (res != null) {
+            return res;
+        }
+        final ZipEntry entry = getZipEntries().get(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name + " not found in " + base);
+        }
+        // Opening a stream doesn't inflate anything, and reading it doesn't need the lock
+        return zip.getInputStream(entry);
+    }
+
+    /**
+     * Opens the ZIP file, if needed, and returns its entries.
+     */
+    private synchronized Map<String, ZipEntry> getZipEntries() throws IOException {
+        if (zip == null) {
+            zip = new ZipFile(base);
+            zipEntries = null;
+        }
+        if (zipEntries == null) {
+            zipEntries = new HashMap<>();
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                zipEntries.put(entry.getName(), entry);
+            }
+        }
+        return zipEntries;
+    }
+
+    /**
+     * Starts inflating the file that follows a file in the read-ahead order.
+     */
+    private synchronized void readAheadNext(String name) throws IOException {
+        final int index = readAheadOrder.indexOf(name);
+        if (!readAhead || index < 0 || index + 1 >= readAheadOrder.size()) {
+            return;
+        }
+        final String next = readAheadOrder.get(index + 1);
+        final ZipEntry entry = getZipEntries().get(next);
+        if (entry == null || readAheadStreams.containsKey(next)) {
+            return;
+        }
+
+        if (readAheadExecutor == null) {
+            readAheadExecutor = Executors.newSingleThreadExecutor(r -> {
+                final Thread t = new Thread(r, "input-read-ahead");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        final ReadAheadStream stream = new ReadAheadStream();
+        final InputStream in = zip.getInputStream(entry);
+        readAheadStreams.put(next, stream);
+        readAheadExecutor.execute(() -> stream.fill(in));
+    }
+
+    /**
+     * Returns the file in the local file system that contains the named input, or null if the input is not a plain
+     * file (for example, when it is loaded from the class path or from inside a ZIP file). This allows callers to use
+     * random access or memory mapping on large inputs.
+     *
+     * @param name
+     * @return
+     */
+    public File getFile(String name) {
+        if (!InputType.EXTERNAL.equals(getInputType())) {
+            return null;
+        }
+
+        final File file;
+        if (base != null) {
+            File baseFile = new File(base);
+            if (!baseFile.isDirectory()) {
+                return null;                                    // name resolved in Zip file
+            }
+            File child = new File(name);
+            file = child.isAbsolute() ? child : new File(baseFile, name);
+        } else {
+            file = new File(name);
+        }
+
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Discards the files that were inflated ahead of time but have not been opened, and stops the background thread.
+     * Reading ahead starts again when the next file of the read-ahead order is opened.
+     */
+    public synchronized void cancelReadAhead() {
+        for (ReadAheadStream stream : readAheadStreams.values()) {
+            stream.close();
+        }
+        readAheadStreams.clear();
+        if (null != readAheadExecutor) {
+            readAheadExecutor.shutdownNow();
+            readAheadExecutor = null;
+        }
+    }
+
     /**
      * Release internal state.
      * <p>
      * Note that this will close any InputStreams linked to a base Zip file.
      */
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        cancelReadAhead();
         if (null != zip) {
             zip.close();
             zip = null;
+            zipEntries = null;
+        }
+    }
+
+    /**
+     * A stream whose contents are read from another stream by a background thread, in chunks. Only a bounded number of
+     * chunks are buffered.
+     */
+    private static final class ReadAheadStream extends InputStream {
+        private static final int CHUNK_SIZE = 256 * 1024;
+        private static final byte[] EOF = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(64);
+        private volatile IOException error;
+        private volatile boolean closed = false;
+
+        private byte[] chunk;
+        private int pos;
+
+        /**
+         * Reads a stream into the buffer. Called by the background thread.
+         */
+        void fill(InputStream in) {
+            try (InputStream is = in) {
+                while (!closed) {
+                    final byte[] buf = new byte[CHUNK_SIZE];
+                    int len = 0;
+                    int read;
+                    while (len < buf.length && (read = is.read(buf, len, buf.length - len)) >= 0) {
+                        len += read;
+                    }
+                    if (len == 0) {
+                        break;
+                    }
+                    chunks.put(len == buf.length ? buf : Arrays.copyOf(buf, len));
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                error = new IOException("Interrupted while reading ahead", e);
+            } finally {
+                try {
+                    while (!closed && !chunks.offer(EOF, 100, TimeUnit.MILLISECONDS)) {
+                        // Wait until there is space or the stream is closed
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (chunk == EOF) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+                pos = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading ahead", e);
+            }
+            if (chunk == EOF) {
+                if (error != null) {
+                    throw error;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) {
+                return -1;
+            }
+            return chunk[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if ((chunk == null || pos == chunk.length) && !nextChunk()) {
+                return -1;
+            }
+            final int n = Math.min(len, chunk.length - pos);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            // Unblocks the background thread
+            chunks.clear();
         }
     }
 
@@ -55,6 +55,11 @@ public enum StructuredLog {
     GroupingError("Found grouped relationship for attribute type marked as never-grouped: %s", "attribute"),
     UngroupedConcreteDomains("Concrete domain data supplied (%s) for never-grouped attribute: %s", "relationshipId", "attribute"),
 
+    CacheHit("Loaded rows from cache file %s", "file"),
+    CacheMiss("No cache file %s", "file"),
+    CacheInvalidated("Discarded stale cache file %s", "file"),
+    CacheWriteFailure("Unable to write cache file %s", "file", "exception"),
+
     None(null); // sentinal; do not use
 
     final private static String PREFIX = "json: ";
@@ -20,6 +20,12 @@ public class Datatype extends Concept {
     private Operator operator;
     
     private Literal literal;
+
+    /**
+     * Cached hash code, or zero if it has not been computed yet. It is reset by the setters, but not when a
+     * sub-expression is modified, so expressions must not be modified after they are used as keys or made canonical.
+     */
+    private transient int hashCode;
     
     /**
      * 
@@ -38,6 +44,7 @@ public class Datatype extends Concept {
         this.feature = feature;
         this.operator = operator;
         this.literal = literal;
+        hashCode = 0;
     }
 
     public Feature getFeature() {
@@ -57,6 +64,7 @@ public class Datatype extends Concept {
      */
     public void setFeature(Feature feature) {
         this.feature = feature;
+        hashCode = 0;
     }
 
     /**
@@ -64,6 +72,7 @@ public class Datatype extends Concept {
      */
     public void setOperator(Operator operator) {
         this.operator = operator;
+        hashCode = 0;
     }
 
     /**
@@ -71,6 +80,7 @@ public class Datatype extends Concept {
      */
     public void setLiteral(Literal literal) {
         this.literal = literal;
+        hashCode = 0;
     }
 
     @Override
@@ -80,11 +90,15 @@ public class Datatype extends Concept {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((feature == null) ? 0 : feature.hashCode());
-        result = prime * result + ((literal == null) ? 0 : literal.hashCode());
-        result = prime * result + ((operator == null) ? 0 : operator.hashCode());
+        int result = hashCode;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + ((feature == null) ? 0 : feature.hashCode());
+            result = prime * result + ((literal == null) ? 0 : literal.hashCode());
+            result = prime * result + ((operator == null) ? 0 : operator.hashCode());
+            hashCode = result;
+        }
         return result;
     }
 
@@ -21,6 +21,12 @@ public class Existential extends Concept {
     private Role role;
     
     private Concept concept;
+
+    /**
+     * Cached hash code, or zero if it has not been computed yet. It is reset by the setters, but not when a
+     * sub-expression is modified, so expressions must not be modified after they are used as keys or made canonical.
+     */
+    private transient int hashCode;
     
     /**
      * 
@@ -57,6 +63,7 @@ public class Existential extends Concept {
      */
     public void setRole(Role role) {
         this.role = role;
+        hashCode = 0;
     }
 
     /**
@@ -64,14 +71,19 @@ public class Existential extends Concept {
      */
     public void setConcept(Concept concept) {
         this.concept = concept;
+        hashCode = 0;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((concept == null) ? 0 : concept.hashCode());
-        result = prime * result + ((role == null) ? 0 : role.hashCode());
+        int result = hashCode;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + ((concept == null) ? 0 : concept.hashCode());
+            result = prime * result + ((role == null) ? 0 : role.hashCode());
+            hashCode = result;
+        }
         return result;
     }
 
@@ -113,7 +113,9 @@ public class NamedConcept extends Concept {
     @Override
     public int compareTo(Concept other) {
         if(!(other instanceof NamedConcept)) {
-            return -1;
+            // Same order as the other types of concepts, so sorting conjunctions doesn't depend on the order of
+            // their concepts
+            return getClass().toString().compareTo(other.getClass().toString());
         }
         return id.compareTo(((NamedConcept) other).id);
     }
@@ -85,6 +85,34 @@ public class RoleInclusion extends Axiom {
         this.rhs = rhs;
     }
 
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Arrays.hashCode(lhs);
+        result = prime * result + ((rhs == null) ? 0 : rhs.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        RoleInclusion other = (RoleInclusion) obj;
+        if (!Arrays.equals(lhs, other.lhs))
+            return false;
+        if (rhs == null) {
+            if (other.rhs != null)
+                return false;
+        } else if (!rhs.equals(other.rhs))
+            return false;
+        return true;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -4,11 +4,8 @@
  */
 package au.csiro.ontology.snomed.refset.rf2;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -23,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import au.csiro.ontology.input.StructuredLog;
+import au.csiro.ontology.util.EffectiveTime;
 
 /**
  * This class represents a module dependency reference set.
@@ -37,6 +35,7 @@ public class ModuleDependencyRefset extends Refset implements IModuleDependencyR
     private final static class M implements Comparable<M> {
         final private String module;
         final private String time;
+        final private long effectiveTime;
 
         M(final String module, final String time) {
             assert null != module;
@@ -44,6 +43,7 @@ public class ModuleDependencyRefset extends Refset implements IModuleDependencyR
 
             this.module = module;
             this.time = time;
+            this.effectiveTime = EffectiveTime.pack(time);
         }
 
         @Override
@@ -77,7 +77,7 @@ public class ModuleDependencyRefset extends Refset implements IModuleDependencyR
         public int compareTo(M other) {
             final int mCmp = module.compareTo(other.module);
             if (mCmp == 0) {
-                return parseTime(time).compareTo(parseTime(other.time));
+                return Long.compare(effectiveTime, other.effectiveTime);
             } else {
                 return mCmp;
             }
@@ -245,20 +245,4 @@ public class ModuleDependencyRefset extends Refset implements IModuleDependencyR
         return dependencies;
     }
 
-    static Date parseTime(String time) {
-        final SimpleDateFormat ddf = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
-        try {
-            return ddf.parse(time);
-        } catch (ParseException e1) {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-            try {
-                return sdf.parse(time);
-            } catch (ParseException e2) {
-                final String message = StructuredLog.InvalidEffectiveTime.error(log, time, e1.getMessage(), e2.getMessage());
-                throw new RuntimeException(message, e2);
-            }
-        }
-
-    }
-
 }
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import au.csiro.ontology.input.MapView;
 import au.csiro.ontology.input.StructuredLog;
+import au.csiro.ontology.util.EffectiveTime;
 
 /**
  * Simple implementation of a module dependency refset member.
@@ -65,11 +66,13 @@ public class ModuleDependencyRow implements MapView {
                 malformed = true;
                 StructuredLog.TimesMismatch.error(toMap(), log);
             }
-            if (ModuleDependencyRefset.parseTime(effectiveTime).compareTo(ModuleDependencyRefset.parseTime(sourceEffectiveTime)) < 0) {
+            final long effective = EffectiveTime.pack(effectiveTime);
+            final long source = EffectiveTime.pack(sourceEffectiveTime);
+            if (effective < source) {
                 malformed = true;
                 StructuredLog.EffectgiveTimeOrderMismatch.error(toMap(), log);
             }
-            if (ModuleDependencyRefset.parseTime(sourceEffectiveTime).compareTo(ModuleDependencyRefset.parseTime(targetEffectiveTime)) < 0) {
+            if (source < EffectiveTime.pack(targetEffectiveTime)) {
                 malformed = true;
                 StructuredLog.SourceTimeMismatch.error(toMap(), log);
             }
@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import au.csiro.ontology.input.MapView;
+import au.csiro.ontology.util.EffectiveTime;
 
 /**
  * @author Alejandro Metke
@@ -19,6 +20,7 @@ public class RefsetRow implements MapView, Comparable<RefsetRow> {
 
     protected final String id;
     protected final String effectiveTime;
+    protected final long packedEffectiveTime;
     protected final String active;
     protected final String moduleId;
     protected final String refsetId;
@@ -40,6 +42,7 @@ public class RefsetRow implements MapView, Comparable<RefsetRow> {
         super();
         this.id = id;
         this.effectiveTime = effectiveTime;
+        this.packedEffectiveTime = EffectiveTime.packOptional(effectiveTime);
         this.active = active;
         this.moduleId = moduleId;
         this.refsetId = refsetId;
@@ -91,6 +94,13 @@ public class RefsetRow implements MapView, Comparable<RefsetRow> {
         return effectiveTime;
     }
 
+    /**
+     * @return the effectiveTime, packed as by {@link EffectiveTime#packOptional(String)}
+     */
+    public long getPackedEffectiveTime() {
+        return packedEffectiveTime;
+    }
+
     /**
      * @return the active
      */
@@ -178,7 +188,7 @@ public class RefsetRow implements MapView, Comparable<RefsetRow> {
         if(this.equals(other))
             return 0;
         else {
-            int res = effectiveTime.compareTo(other.effectiveTime);
+            int res = Long.compare(packedEffectiveTime, other.packedEffectiveTime);
             if(res != 0) return res;
             res = moduleId.compareTo(other.moduleId);
             if(res != 0) return res;
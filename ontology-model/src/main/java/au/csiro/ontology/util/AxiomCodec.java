@@ -0,0 +1,541 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.BigIntegerLiteral;
+import au.csiro.ontology.model.BooleanLiteral;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.model.Datatype;
+import au.csiro.ontology.model.DateLiteral;
+import au.csiro.ontology.model.DecimalLiteral;
+import au.csiro.ontology.model.DoubleLiteral;
+import au.csiro.ontology.model.Existential;
+import au.csiro.ontology.model.Feature;
+import au.csiro.ontology.model.FloatLiteral;
+import au.csiro.ontology.model.FunctionalFeature;
+import au.csiro.ontology.model.IntegerLiteral;
+import au.csiro.ontology.model.Literal;
+import au.csiro.ontology.model.LongLiteral;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedFeature;
+import au.csiro.ontology.model.NamedRole;
+import au.csiro.ontology.model.Operator;
+import au.csiro.ontology.model.Role;
+import au.csiro.ontology.model.RoleInclusion;
+import au.csiro.ontology.model.StringLiteral;
+
+/**
+ * Compact binary encoding of axioms, used to store and transfer large collections of axioms, where the JSON
+ * representation produced by {@link AxiomUtils} is too slow and verbose.
+ * <p>
+ * A stream starts with a header and contains a sequence of axioms, each one starting with a tag, followed by an end
+ * tag. Numbers and lengths are written as variable-length integers. Every string (concept, role and feature ids and
+ * string values) is written once and later occurrences refer to it by its position, and so does every concept, so
+ * repeated sub-expressions, such as the role groups shared by many concepts, are only written once. Decoded
+ * concepts that are equal are also the same instance.
+ * <p>
+ * The writer and the reader keep the strings and concepts seen so far, so their memory grows with the number of
+ * distinct expressions in the stream. They are not thread-safe.
+ */
+@SuppressWarnings("deprecation")
+public class AxiomCodec {
+
+    private static final int MAGIC = 0x41584331; // AXC1
+
+    private static final int END = 0;
+    private static final int CONCEPT_INCLUSION = 1;
+    private static final int ROLE_INCLUSION = 2;
+    private static final int FUNCTIONAL_FEATURE = 3;
+
+    private static final int NAMED_CONCEPT = 0;
+    private static final int CONJUNCTION = 1;
+    private static final int EXISTENTIAL = 2;
+    private static final int DATATYPE = 3;
+    private static final int CONCEPT_REF = 4;
+
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int FLOAT = 3;
+    private static final int DOUBLE = 4;
+    private static final int DECIMAL = 5;
+    private static final int BIG_INTEGER = 6;
+    private static final int STRING = 7;
+    private static final int DATE = 8;
+    private static final int BOOLEAN = 9;
+
+    private static final Operator[] OPERATORS = Operator.values();
+
+    /**
+     * Encodes a collection of axioms.
+     *
+     * @param axioms
+     * @return
+     */
+    public static byte[] encode(Collection<? extends Axiom> axioms) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Writer writer = new Writer(baos)) {
+            writer.writeAll(axioms);
+        } catch (IOException e) {
+            // Not thrown by a ByteArrayOutputStream
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decodes a collection of axioms encoded with {@link #encode(Collection)} or a {@link Writer}.
+     *
+     * @param bytes
+     * @return
+     * @throws RuntimeException If the bytes are not a valid encoding.
+     */
+    public static List<Axiom> decode(byte[] bytes) {
+        try (Reader reader = new Reader(new ByteArrayInputStream(bytes))) {
+            return reader.readAll();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes axioms to an output stream. Closing the writer writes the end of the stream and closes the output
+     * stream.
+     */
+    public static class Writer implements Closeable {
+
+        private final OutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private final Map<Concept, Integer> concepts = new HashMap<>();
+
+        private boolean closed = false;
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new BufferedOutputStream(out);
+            writeFixedInt(MAGIC);
+        }
+
+        /**
+         * Writes an axiom.
+         *
+         * @param axiom
+         * @throws IOException
+         * @throws IllegalArgumentException If the axiom is not supported.
+         */
+        public void write(Axiom axiom) throws IOException {
+            if (axiom instanceof ConceptInclusion) {
+                final ConceptInclusion ci = (ConceptInclusion) axiom;
+                out.write(CONCEPT_INCLUSION);
+                writeConcept(ci.getLhs());
+                writeConcept(ci.getRhs());
+            } else if (axiom instanceof RoleInclusion) {
+                final RoleInclusion ri = (RoleInclusion) axiom;
+                final Role[] lhs = ri.getLhs();
+                out.write(ROLE_INCLUSION);
+                writeVarInt(lhs.length);
+                for (Role r : lhs) {
+                    writeRole(r);
+                }
+                writeRole(ri.getRhs());
+            } else if (axiom instanceof FunctionalFeature) {
+                out.write(FUNCTIONAL_FEATURE);
+                writeFeature(((FunctionalFeature) axiom).getFeature());
+            } else {
+                throw new IllegalArgumentException("Unsupported axiom " + axiom);
+            }
+        }
+
+        /**
+         * Writes a collection of axioms.
+         *
+         * @param axioms
+         * @throws IOException
+         */
+        public void writeAll(Collection<? extends Axiom> axioms) throws IOException {
+            for (Axiom axiom : axioms) {
+                write(axiom);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.write(END);
+                out.close();
+            }
+        }
+
+        private void writeConcept(Concept concept) throws IOException {
+            final Integer ref = concepts.get(concept);
+            if (ref != null) {
+                writeVarInt(CONCEPT_REF + ref);
+                return;
+            }
+            if (concept instanceof NamedConcept) {
+                writeVarInt(NAMED_CONCEPT);
+                writeString(((NamedConcept) concept).getId());
+            } else if (concept instanceof Conjunction) {
+                final Concept[] conjuncts = ((Conjunction) concept).getConcepts();
+                writeVarInt(CONJUNCTION);
+                writeVarInt(conjuncts.length);
+                for (Concept c : conjuncts) {
+                    writeConcept(c);
+                }
+            } else if (concept instanceof Existential) {
+                final Existential e = (Existential) concept;
+                writeVarInt(EXISTENTIAL);
+                writeRole(e.getRole());
+                writeConcept(e.getConcept());
+            } else if (concept instanceof Datatype) {
+                final Datatype d = (Datatype) concept;
+                writeVarInt(DATATYPE);
+                writeFeature(d.getFeature());
+                out.write(d.getOperator().ordinal());
+                writeLiteral(d.getLiteral());
+            } else {
+                throw new IllegalArgumentException("Unsupported concept " + concept);
+            }
+            // Numbered after its sub-expressions, in the same order the reader creates them
+            concepts.put(concept, concepts.size());
+        }
+
+        private void writeRole(Role role) throws IOException {
+            if (!(role instanceof NamedRole)) {
+                throw new IllegalArgumentException("Unsupported role " + role);
+            }
+            writeString(((NamedRole) role).getId());
+        }
+
+        private void writeFeature(Feature feature) throws IOException {
+            if (!(feature instanceof NamedFeature)) {
+                throw new IllegalArgumentException("Unsupported feature " + feature);
+            }
+            writeString(((NamedFeature) feature).getId());
+        }
+
+        private void writeLiteral(Literal literal) throws IOException {
+            if (literal instanceof IntegerLiteral) {
+                out.write(INTEGER);
+                writeVarLong(zigZag(((IntegerLiteral) literal).getValue()));
+            } else if (literal instanceof LongLiteral) {
+                out.write(LONG);
+                writeVarLong(zigZag(((LongLiteral) literal).getValue()));
+            } else if (literal instanceof FloatLiteral) {
+                out.write(FLOAT);
+                writeFixedInt(Float.floatToIntBits(((FloatLiteral) literal).getValue()));
+            } else if (literal instanceof DoubleLiteral) {
+                out.write(DOUBLE);
+                final long bits = Double.doubleToLongBits(((DoubleLiteral) literal).getValue());
+                writeFixedInt((int) (bits >>> 32));
+                writeFixedInt((int) bits);
+            } else if (literal instanceof DecimalLiteral) {
+                out.write(DECIMAL);
+                writeString(((DecimalLiteral) literal).getValue().toString());
+            } else if (literal instanceof BigIntegerLiteral) {
+                out.write(BIG_INTEGER);
+                writeString(((BigIntegerLiteral) literal).getValue().toString());
+            } else if (literal instanceof StringLiteral) {
+                out.write(STRING);
+                writeString(((StringLiteral) literal).getValue());
+            } else if (literal instanceof DateLiteral) {
+                final Calendar value = ((DateLiteral) literal).getValue();
+                out.write(DATE);
+                writeVarLong(zigZag(value.getTimeInMillis()));
+                writeString(value.getTimeZone().getID());
+            } else if (literal instanceof BooleanLiteral) {
+                out.write(BOOLEAN);
+                out.write(((BooleanLiteral) literal).getValue() ? 1 : 0);
+            } else {
+                throw new IllegalArgumentException("Unsupported literal " + literal);
+            }
+        }
+
+        /**
+         * Writes 0 followed by the length and UTF-8 bytes of a new string, or the position of the string plus one if
+         * it has already been written.
+         */
+        private void writeString(String s) throws IOException {
+            final Integer ref = strings.get(s);
+            if (ref != null) {
+                writeVarInt(ref + 1);
+                return;
+            }
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(0);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+            strings.put(s, strings.size());
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private void writeFixedInt(int value) throws IOException {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * Reads axioms from an input stream written by a {@link Writer}.
+     */
+    public static class Reader implements Closeable {
+
+        private final InputStream in;
+
+        private final List<String> strings = new ArrayList<>();
+
+        private final List<Concept> concepts = new ArrayList<>();
+
+        private final Map<String, Role> roles = new HashMap<>();
+
+        private final Map<String, Feature> features = new HashMap<>();
+
+        private boolean done = false;
+
+        /**
+         * @param in
+         * @throws IOException If the stream does not start with a valid header.
+         */
+        public Reader(InputStream in) throws IOException {
+            this.in = new BufferedInputStream(in);
+            if (readFixedInt() != MAGIC) {
+                throw new IOException("Invalid axiom stream header.");
+            }
+        }
+
+        /**
+         * Reads the next axiom.
+         *
+         * @return The axiom, or null if the end of the stream has been reached.
+         * @throws IOException
+         */
+        public Axiom read() throws IOException {
+            if (done) {
+                return null;
+            }
+            final int tag = readByte();
+            switch (tag) {
+            case END:
+                done = true;
+                return null;
+            case CONCEPT_INCLUSION:
+                final Concept lhs = readConcept();
+                return new ConceptInclusion(lhs, readConcept());
+            case ROLE_INCLUSION:
+                final Role[] roleLhs = new Role[readVarInt()];
+                for (int i = 0; i < roleLhs.length; i++) {
+                    roleLhs[i] = readRole();
+                }
+                return new RoleInclusion(roleLhs, readRole());
+            case FUNCTIONAL_FEATURE:
+                return new FunctionalFeature(readFeature());
+            default:
+                throw new IOException("Invalid axiom tag " + tag);
+            }
+        }
+
+        /**
+         * Reads the remaining axioms.
+         *
+         * @return
+         * @throws IOException
+         */
+        public List<Axiom> readAll() throws IOException {
+            final List<Axiom> res = new ArrayList<>();
+            Axiom axiom;
+            while ((axiom = read()) != null) {
+                res.add(axiom);
+            }
+            return res;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private Concept readConcept() throws IOException {
+            final int code = readVarInt();
+            final Concept res;
+            switch (code) {
+            case NAMED_CONCEPT:
+                final String id = readString();
+                if (NamedConcept.TOP.equals(id)) {
+                    res = NamedConcept.TOP_CONCEPT;
+                } else if (NamedConcept.BOTTOM.equals(id)) {
+                    res = NamedConcept.BOTTOM_CONCEPT;
+                } else {
+                    res = new NamedConcept(id);
+                }
+                break;
+            case CONJUNCTION:
+                final Concept[] conjuncts = new Concept[readVarInt()];
+                for (int i = 0; i < conjuncts.length; i++) {
+                    conjuncts[i] = readConcept();
+                }
+                res = new Conjunction(conjuncts);
+                break;
+            case EXISTENTIAL:
+                final Role role = readRole();
+                res = new Existential(role, readConcept());
+                break;
+            case DATATYPE:
+                final Feature feature = readFeature();
+                final int op = readByte();
+                if (op >= OPERATORS.length) {
+                    throw new IOException("Invalid operator " + op);
+                }
+                res = new Datatype(feature, OPERATORS[op], readLiteral());
+                break;
+            default:
+                final int ref = code - CONCEPT_REF;
+                if (ref < 0 || ref >= concepts.size()) {
+                    throw new IOException("Invalid concept reference " + ref);
+                }
+                return concepts.get(ref);
+            }
+            concepts.add(res);
+            return res;
+        }
+
+        private Role readRole() throws IOException {
+            return roles.computeIfAbsent(readString(), NamedRole::new);
+        }
+
+        private Feature readFeature() throws IOException {
+            return features.computeIfAbsent(readString(), NamedFeature::new);
+        }
+
+        private Literal readLiteral() throws IOException {
+            final int tag = readByte();
+            switch (tag) {
+            case INTEGER:
+                return new IntegerLiteral((int) unZigZag(readVarLong()));
+            case LONG:
+                return new LongLiteral(unZigZag(readVarLong()));
+            case FLOAT:
+                return new FloatLiteral(Float.intBitsToFloat(readFixedInt()));
+            case DOUBLE:
+                final long high = readFixedInt() & 0xFFFFFFFFL;
+                return new DoubleLiteral(Double.longBitsToDouble((high << 32) | (readFixedInt() & 0xFFFFFFFFL)));
+            case DECIMAL:
+                return new DecimalLiteral(new BigDecimal(readString()));
+            case BIG_INTEGER:
+                return new BigIntegerLiteral(new BigInteger(readString()));
+            case STRING:
+                return new StringLiteral(readString());
+            case DATE:
+                final long millis = unZigZag(readVarLong());
+                final Calendar value = Calendar.getInstance(TimeZone.getTimeZone(readString()));
+                value.setTimeInMillis(millis);
+                return new DateLiteral(value);
+            case BOOLEAN:
+                return new BooleanLiteral(readByte() != 0);
+            default:
+                throw new IOException("Invalid literal tag " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            final int code = readVarInt();
+            if (code > 0) {
+                if (code > strings.size()) {
+                    throw new IOException("Invalid string reference " + (code - 1));
+                }
+                return strings.get(code - 1);
+            }
+            final byte[] bytes = new byte[readVarInt()];
+            int off = 0;
+            while (off < bytes.length) {
+                final int n = in.read(bytes, off, bytes.length - off);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                off += n;
+            }
+            final String res = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(res);
+            return res;
+        }
+
+        private int readByte() throws IOException {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length or reference " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid variable-length integer.");
+        }
+
+        private int readFixedInt() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+}
@@ -7,6 +7,10 @@ package au.csiro.ontology.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -40,6 +44,12 @@ import au.csiro.ontology.model.StringLiteral;
 
 /**
  * Several utilities for axioms.
+ * <p>
+ * The string representations are JSON and are meant for single axioms. Large collections of axioms should be stored
+ * with {@link AxiomCodec}.
+ * <p>
+ * All the methods are thread-safe. The JAXB context is shared and every thread uses its own marshaller and
+ * unmarshaller.
  * 
  * @author Alejandro Metke
  *
@@ -52,24 +62,58 @@ public class AxiomUtils {
      */
     private final static Logger log = LoggerFactory.getLogger(AxiomUtils.class);
     
-    private static Marshaller marshaller;
-    private static Unmarshaller unmarshaller;
+    /**
+     * The JAXB context is thread-safe and expensive to create, so it is shared. Marshallers and unmarshallers are not
+     * thread-safe, so each thread gets its own.
+     */
+    private static class Holder {
+        static final JAXBContext context = createContext();
+    }
+
+    /**
+     * The minimum number of axioms in a batch for it to be processed in parallel.
+     */
+    private static final int MIN_PARALLEL_BATCH = 64;
+    
+    private static final ThreadLocal<Marshaller> marshaller = ThreadLocal.withInitial(AxiomUtils::createMarshaller);
+
+    private static final ThreadLocal<Unmarshaller> unmarshaller = 
+            ThreadLocal.withInitial(AxiomUtils::createUnmarshaller);
     
-    private static void init() {
+    private static JAXBContext createContext() {
         // Initialise JAXB
         try {
-            JAXBContext jc = JAXBContext.newInstance(new Class[] { ConceptInclusion.class, RoleInclusion.class, 
+            return JAXBContext.newInstance(new Class[] { ConceptInclusion.class, RoleInclusion.class, 
                     NamedConcept.class, Conjunction.class, Existential.class, Datatype.class, NamedFeature.class, 
                     NamedRole.class, IntegerLiteral.class, StringLiteral.class, LongLiteral.class, DateLiteral.class, 
                     DecimalLiteral.class, BigIntegerLiteral.class, FloatLiteral.class, DoubleLiteral.class, 
                     BooleanLiteral.class}); 
-            marshaller = jc.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            marshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
-            unmarshaller = jc.createUnmarshaller();
-            unmarshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
         } catch(JAXBException e) {
             log.error("There was a problem initialising JAXB.", e);
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static Marshaller createMarshaller() {
+        try {
+            Marshaller m = Holder.context.createMarshaller();
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            m.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+            return m;
+        } catch(JAXBException e) {
+            log.error("There was a problem initialising JAXB.", e);
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static Unmarshaller createUnmarshaller() {
+        try {
+            Unmarshaller u = Holder.context.createUnmarshaller();
+            u.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+            return u;
+        } catch(JAXBException e) {
+            log.error("There was a problem initialising JAXB.", e);
+            throw new RuntimeException(e);
         }
     }
     
@@ -81,10 +125,9 @@ public class AxiomUtils {
      * @throws RuntimeException
      */
     public static String serialiseConcept(Concept concept) {
-        if(marshaller == null) init();
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            marshaller.marshal(concept, baos);
+            marshaller.get().marshal(concept, baos);
             return baos.toString("UTF8");
         } catch(JAXBException e) {
             log.error("There was a problem serialising a concept. JAXB threw an exception.", e);
@@ -103,9 +146,8 @@ public class AxiomUtils {
      * @throws RuntimeException
      */
     public static Concept deserialiseConcept(String s) {
-        if(unmarshaller == null) init();
         try {
-            Object res = unmarshaller.unmarshal(new ByteArrayInputStream(s.getBytes()));
+            Object res = unmarshaller.get().unmarshal(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
             return (Concept) res;
         } catch(JAXBException e) {
             log.error("There was a problem deserialising a concept. JAXB threw an exception.", e);
@@ -114,10 +156,9 @@ public class AxiomUtils {
     }
     
     public static String serialiseLiteral(Literal l) {
-        if(marshaller == null) init();
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            marshaller.marshal(l, baos);
+            marshaller.get().marshal(l, baos);
             return baos.toString("UTF8");
         } catch(JAXBException e) {
             log.error("There was a problem serialising a concept. JAXB threw an exception.", e);
@@ -136,10 +177,9 @@ public class AxiomUtils {
      * @throws RuntimeException
      */
     public static String serialise(Axiom axiom) {
-        if(marshaller == null) init();
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            marshaller.marshal(axiom, baos);
+            marshaller.get().marshal(axiom, baos);
             return baos.toString("UTF8");
         } catch(JAXBException e) {
             log.error("There was a problem serialising an axiom. JAXB threw an exception.", e);
@@ -158,9 +198,8 @@ public class AxiomUtils {
      * @throws RuntimeException
      */
     public static Axiom deserialise(String s) {
-        if(unmarshaller == null) init();
         try {
-            Object res = unmarshaller.unmarshal(new ByteArrayInputStream(s.getBytes()));
+            Object res = unmarshaller.get().unmarshal(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
             return (Axiom) res;
         } catch(JAXBException e) {
             log.error("There was a problem deserialising an axiom. JAXB threw an exception.", e);
@@ -168,4 +207,30 @@ public class AxiomUtils {
         }
     }
 
+    /**
+     * Transforms a collection of axioms into their {@link String} representations. Large collections are processed in
+     * parallel in the common fork-join pool.
+     * 
+     * @param axioms
+     * @return The representations, in the iteration order of the collection.
+     * @throws RuntimeException
+     */
+    public static List<String> serialise(Collection<? extends Axiom> axioms) {
+        return (axioms.size() < MIN_PARALLEL_BATCH ? axioms.stream() : axioms.parallelStream())
+                .map(AxiomUtils::serialise).collect(Collectors.toList());
+    }
+    
+    /**
+     * Transforms a collection of string representations of axioms into {@link Axiom}s. Large collections are 
+     * processed in parallel in the common fork-join pool.
+     * 
+     * @param strings
+     * @return The axioms, in the iteration order of the collection.
+     * @throws RuntimeException
+     */
+    public static List<Axiom> deserialise(Collection<String> strings) {
+        return (strings.size() < MIN_PARALLEL_BATCH ? strings.stream() : strings.parallelStream())
+                .map(AxiomUtils::deserialise).collect(Collectors.toList());
+    }
+
 }
@@ -0,0 +1,254 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import au.csiro.ontology.input.StructuredLog;
+
+/**
+ * An RF2 effective time. Effective times are either dates, with the format yyyyMMdd, or timestamps, with the format
+ * yyyyMMdd'T'HHmmss'Z'.
+ * <p>
+ * An effective time is packed into a single long, as yyyymmddhhmmss, so comparing two effective times is a single
+ * comparison of two longs. A date is equal to the timestamp at the start of that day. The static methods work
+ * directly on the packed values and can be used to avoid creating an object per row.
+ */
+public final class EffectiveTime implements Comparable<EffectiveTime> {
+
+    private final static Logger log = LoggerFactory.getLogger(EffectiveTime.class);
+
+    private static final long TIME_FACTOR = 1000000L;
+
+    private final long value;
+
+    private EffectiveTime(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Parses an effective time.
+     *
+     * @param time
+     * @return
+     * @throws RuntimeException if the effective time is not valid.
+     */
+    public static EffectiveTime parse(String time) {
+        return new EffectiveTime(pack(time));
+    }
+
+    /**
+     * Creates an effective time from a packed value.
+     *
+     * @param value
+     * @return
+     */
+    public static EffectiveTime valueOf(long value) {
+        return new EffectiveTime(value);
+    }
+
+    /**
+     * Parses an effective time into its packed form.
+     *
+     * @param time
+     * @return
+     * @throws RuntimeException if the effective time is not valid.
+     */
+    public static long pack(String time) {
+        final int len = time.length();
+        final long date = (len == 8 || len == 16) ? parseDate(time, 0) : -1;
+        long res = -1;
+        if (date >= 0) {
+            if (len == 8) {
+                res = date * TIME_FACTOR;
+            } else if (time.charAt(8) == 'T' && time.charAt(15) == 'Z') {
+                final long t = parseTime(time, 9);
+                res = (t >= 0) ? date * TIME_FACTOR + t : -1;
+            }
+        }
+        if (res < 0) {
+            throw invalid(time);
+        }
+        return res;
+    }
+
+    /**
+     * Parses an effective time that can be missing, such as in delta and authoring rows.
+     *
+     * @param time
+     * @return The packed effective time, or -1 if it is null or blank.
+     * @throws RuntimeException if the effective time is not blank and is not valid.
+     */
+    public static long packOptional(String time) {
+        return (time == null || time.trim().isEmpty()) ? -1 : pack(time);
+    }
+
+    /**
+     * Parses an effective time stored as ASCII bytes into its packed form.
+     *
+     * @param buf
+     * @param start
+     * @param len
+     * @return
+     * @throws RuntimeException if the effective time is not valid.
+     */
+    public static long pack(byte[] buf, int start, int len) {
+        final long date = (len == 8 || len == 16) ? parseDate(buf, start) : -1;
+        long res = -1;
+        if (date >= 0) {
+            if (len == 8) {
+                res = date * TIME_FACTOR;
+            } else if (buf[start + 8] == 'T' && buf[start + 15] == 'Z') {
+                final long t = parseTime(buf, start + 9);
+                res = (t >= 0) ? date * TIME_FACTOR + t : -1;
+            }
+        }
+        if (res < 0) {
+            throw invalid(new String(buf, start, len, StandardCharsets.UTF_8));
+        }
+        return res;
+    }
+
+    private static RuntimeException invalid(String time) {
+        final String message = StructuredLog.InvalidEffectiveTime.error(log, time,
+                "Expected yyyyMMdd'T'HHmmss'Z'", "Expected yyyyMMdd");
+        return new RuntimeException(message);
+    }
+
+    private static long parseDate(CharSequence s, int start) {
+        final int year = digits(s, start, 4);
+        final int month = digits(s, start + 4, 2);
+        final int day = digits(s, start + 6, 2);
+        return checkDate(year, month, day);
+    }
+
+    private static long parseDate(byte[] buf, int start) {
+        final int year = digits(buf, start, 4);
+        final int month = digits(buf, start + 4, 2);
+        final int day = digits(buf, start + 6, 2);
+        return checkDate(year, month, day);
+    }
+
+    private static long checkDate(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        return year * 10000L + month * 100 + day;
+    }
+
+    private static long parseTime(CharSequence s, int start) {
+        final int hours = digits(s, start, 2);
+        final int minutes = digits(s, start + 2, 2);
+        final int seconds = digits(s, start + 4, 2);
+        return checkTime(hours, minutes, seconds);
+    }
+
+    private static long parseTime(byte[] buf, int start) {
+        final int hours = digits(buf, start, 2);
+        final int minutes = digits(buf, start + 2, 2);
+        final int seconds = digits(buf, start + 4, 2);
+        return checkTime(hours, minutes, seconds);
+    }
+
+    private static long checkTime(int hours, int minutes, int seconds) {
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+            return -1;
+        }
+        return hours * 10000L + minutes * 100 + seconds;
+    }
+
+    /**
+     * Returns the value of a run of decimal digits, or -1 if any of the characters is not a digit.
+     */
+    private static int digits(CharSequence s, int start, int len) {
+        int res = 0;
+        for (int i = start; i < start + len; i++) {
+            final int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            res = res * 10 + d;
+        }
+        return res;
+    }
+
+    private static int digits(byte[] buf, int start, int len) {
+        int res = 0;
+        for (int i = start; i < start + len; i++) {
+            final int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            res = res * 10 + d;
+        }
+        return res;
+    }
+
+    /**
+     * @return The packed value.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * @return The date, as yyyymmdd.
+     */
+    public int getDate() {
+        return (int) (value / TIME_FACTOR);
+    }
+
+    /**
+     * @return The time of the day, as hhmmss.
+     */
+    public int getTime() {
+        return (int) (value % TIME_FACTOR);
+    }
+
+    @Override
+    public int compareTo(EffectiveTime other) {
+        return Long.compare(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        return value == ((EffectiveTime) obj).value;
+    }
+
+    /**
+     * Formats a packed effective time. Effective times at the start of a day are formatted as dates.
+     *
+     * @param value
+     * @return
+     */
+    public static String toString(long value) {
+        final long time = value % TIME_FACTOR;
+        final String date = Long.toString(value / TIME_FACTOR);
+        if (time == 0) {
+            return date;
+        }
+        return String.format("%sT%06dZ", date, time);
+    }
+
+    @Override
+    public String toString() {
+        return toString(value);
+    }
+
+}
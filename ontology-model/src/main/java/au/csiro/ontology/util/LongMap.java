@@ -0,0 +1,369 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongFunction;
+
+/**
+ * Map with primitive long keys, such as SCTIDs, that avoids boxing the keys and creating an entry object per
+ * mapping. Keys and values are stored in parallel arrays in insertion order and located through an open-addressing
+ * index with linear probing. Iteration follows insertion order, so it is deterministic.
+ * <p>
+ * Null values are not supported. This class is not thread-safe.
+ *
+ * @param <V>
+ */
+public class LongMap<V> {
+
+    private static final Object REMOVED = new Object();
+
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Entry positions plus one. Zero indicates an empty slot and -1 a removed one.
+     */
+    private int[] index;
+    private int shift;
+
+    private long[] keys;
+    private Object[] values;
+
+    /**
+     * Number of entries used in the keys and values arrays, including removed ones.
+     */
+    private int used = 0;
+
+    /**
+     * Number of mappings.
+     */
+    private int size = 0;
+
+    private int modCount = 0;
+
+    public LongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a map that can hold an expected number of mappings without resizing.
+     *
+     * @param expectedSize
+     */
+    public LongMap(int expectedSize) {
+        final int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        rebuildIndex(indexSize(capacity));
+    }
+
+    private static int indexSize(int capacity) {
+        // Keep the load factor of the index under 0.5
+        return Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) * 2 - 1) << 1;
+    }
+
+    static int hash(long key, int shift) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void rebuildIndex(int indexSize) {
+        index = new int[indexSize];
+        shift = 64 - Integer.numberOfTrailingZeros(indexSize);
+        final int mask = indexSize - 1;
+        for (int e = 0; e < used; e++) {
+            if (values[e] != REMOVED) {
+                int slot = hash(keys[e], shift);
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = e + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a key in the index, or -1 if the key is not present.
+     */
+    private int find(long key) {
+        final int mask = index.length - 1;
+        int slot = hash(key, shift);
+        int e;
+        while ((e = index[slot]) != 0) {
+            if (e > 0 && keys[e - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param key
+     * @return The value mapped to the key or null if there is no mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final int slot = find(key);
+        return (slot < 0) ? null : (V) values[index[slot] - 1];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value. If the key was already mapped, its position in the iteration order does not change.
+     *
+     * @param key
+     * @param value
+     * @return The previous value, or null if there was no mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+
+        final int found = find(key);
+        if (found >= 0) {
+            final int e = index[found] - 1;
+            final V old = (V) values[e];
+            values[e] = value;
+            return old;
+        }
+
+        if (used == keys.length) {
+            if (size < used / 2) {
+                compact();
+            } else {
+                keys = Arrays.copyOf(keys, used * 2);
+                values = Arrays.copyOf(values, used * 2);
+            }
+        }
+        if (indexSize(used + 1) > index.length) {
+            rebuildIndex(indexSize(keys.length));
+        }
+
+        final int mask = index.length - 1;
+        int slot = hash(key, shift);
+        while (index[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[used] = key;
+        values[used] = value;
+        index[slot] = ++used;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Returns the value mapped to a key, creating and adding it with the supplied function if there is none.
+     *
+     * @param key
+     * @param mappingFunction
+     * @return
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V res = get(key);
+        if (res == null) {
+            res = mappingFunction.apply(key);
+            put(key, res);
+        }
+        return res;
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key
+     * @return The removed value, or null if there was no mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final int e = index[slot] - 1;
+        final V old = (V) values[e];
+        values[e] = REMOVED;
+        index[slot] = -1;
+        size--;
+        modCount++;
+        return old;
+    }
+
+    /**
+     * Removes the entries of removed mappings from the keys and values arrays.
+     */
+    private void compact() {
+        int j = 0;
+        for (int e = 0; e < used; e++) {
+            if (values[e] != REMOVED) {
+                keys[j] = keys[e];
+                values[j] = values[e];
+                j++;
+            }
+        }
+        Arrays.fill(values, j, used, null);
+        used = j;
+        rebuildIndex(index.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(index, 0);
+        Arrays.fill(values, 0, used, null);
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return The keys, in insertion order.
+     */
+    public long[] keys() {
+        final long[] res = new long[size];
+        int j = 0;
+        for (int e = 0; e < used; e++) {
+            if (values[e] != REMOVED) {
+                res[j++] = keys[e];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return An iterator over the keys, in insertion order.
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private final Cursor cursor = new Cursor();
+            private boolean hasNext = cursor.next();
+
+            @Override
+            public boolean hasNext() {
+                return hasNext;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                final long res = cursor.key();
+                hasNext = cursor.next();
+                return res;
+            }
+        };
+    }
+
+    /**
+     * @return A view of the values, in insertion order. The view does not support modifications.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<V>() {
+                    private final Cursor cursor = new Cursor();
+                    private boolean hasNext = cursor.next();
+
+                    @Override
+                    public boolean hasNext() {
+                        return hasNext;
+                    }
+
+                    @Override
+                    public V next() {
+                        if (!hasNext) {
+                            throw new NoSuchElementException();
+                        }
+                        final V res = cursor.value();
+                        hasNext = cursor.next();
+                        return res;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return A cursor over the mappings, in insertion order.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Iterates over the mappings without creating an object per mapping. Call {@link #next()} before reading the
+     * first mapping.
+     */
+    public class Cursor {
+        private int e = -1;
+        private final int expectedModCount = modCount;
+
+        /**
+         * Advances to the next mapping.
+         *
+         * @return false if there are no more mappings.
+         */
+        public boolean next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (++e < used) {
+                if (values[e] != REMOVED) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long key() {
+            return keys[e];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V value() {
+            return (V) values[e];
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        final Cursor c = cursor();
+        boolean first = true;
+        while (c.next()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append(c.key()).append('=').append(c.value());
+            first = false;
+        }
+        return sb.append('}').toString();
+    }
+
+}
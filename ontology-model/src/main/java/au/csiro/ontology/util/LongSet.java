@@ -0,0 +1,277 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Set of primitive longs, such as SCTIDs, implemented as an open-addressing hash table with linear probing. Most sets
+ * in an import (for example the parents of a concept) are very small, so the table starts small and grows as
+ * needed.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class LongSet {
+
+    /**
+     * Marks an empty slot. Zero itself is stored separately.
+     */
+    private static final long FREE = 0;
+
+    private long[] table;
+    private int shift;
+    private int size = 0;
+    private boolean hasFree = false;
+
+    public LongSet() {
+        this(2);
+    }
+
+    /**
+     * Creates a set that can hold an expected number of elements without resizing.
+     *
+     * @param expectedSize
+     */
+    public LongSet(int expectedSize) {
+        init(Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1);
+    }
+
+    private void init(int capacity) {
+        table = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slot(long value) {
+        return LongMap.hash(value, shift);
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value
+     * @return true if the value was not already in the set.
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (hasFree) {
+                return false;
+            }
+            hasFree = true;
+            size++;
+            return true;
+        }
+
+        final int mask = table.length - 1;
+        int i = slot(value);
+        long v;
+        while ((v = table[i]) != FREE) {
+            if (v == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        if (++size * 2 > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public void addAll(LongSet other) {
+        final PrimitiveIterator.OfLong it = other.iterator();
+        while (it.hasNext()) {
+            add(it.nextLong());
+        }
+    }
+
+    private void grow() {
+        final long[] old = table;
+        init(old.length * 2);
+        final int mask = table.length - 1;
+        for (long v : old) {
+            if (v != FREE) {
+                int i = slot(v);
+                while (table[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = v;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return hasFree;
+        }
+        final int mask = table.length - 1;
+        int i = slot(value);
+        long v;
+        while ((v = table[i]) != FREE) {
+            if (v == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value
+     * @return true if the value was in the set.
+     */
+    public boolean remove(long value) {
+        if (value == FREE) {
+            if (!hasFree) {
+                return false;
+            }
+            hasFree = false;
+            size--;
+            return true;
+        }
+
+        final int mask = table.length - 1;
+        int i = slot(value);
+        long v;
+        while ((v = table[i]) != value) {
+            if (v == FREE) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Shift back the following entries of the probe sequence so no gaps are left
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            v = table[j];
+            if (v == FREE) {
+                break;
+            }
+            final int k = slot(v);
+            if ((j > i && (k <= i || k > j)) || (j < i && (k <= i && k > j))) {
+                table[i] = v;
+                i = j;
+            }
+        }
+        table[i] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    /**
+     * @return The elements of the set, in no particular order.
+     */
+    public long[] toArray() {
+        final long[] res = new long[size];
+        int j = 0;
+        if (hasFree) {
+            res[j++] = FREE;
+        }
+        for (long v : table) {
+            if (v != FREE) {
+                res[j++] = v;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return An iterator over the elements of the set, in no particular order.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int i = hasFree ? -1 : advance(0);
+
+            private int advance(int from) {
+                while (from < table.length && table[from] == FREE) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return i < table.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (i < 0) {
+                    i = advance(0);
+                    return FREE;
+                }
+                final long res = table[i];
+                i = advance(i + 1);
+                return res;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        final PrimitiveIterator.OfLong it = iterator();
+        while (it.hasNext()) {
+            h += Long.hashCode(it.nextLong());
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LongSet)) {
+            return false;
+        }
+        final LongSet other = (LongSet) obj;
+        if (size != other.size) {
+            return false;
+        }
+        final PrimitiveIterator.OfLong it = iterator();
+        while (it.hasNext()) {
+            if (!other.contains(it.nextLong())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("[");
+        final PrimitiveIterator.OfLong it = iterator();
+        while (it.hasNext()) {
+            sb.append(it.nextLong());
+            if (it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+}
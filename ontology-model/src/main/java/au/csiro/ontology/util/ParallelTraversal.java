@@ -0,0 +1,97 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import au.csiro.ontology.FrozenTaxonomy;
+import au.csiro.ontology.Node;
+import au.csiro.ontology.Ontology;
+
+/**
+ * A topological traversal that visits the same nodes as {@link Traversal#BFS_MAX}, i.e. a node is only visited after
+ * all its parents, and descendants of the start node that have paths to the root not containing it are not visited.
+ * <p>
+ * Every node has a counter with the number of its parents that have not been visited yet, and a node is ready when
+ * its counter reaches zero. The ready nodes form a level, and the nodes of a level are visited in parallel in a
+ * fork-join pool. When the start node is a view of a {@link FrozenTaxonomy} the counters are kept in an int array
+ * indexed by node.
+ * <p>
+ * Visitors are called concurrently for the nodes of the same level, so they have to be thread-safe. Each node is
+ * visited once, and all the visits of a level happen-before the visits of the next level, so the state recorded when
+ * visiting the parents of a node can be read safely when visiting the node.
+ */
+public class ParallelTraversal implements Traversal {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a traversal that uses the common fork-join pool.
+     */
+    public ParallelTraversal() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a traversal that uses a fork-join pool.
+     *
+     * @param pool
+     */
+    public ParallelTraversal(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void accept(Ontology ont, Visitor... visitors) {
+        accept(ont.getTopNode(), visitors);
+    }
+
+    public void accept(Node start, Visitor... visitors) {
+        final FrozenTaxonomy taxonomy = FrozenTaxonomy.getTaxonomy(start);
+        if (taxonomy != null) {
+            accept(taxonomy, taxonomy.getNodeIndex(start), visitors);
+            return;
+        }
+
+        final ConcurrentHashMap<Node, AtomicInteger> remaining = new ConcurrentHashMap<Node, AtomicInteger>();
+        List<Node> level = Collections.singletonList(start);
+        while (!level.isEmpty()) {
+            final List<Node> current = level;
+            level = pool.submit(() -> current.parallelStream().flatMap(node -> {
+                for (Visitor v : visitors) {
+                    v.visit(node);
+                }
+                return node.getChildren().stream().filter(child -> remaining.computeIfAbsent(child,
+                        c -> new AtomicInteger(c.getParents().size())).decrementAndGet() == 0);
+            }).collect(Collectors.toList())).join();
+        }
+    }
+
+    private void accept(final FrozenTaxonomy taxonomy, int start, Visitor... visitors) {
+        final AtomicIntegerArray remaining = new AtomicIntegerArray(taxonomy.getNodeCount());
+        for (int n = 0; n < taxonomy.getNodeCount(); n++) {
+            remaining.set(n, taxonomy.getParentCount(n));
+        }
+        int[] level = { start };
+        while (level.length > 0) {
+            final int[] current = level;
+            level = pool.submit(() -> IntStream.of(current).parallel().flatMap(n -> {
+                final Node node = taxonomy.getNode(n);
+                for (Visitor v : visitors) {
+                    v.visit(node);
+                }
+                return IntStream.range(0, taxonomy.getChildCount(n)).map(i -> taxonomy.getChild(n, i))
+                        .filter(child -> remaining.decrementAndGet(child) == 0);
+            }).toArray()).join();
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import au.csiro.ontology.FrozenTaxonomy;
+import au.csiro.ontology.Node;
+import au.csiro.ontology.Ontology;
+
+/**
+ * A reachability index over a classified taxonomy that answers subsumption queries without walking the hierarchy.
+ * <p>
+ * The nodes of a spanning tree of the taxonomy are numbered in post-order, so the descendants of a node in the tree
+ * have consecutive numbers. The descendants of a node in the taxonomy are described by a sorted list of intervals
+ * of post-order numbers: its own tree interval merged with the intervals of its children. Most nodes in a SNOMED-like
+ * hierarchy only have one or a few intervals, so a query is a binary search over a very short list. The bottom node
+ * is a descendant of every node, so it is left out of the intervals.
+ * <p>
+ * The intervals of a node only depend on the intervals of its children, so the index is built one level at a time,
+ * starting from the leaves, and the nodes of each level are processed in parallel.
+ * <p>
+ * The index is immutable and thread-safe. It has to be rebuilt when a new taxonomy is loaded.
+ */
+public class SubsumptionIndex {
+
+    private final FrozenTaxonomy taxonomy;
+
+    /**
+     * The post-order number of each node.
+     */
+    private final int[] post;
+
+    /**
+     * The intervals of node {@code n} are the pairs of elements of {@code intervals} between {@code offsets[n]} and
+     * {@code offsets[n + 1]}.
+     */
+    private final int[] offsets;
+    private final int[] intervals;
+
+    private SubsumptionIndex(FrozenTaxonomy taxonomy, int[] post, int[] offsets, int[] intervals) {
+        this.taxonomy = taxonomy;
+        this.post = post;
+        this.offsets = offsets;
+        this.intervals = intervals;
+    }
+
+    /**
+     * Builds the index of the taxonomy of a classified ontology in the common fork-join pool.
+     *
+     * @param ont
+     * @return
+     */
+    public static SubsumptionIndex build(Ontology ont) {
+        return build(ont, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the index of the taxonomy of a classified ontology. The frozen taxonomy is used if the ontology has been
+     * frozen, otherwise a frozen copy of its nodes is created.
+     *
+     * @param ont
+     * @param pool The pool used to process the nodes of each level in parallel.
+     * @return
+     */
+    public static SubsumptionIndex build(Ontology ont, ForkJoinPool pool) {
+        final FrozenTaxonomy taxonomy = ont.isFrozen() ? ont.getFrozenTaxonomy()
+                : FrozenTaxonomy.freeze(ont.getNodeMap());
+        return build(taxonomy, pool);
+    }
+
+    /**
+     * Builds the index of a frozen taxonomy.
+     *
+     * @param taxonomy
+     * @param pool The pool used to process the nodes of each level in parallel.
+     * @return
+     */
+    public static SubsumptionIndex build(final FrozenTaxonomy taxonomy, ForkJoinPool pool) {
+        final int numNodes = taxonomy.getNodeCount();
+        final int bottom = taxonomy.getBottomIndex();
+
+        // Post-order numbering and tree intervals of a spanning tree
+        final int[] post = new int[numNodes];
+        final int[] low = new int[numNodes];
+        final boolean[] visited = new boolean[numNodes];
+        final int[] stack = new int[numNodes];
+        final int[] next = new int[numNodes];
+        int counter = 0;
+        for (int root = 0; root < numNodes; root++) {
+            if (root == bottom || visited[root] || taxonomy.getParentCount(root) > 0) {
+                continue;
+            }
+            int size = 0;
+            visited[root] = true;
+            low[root] = counter;
+            stack[size++] = root;
+            while (size > 0) {
+                final int n = stack[size - 1];
+                if (next[n] < taxonomy.getChildCount(n)) {
+                    final int child = taxonomy.getChild(n, next[n]++);
+                    if (child != bottom && !visited[child]) {
+                        visited[child] = true;
+                        low[child] = counter;
+                        stack[size++] = child;
+                    }
+                } else {
+                    size--;
+                    post[n] = counter++;
+                }
+            }
+        }
+        // Nodes that are not reachable from a root, e.g. in cycles
+        for (int n = 0; n < numNodes; n++) {
+            if (n != bottom && !visited[n]) {
+                low[n] = counter;
+                post[n] = counter++;
+            }
+        }
+
+        // Levels: the length of the longest path to a leaf. Children have higher indexes than their parents.
+        final int[] height = new int[numNodes];
+        int maxHeight = 0;
+        for (int n = numNodes - 1; n >= 0; n--) {
+            int h = 0;
+            for (int i = 0; i < taxonomy.getChildCount(n); i++) {
+                final int child = taxonomy.getChild(n, i);
+                if (child != bottom && child > n) {
+                    h = Math.max(h, height[child] + 1);
+                }
+            }
+            height[n] = h;
+            maxHeight = Math.max(maxHeight, h);
+        }
+        final int[][] levels = new int[maxHeight + 1][];
+        final int[] levelSizes = new int[maxHeight + 1];
+        for (int n = 0; n < numNodes; n++) {
+            if (n != bottom) {
+                levelSizes[height[n]]++;
+            }
+        }
+        for (int h = 0; h <= maxHeight; h++) {
+            levels[h] = new int[levelSizes[h]];
+            levelSizes[h] = 0;
+        }
+        for (int n = 0; n < numNodes; n++) {
+            if (n != bottom) {
+                levels[height[n]][levelSizes[height[n]]++] = n;
+            }
+        }
+
+        // Intervals, from the leaves up
+        final int[][] nodeIntervals = new int[numNodes][];
+        if (bottom >= 0) {
+            nodeIntervals[bottom] = new int[0];
+        }
+        for (final int[] level : levels) {
+            final Runnable task = () -> IntStream.of(level).parallel().forEach(n -> nodeIntervals[n] =
+                    computeIntervals(taxonomy, n, bottom, low, post, nodeIntervals));
+            pool.submit(task).join();
+        }
+
+        final int[] offsets = new int[numNodes + 1];
+        for (int n = 0; n < numNodes; n++) {
+            offsets[n + 1] = offsets[n] + nodeIntervals[n].length;
+        }
+        final int[] intervals = new int[offsets[numNodes]];
+        for (int n = 0; n < numNodes; n++) {
+            System.arraycopy(nodeIntervals[n], 0, intervals, offsets[n], nodeIntervals[n].length);
+        }
+        return new SubsumptionIndex(taxonomy, post, offsets, intervals);
+    }
+
+    /**
+     * Merges the tree interval of a node with the intervals of its children.
+     */
+    private static int[] computeIntervals(FrozenTaxonomy taxonomy, int n, int bottom, int[] low, int[] post,
+            int[][] nodeIntervals) {
+        int size = 1;
+        for (int i = 0; i < taxonomy.getChildCount(n); i++) {
+            final int child = taxonomy.getChild(n, i);
+            if (child != bottom && child > n) {
+                size += nodeIntervals[child].length / 2;
+            }
+        }
+        // Each interval is packed in a long so they can be sorted by their start
+        final long[] all = new long[size];
+        int pos = 0;
+        all[pos++] = pack(low[n], post[n]);
+        for (int i = 0; i < taxonomy.getChildCount(n); i++) {
+            final int child = taxonomy.getChild(n, i);
+            if (child != bottom && child > n) {
+                final int[] ci = nodeIntervals[child];
+                for (int j = 0; j < ci.length; j += 2) {
+                    all[pos++] = pack(ci[j], ci[j + 1]);
+                }
+            }
+        }
+        Arrays.sort(all);
+
+        final int[] merged = new int[all.length * 2];
+        int len = 0;
+        for (long l : all) {
+            final int start = (int) (l >>> 32);
+            final int end = (int) l;
+            if (len > 0 && start <= merged[len - 1] + 1) {
+                merged[len - 1] = Math.max(merged[len - 1], end);
+            } else {
+                merged[len++] = start;
+                merged[len++] = end;
+            }
+        }
+        return Arrays.copyOf(merged, len);
+    }
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The taxonomy of the index.
+     */
+    public FrozenTaxonomy getTaxonomy() {
+        return taxonomy;
+    }
+
+    /**
+     * Returns true if a concept is subsumed by another concept, i.e. if it is equivalent to or a descendant of the
+     * other concept. Returns false if either concept is not in the taxonomy.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isSubsumedBy(String a, String b) {
+        final int na = taxonomy.getNodeIndex(a);
+        final int nb = taxonomy.getNodeIndex(b);
+        return na >= 0 && nb >= 0 && isSubsumedBy(na, nb);
+    }
+
+    /**
+     * Returns true if a node is subsumed by another node of the taxonomy. Nodes that are not views of the taxonomy of
+     * the index are looked up by their concepts.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isSubsumedBy(Node a, Node b) {
+        final int na = indexOf(a);
+        final int nb = indexOf(b);
+        return na >= 0 && nb >= 0 && isSubsumedBy(na, nb);
+    }
+
+    /**
+     * Returns true if a node is subsumed by another node.
+     *
+     * @param a The index of the first node in the taxonomy.
+     * @param b The index of the second node in the taxonomy.
+     * @return
+     */
+    public boolean isSubsumedBy(int a, int b) {
+        if (a == b || a == taxonomy.getBottomIndex() || b == taxonomy.getTopIndex()) {
+            return true;
+        } else if (b == taxonomy.getBottomIndex()) {
+            return false;
+        }
+        final int p = post[a];
+        // Binary search for the last interval that starts at or before p
+        int lo = offsets[b] / 2;
+        int hi = offsets[b + 1] / 2 - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (intervals[mid * 2] <= p) {
+                if (p <= intervals[mid * 2 + 1]) {
+                    return true;
+                }
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a concept is a proper descendant of another concept, i.e. it is subsumed by the other concept
+     * but is not equivalent to it.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isDescendantOf(String a, String b) {
+        final int na = taxonomy.getNodeIndex(a);
+        final int nb = taxonomy.getNodeIndex(b);
+        return na >= 0 && nb >= 0 && na != nb && isSubsumedBy(na, nb);
+    }
+
+    /**
+     * Returns true if a concept is a proper ancestor of another concept.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isAncestorOf(String a, String b) {
+        return isDescendantOf(b, a);
+    }
+
+    /**
+     * Returns true if two concepts are in the same node.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public boolean isEquivalent(String a, String b) {
+        final int na = taxonomy.getNodeIndex(a);
+        return na >= 0 && na == taxonomy.getNodeIndex(b);
+    }
+
+    /**
+     * @return The total number of intervals, which is proportional to the memory used by the index.
+     */
+    public int getIntervalCount() {
+        return intervals.length / 2;
+    }
+
+    private int indexOf(Node node) {
+        final int n = taxonomy.getNodeIndex(node);
+        if (n >= 0) {
+            return n;
+        }
+        for (String id : node.getEquivalentConcepts()) {
+            return taxonomy.getNodeIndex(id);
+        }
+        return -1;
+    }
+
+}
@@ -1,9 +1,9 @@
 
 package au.csiro.ontology.util;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 
@@ -22,16 +22,15 @@ public interface Traversal {
     final public static Traversal BFS_MIN = new AbstractTraversal() {
         public void accept(Node start, Visitor... visitors) {
             final Set<Node> done = new HashSet<Node>();
-            final LinkedList<Node> queue = new LinkedList<Node>();
+            final ArrayDeque<Node> queue = new ArrayDeque<Node>();
             queue.add(start);
             
             while (!queue.isEmpty()) {
                 Node node = queue.poll();
-                if (!done.contains(node)) {     // don't visit more than once
+                if (done.add(node)) {     // don't visit more than once
                     for (Visitor v: visitors) {
                         v.visit(node);
                     }
-                    done.add(node);
                     queue.addAll(node.getChildren());
                 }
             }
@@ -46,27 +45,36 @@ public interface Traversal {
     final public static Traversal BFS_MAX = new AbstractTraversal() {
         
         public void accept(Node start, Visitor... visitors) {
-            final Set<Node> done = new HashSet<Node>();
-            final LinkedList<Node> queue = new LinkedList<Node>();
+            // Number of parents of each reached node that have not been visited yet
+            final Map<Node, Integer> remaining = new HashMap<Node, Integer>();
+            final ArrayDeque<Node> queue = new ArrayDeque<Node>();
             queue.add(start);
             
             while (!queue.isEmpty()) {
                 Node node = queue.poll();
-                if (!done.contains(node)) {     // don't visit more than once
-                    for (Visitor v: visitors) {
-                        v.visit(node);
-                    }
-                    done.add(node);
-                    for (Node child: node.getChildren()) {
-                        if (done.containsAll(child.getParents())) {     // check all parents are done first
-                            queue.add(child);
-                        }
+                for (Visitor v: visitors) {
+                    v.visit(node);
+                }
+                for (Node child: node.getChildren()) {
+                    Integer count = remaining.get(child);
+                    int left = (count == null ? child.getParents().size() : count) - 1;
+                    if (left == 0) {     // all parents are done
+                        remaining.remove(child);
+                        queue.add(child);
+                    } else {
+                        remaining.put(child, left);
                     }
                 }
             }
         }
     };
 
+    /**
+     * A topological traversal that visits the same nodes as {@link #BFS_MAX} and visits the nodes of each level in
+     * parallel in the common fork-join pool. Visitors have to be thread-safe, see {@link ParallelTraversal}.
+     */
+    final public static Traversal PARALLEL = new ParallelTraversal();
+
     public void accept(Ontology ont, Visitor... visitors);
     public void accept(Node node, Visitor... visitors);
     
@@ -0,0 +1,77 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.Datatype;
+import au.csiro.ontology.model.Existential;
+import au.csiro.ontology.model.IntegerLiteral;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedFeature;
+import au.csiro.ontology.model.NamedRole;
+import au.csiro.ontology.model.Operator;
+import au.csiro.ontology.model.Role;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link Factory}.
+ */
+public class FactoryTest {
+
+    @Test
+    public void testHashConsing() {
+        final Role group = Factory.canonical(Factory.createNamedRole("609096000"));
+        final Concept site1 = Factory.canonical(Factory.createExistential(Factory.createNamedRole("363698007"),
+                Factory.createNamedConcept("71341001")));
+        final Concept site2 = Factory.canonical(Factory.createExistential(Factory.createNamedRole("363698007"),
+                Factory.createNamedConcept("71341001")));
+        Assert.assertSame(site1, site2);
+
+        final Concept value = Factory.canonical(Factory.createDatatype(
+                Factory.createNamedFeature("700000111000036105"), Operator.EQUALS, Factory.createIntegerLiteral(5)));
+        final Concept g1 = Factory.canonical(Factory.createExistential(group,
+                Factory.canonical(Factory.createConjunction(site1, value))));
+        final Concept g2 = Factory.canonical(Factory.createExistential(group,
+                Factory.canonical(Factory.createConjunction(Arrays.asList(value, site2)))));
+        Assert.assertSame(g1, g2);
+
+        // Expressions that are not made canonical are new instances
+        final Concept g3 = Factory.createExistential(group, Factory.createConjunction(site1, value));
+        Assert.assertNotSame(g1, g3);
+        Assert.assertEquals(g1, g3);
+        Assert.assertEquals(g1.hashCode(), g3.hashCode());
+    }
+
+    @Test
+    public void testCachedHashCode() {
+        final Existential e = new Existential(new NamedRole("a"), Factory.createNamedConcept("b"));
+        final int before = e.hashCode();
+        e.setConcept(Factory.createNamedConcept("c"));
+        Assert.assertFalse(before == e.hashCode());
+        Assert.assertEquals(new Existential(new NamedRole("a"), Factory.createNamedConcept("c")), e);
+    }
+
+    @Test
+    public void testModifiedSubExpression() {
+        // The cached hash code is stale after a sub-expression is modified, but equality still compares the fields
+        final NamedConcept filler = new NamedConcept("b");
+        final Existential e = new Existential(new NamedRole("a"), filler);
+        e.hashCode();
+        filler.setId("c");
+        final Existential other = new Existential(new NamedRole("a"), new NamedConcept("c"));
+        Assert.assertTrue(e.equals(other));
+        Assert.assertTrue(other.equals(e));
+
+        final Datatype d = new Datatype(new NamedFeature("f"), Operator.EQUALS, new IntegerLiteral(1));
+        d.hashCode();
+        ((IntegerLiteral) d.getLiteral()).setValue(2);
+        Assert.assertTrue(d.equals(new Datatype(new NamedFeature("f"), Operator.EQUALS, new IntegerLiteral(2))));
+    }
+
+}
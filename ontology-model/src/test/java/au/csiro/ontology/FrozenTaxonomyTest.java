@@ -0,0 +1,154 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.util.Traversal;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link FrozenTaxonomy}.
+ */
+public class FrozenTaxonomyTest {
+
+    /**
+     * Creates the taxonomy TOP &gt; A, B &gt; C = D &gt; BOTTOM, with E under A.
+     */
+    private static Map<String, Node> createNodeMap() {
+        final Map<String, Node> nodeMap = new HashMap<String, Node>();
+        final Node top = createNode(nodeMap, NamedConcept.TOP);
+        final Node a = createNode(nodeMap, "A");
+        final Node b = createNode(nodeMap, "B");
+        final Node c = createNode(nodeMap, "C", "D");
+        final Node e = createNode(nodeMap, "E");
+        final Node bottom = createNode(nodeMap, NamedConcept.BOTTOM);
+        link(top, a);
+        link(top, b);
+        link(a, c);
+        link(b, c);
+        link(a, e);
+        link(c, bottom);
+        link(e, bottom);
+        return nodeMap;
+    }
+
+    private static Node createNode(Map<String, Node> nodeMap, String... ids) {
+        final Node node = new Node();
+        for (String id : ids) {
+            node.getEquivalentConcepts().add(id);
+            nodeMap.put(id, node);
+        }
+        return node;
+    }
+
+    private static void link(Node parent, Node child) {
+        parent.getChildren().add(child);
+        child.getParents().add(parent);
+    }
+
+    private static Set<String> ids(Set<Node> nodes) {
+        final Set<String> res = new HashSet<String>();
+        for (Node n : nodes) {
+            res.addAll(n.getEquivalentConcepts());
+        }
+        return res;
+    }
+
+    @Test
+    public void testFreeze() {
+        final Map<String, Node> nodeMap = createNodeMap();
+        final FrozenTaxonomy taxonomy = FrozenTaxonomy.freeze(nodeMap);
+        Assert.assertEquals(6, taxonomy.getNodeCount());
+        Assert.assertEquals(7, taxonomy.getConceptCount());
+        Assert.assertEquals(0, taxonomy.getTopIndex());
+        Assert.assertEquals(taxonomy.getNodeCount() - 1, taxonomy.getBottomIndex());
+        Assert.assertEquals(-1, taxonomy.getNodeIndex("X"));
+        Assert.assertNull(taxonomy.getNode("X"));
+
+        for (String id : nodeMap.keySet()) {
+            final Node expected = nodeMap.get(id);
+            final Node actual = taxonomy.getNode(id);
+            Assert.assertEquals(expected.getEquivalentConcepts(), actual.getEquivalentConcepts());
+            Assert.assertEquals(ids(expected.getParents()), ids(actual.getParents()));
+            Assert.assertEquals(ids(expected.getChildren()), ids(actual.getChildren()));
+            // Mutable nodes allocate their sets eagerly but views don't
+            Assert.assertNotNull(expected.equivalentConcepts);
+            Assert.assertNull(actual.equivalentConcepts);
+            Assert.assertNull(actual.parents);
+            Assert.assertNull(actual.children);
+            // Parents are numbered before their children
+            final int n = taxonomy.getNodeIndex(actual);
+            for (int i = 0; i < taxonomy.getParentCount(n); i++) {
+                Assert.assertTrue(taxonomy.getParent(n, i) < n);
+            }
+        }
+
+        // Views of the same node are equal
+        Assert.assertEquals(taxonomy.getNode("C"), taxonomy.getNode("D"));
+        Assert.assertTrue(taxonomy.getNode("A").getChildren().contains(taxonomy.getNode("D")));
+        Assert.assertFalse(taxonomy.getNode("B").getChildren().contains(taxonomy.getNode("E")));
+        Assert.assertEquals("{C, D}", taxonomy.getNode("D").toString());
+
+        final Map<String, Node> map = taxonomy.asMap();
+        Assert.assertEquals(nodeMap.keySet(), map.keySet());
+        Assert.assertEquals(taxonomy.getNode("E"), map.get("E"));
+        try {
+            taxonomy.getNode("E").getParents().add(taxonomy.getNode("B"));
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testOntology() {
+        final Ontology ont = new Ontology("test", "1", null, createNodeMap());
+        ont.setAffectedNodes(Collections.singleton(ont.getNode("E")));
+        final List<String> expected = traverse(ont);
+        final Map<Node, Object> expectedStats = Traversal.Stats.computeStats(ont);
+
+        ont.freeze();
+        Assert.assertTrue(ont.isFrozen());
+        Assert.assertEquals(Arrays.asList("E"), new ArrayList<String>(ont.getAffectedNodes().iterator().next()
+                .getEquivalentConcepts()));
+        Assert.assertEquals(traverse(ont), expected);
+        final Map<Node, Object> stats = Traversal.Stats.computeStats(ont);
+        Assert.assertEquals(expectedStats.size(), stats.size());
+        Assert.assertTrue(Arrays.equals((int[]) stats.get(ont.getNode("C")), new int[] { 2, 2 }));
+        Assert.assertTrue(Arrays.equals((int[]) stats.get(ont.getBottomNode()), new int[] { 3, 3 }));
+
+        ont.setNodeMap(createNodeMap());
+        Assert.assertFalse(ont.isFrozen());
+        Assert.assertEquals(7, ont.getNodeMap().size());
+    }
+
+    /**
+     * Returns the nodes visited by a breadth-first traversal, in the order of the levels and sorted within each level.
+     */
+    private static List<String> traverse(Ontology ont) {
+        final List<String> res = new ArrayList<String>();
+        final Map<Node, Object> stats = Traversal.Stats.computeStats(ont);
+        final Map<String, Integer> levels = new HashMap<String, Integer>();
+        for (Map.Entry<Node, Object> e : stats.entrySet()) {
+            levels.put(e.getKey().toString(), ((int[]) e.getValue())[1]);
+        }
+        res.addAll(levels.keySet());
+        Collections.sort(res, (x, y) -> levels.get(x) != levels.get(y).intValue() ? levels.get(x) - levels.get(y)
+                : x.compareTo(y));
+        return res;
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.model.Datatype;
+import au.csiro.ontology.model.Existential;
+import au.csiro.ontology.model.IntegerLiteral;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedFeature;
+import au.csiro.ontology.model.NamedRole;
+import au.csiro.ontology.model.Operator;
+
+/**
+ * Compares the size and the time taken to encode and decode SNOMED-like axioms with {@link AxiomCodec} and with the
+ * JSON representation of {@link AxiomUtils}.
+ * <p>
+ * Not run as part of the unit tests. Usage: {@code AxiomCodecBenchmark [axioms]}.
+ */
+public class AxiomCodecBenchmark {
+
+    public static void main(String[] args) {
+        final int numAxioms = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        final List<Axiom> axioms = createAxioms(numAxioms);
+        System.out.println("Axioms: " + numAxioms);
+
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            final List<String> json = new ArrayList<>(axioms.size());
+            long size = 0;
+            for (Axiom a : axioms) {
+                final String s = AxiomUtils.serialise(a);
+                json.add(s);
+                size += s.getBytes(StandardCharsets.UTF_8).length;
+            }
+            final long jsonWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (String s : json) {
+                AxiomUtils.deserialise(s);
+            }
+            final long jsonRead = System.nanoTime() - start;
+            print("json  ", size, jsonWrite, jsonRead);
+
+            start = System.nanoTime();
+            final byte[] bytes = AxiomCodec.encode(axioms);
+            final long binaryWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            AxiomCodec.decode(bytes);
+            final long binaryRead = System.nanoTime() - start;
+            print("binary", bytes.length, binaryWrite, binaryRead);
+        }
+    }
+
+    private static void print(String name, long size, long write, long read) {
+        System.out.println(String.format("%s: %8d KB, write %6d ms, read %6d ms", name, size >> 10,
+                write / 1000000, read / 1000000));
+    }
+
+    /**
+     * Fully defined concepts with two role groups, from a small pool of attributes and values.
+     */
+    private static List<Axiom> createAxioms(int numAxioms) {
+        final NamedRole group = new NamedRole("609096000");
+        final NamedRole site = new NamedRole("363698007");
+        final NamedRole morphology = new NamedRole("116676008");
+        final NamedFeature strength = new NamedFeature("732944001");
+        final List<Axiom> res = new ArrayList<>(numAxioms);
+        for (int i = 0; i < numAxioms; i++) {
+            final Concept g1 = new Existential(group, new Conjunction(new Concept[] {
+                    new Existential(site, new NamedConcept(Integer.toString(10000000 + i % 1000))),
+                    new Existential(morphology, new NamedConcept(Integer.toString(20000000 + i % 100))) }));
+            final Concept g2 = new Existential(group,
+                    new Datatype(strength, Operator.EQUALS, new IntegerLiteral(i % 50)));
+            res.add(new ConceptInclusion(new NamedConcept(Integer.toString(30000000 + i)),
+                    new Conjunction(new Concept[] { new NamedConcept(Integer.toString(40000000 + i % 500)), g1,
+                            g2 })));
+        }
+        return res;
+    }
+
+}
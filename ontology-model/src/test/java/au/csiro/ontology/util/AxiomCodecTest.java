@@ -0,0 +1,128 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.BigIntegerLiteral;
+import au.csiro.ontology.model.BooleanLiteral;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.model.Datatype;
+import au.csiro.ontology.model.DateLiteral;
+import au.csiro.ontology.model.DecimalLiteral;
+import au.csiro.ontology.model.DoubleLiteral;
+import au.csiro.ontology.model.Existential;
+import au.csiro.ontology.model.FloatLiteral;
+import au.csiro.ontology.model.FunctionalFeature;
+import au.csiro.ontology.model.IntegerLiteral;
+import au.csiro.ontology.model.Literal;
+import au.csiro.ontology.model.LongLiteral;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedFeature;
+import au.csiro.ontology.model.NamedRole;
+import au.csiro.ontology.model.Operator;
+import au.csiro.ontology.model.Role;
+import au.csiro.ontology.model.RoleInclusion;
+import au.csiro.ontology.model.StringLiteral;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link AxiomCodec}.
+ */
+@SuppressWarnings("deprecation")
+public class AxiomCodecTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Calendar date = Calendar.getInstance(TimeZone.getTimeZone("Australia/Brisbane"));
+        date.setTimeInMillis(1356998400000L);
+        final Literal[] literals = { new IntegerLiteral(-21), new LongLiteral(Long.MAX_VALUE),
+                new FloatLiteral(2.5f), new DoubleLiteral(-0.1), new DecimalLiteral(new BigDecimal("1.50")),
+                new BigIntegerLiteral(new BigInteger("123456789012345678901234567890")),
+                new StringLiteral("mg/µL"), new DateLiteral(date), new BooleanLiteral(true) };
+
+        final NamedFeature f = new NamedFeature("f");
+        final Concept group = new Existential(new NamedRole("roleGroup"), new Conjunction(new Concept[] {
+                new Existential(new NamedRole("site"), new NamedConcept("71341001")),
+                new Datatype(f, Operator.GREATER_THAN, new IntegerLiteral(5)) }));
+
+        final List<Axiom> axioms = new ArrayList<>();
+        for (Literal l : literals) {
+            axioms.add(new ConceptInclusion(new NamedConcept("A"), new Datatype(f, Operator.EQUALS, l)));
+        }
+        for (int i = 0; i < 10; i++) {
+            axioms.add(new ConceptInclusion(new NamedConcept("C" + i),
+                    new Conjunction(new Concept[] { NamedConcept.TOP_CONCEPT, group })));
+        }
+        axioms.add(new ConceptInclusion(NamedConcept.BOTTOM_CONCEPT, new NamedConcept("A")));
+        axioms.add(new RoleInclusion(new Role[] { new NamedRole("r"), new NamedRole("s") }, new NamedRole("r")));
+        axioms.add(new RoleInclusion(new NamedRole("site"), new NamedRole("r")));
+        axioms.add(new FunctionalFeature(f));
+
+        final byte[] bytes = AxiomCodec.encode(axioms);
+        final List<Axiom> decoded = AxiomCodec.decode(bytes);
+        Assert.assertEquals(axioms.size(), decoded.size());
+        for (int i = 0; i < axioms.size(); i++) {
+            assertAxiomEquals(axioms.get(i), decoded.get(i));
+        }
+
+        // Repeated sub-expressions are decoded as the same instance
+        final Concept g1 = ((ConceptInclusion) decoded.get(literals.length)).getRhs();
+        final Concept g2 = ((ConceptInclusion) decoded.get(literals.length + 1)).getRhs();
+        Assert.assertSame(g1, g2);
+        Assert.assertTrue(Arrays.asList(((Conjunction) g1).getConcepts()).stream()
+                .anyMatch(c -> c == NamedConcept.TOP_CONCEPT));
+
+        // Streaming
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (AxiomCodec.Writer writer = new AxiomCodec.Writer(baos)) {
+            for (Axiom a : axioms) {
+                writer.write(a);
+            }
+        }
+        Assert.assertTrue(Arrays.equals(bytes, baos.toByteArray()));
+        try (AxiomCodec.Reader reader = new AxiomCodec.Reader(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < axioms.size(); i++) {
+                assertAxiomEquals(axioms.get(i), reader.read());
+            }
+            Assert.assertNull(reader.read());
+            Assert.assertNull(reader.read());
+        }
+    }
+
+    /**
+     * Role inclusions don't implement equals, and the order of the concepts of a conjunction can change when it is
+     * created again, so axioms are compared with equals except for role inclusions.
+     */
+    private static void assertAxiomEquals(Axiom expected, Axiom actual) {
+        if (expected instanceof RoleInclusion) {
+            Assert.assertEquals(expected.toString(), actual.toString());
+        } else {
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncated() {
+        final byte[] bytes = AxiomCodec.encode(Arrays.asList(
+                new ConceptInclusion(new NamedConcept("A"), new NamedConcept("B"))));
+        AxiomCodec.decode(Arrays.copyOf(bytes, bytes.length - 2));
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import au.csiro.ontology.model.Axiom;
+import au.csiro.ontology.model.Concept;
+import au.csiro.ontology.model.ConceptInclusion;
+import au.csiro.ontology.model.Conjunction;
+import au.csiro.ontology.model.Existential;
+import au.csiro.ontology.model.NamedConcept;
+import au.csiro.ontology.model.NamedRole;
+
+/**
+ * Measures the throughput of the JSON serialisation of {@link AxiomUtils} when it is called from several threads,
+ * and of the batch methods.
+ * <p>
+ * Not run as part of the unit tests. Usage: {@code AxiomUtilsBenchmark [axioms]}.
+ */
+public class AxiomUtilsBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int numAxioms = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final List<Axiom> axioms = createAxioms(numAxioms);
+        System.out.println("Axioms: " + numAxioms + ", processors: " + Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < 3; i++) {
+            for (int threads = 1; threads <= 8; threads *= 2) {
+                measureThreads(axioms, threads);
+            }
+            final long start = System.nanoTime();
+            AxiomUtils.deserialise(AxiomUtils.serialise(axioms));
+            print("batch    ", numAxioms, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Splits the axioms between a number of threads that serialise and deserialise them one at a time.
+     */
+    private static void measureThreads(List<Axiom> axioms, int threads) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            final long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                final List<Axiom> slice = axioms.subList(axioms.size() * t / threads,
+                        axioms.size() * (t + 1) / threads);
+                futures.add(executor.submit(() -> {
+                    for (Axiom a : slice) {
+                        AxiomUtils.deserialise(AxiomUtils.serialise(a));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            print(String.format("%d threads", threads), axioms.size(), System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void print(String name, int numAxioms, long time) {
+        System.out.println(String.format("%s: %6d ms, %8d axioms/s", name, time / 1000000,
+                numAxioms * 1000000000L / time));
+    }
+
+    private static List<Axiom> createAxioms(int numAxioms) {
+        final NamedRole group = new NamedRole("609096000");
+        final NamedRole site = new NamedRole("363698007");
+        final List<Axiom> res = new ArrayList<>(numAxioms);
+        for (int i = 0; i < numAxioms; i++) {
+            res.add(new ConceptInclusion(new NamedConcept(Integer.toString(30000000 + i)),
+                    new Conjunction(new Concept[] { new NamedConcept(Integer.toString(40000000 + i % 500)),
+                            new Existential(group, new Existential(site,
+                                    new NamedConcept(Integer.toString(10000000 + i % 1000)))) })));
+        }
+        return res;
+    }
+
+}
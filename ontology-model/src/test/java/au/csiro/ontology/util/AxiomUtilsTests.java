@@ -6,6 +6,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -101,6 +105,40 @@ public class AxiomUtilsTests {
         //assertEquals(ax4, ax4b); FIXME: deserialisation not keeping conjunction order!
     }
 
+    @Test
+    public void testConcurrent() throws Exception {
+        final List<Axiom> axioms = new ArrayList<Axiom>();
+        for (int i = 0; i < 200; i++) {
+            axioms.add(createAxiom("C" + i, new Existential(new NamedRole("r"), new NamedConcept("D" + i))));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    for (Axiom ax : axioms) {
+                        if (!ax.equals(AxiomUtils.deserialise(AxiomUtils.serialise(ax)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> res : results) {
+                assertTrue(res.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        // Batches keep the order of the axioms
+        List<String> strings = AxiomUtils.serialise(axioms);
+        assertEquals(axioms.size(), strings.size());
+        assertEquals(AxiomUtils.serialise(axioms.get(100)), strings.get(100));
+        assertEquals(axioms, AxiomUtils.deserialise(strings));
+    }
+
     private Axiom createAxiom(String c1, Concept concept) {
         Concept lhs = new NamedConcept(c1);
         Concept rhs = concept;
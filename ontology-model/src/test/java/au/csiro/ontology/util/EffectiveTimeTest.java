@@ -0,0 +1,68 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link EffectiveTime}.
+ */
+public class EffectiveTimeTest {
+
+    @Test
+    public void testOrder() {
+        final String[] times = { "20020131", "20020131T000001Z", "20020131T235959Z", "20020201", "20100731",
+                "20130131T120000Z", "20130201" };
+        for (int i = 0; i < times.length; i++) {
+            for (int j = 0; j < times.length; j++) {
+                final int expected = Integer.signum(Integer.compare(i, j));
+                Assert.assertEquals(times[i] + " vs " + times[j], expected,
+                        Integer.signum(EffectiveTime.parse(times[i]).compareTo(EffectiveTime.parse(times[j]))));
+            }
+        }
+
+        // A date is the same as the start of the day
+        Assert.assertEquals(EffectiveTime.parse("20120731"), EffectiveTime.parse("20120731T000000Z"));
+    }
+
+    @Test
+    public void testPack() {
+        final String time = "x20130131T120304Zx";
+        final byte[] bytes = time.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(EffectiveTime.pack(time.substring(1, 17)), EffectiveTime.pack(bytes, 1, 16));
+        Assert.assertEquals(EffectiveTime.pack("20130131"), EffectiveTime.pack(bytes, 1, 8));
+
+        final EffectiveTime et = EffectiveTime.parse("20130131T120304Z");
+        Assert.assertEquals(20130131, et.getDate());
+        Assert.assertEquals(120304, et.getTime());
+        Assert.assertEquals("20130131T120304Z", et.toString());
+        Assert.assertEquals("20130131", EffectiveTime.parse("20130131").toString());
+        Assert.assertEquals(et, EffectiveTime.valueOf(et.getValue()));
+
+        // Delta and authoring rows can have no effective time
+        Assert.assertEquals(-1, EffectiveTime.packOptional(null));
+        Assert.assertEquals(-1, EffectiveTime.packOptional(""));
+        Assert.assertEquals(-1, EffectiveTime.packOptional(" "));
+        Assert.assertEquals(EffectiveTime.pack("20130131"), EffectiveTime.packOptional("20130131"));
+    }
+
+    @Test
+    public void testInvalid() {
+        for (String time : new String[] { "", "2013013", "201301311", "20131301", "20130100", "2013O131",
+                "20130131T240000Z", "20130131T120000", "20130131 120000Z", "effectiveTime" }) {
+            try {
+                EffectiveTime.pack(time);
+                Assert.fail("Expected an exception for " + time);
+            } catch (RuntimeException e) {
+                // Expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link LongMap} and {@link LongSet}.
+ */
+public class LongMapTest {
+
+    @Test
+    public void testMap() {
+        final Random rnd = new Random(42);
+        final LongMap<String> map = new LongMap<>();
+        final Map<Long, String> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            final long key = rnd.nextInt(5000) * 1000000000L + 1000000017L;
+            if (rnd.nextInt(4) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                final String value = Integer.toString(i);
+                final String old = expected.get(key);
+                if (old == null) {
+                    expected.put(key, value);
+                } else {
+                    expected.replace(key, value);
+                }
+                Assert.assertEquals(old, map.put(key, value));
+            }
+        }
+
+        Assert.assertEquals(expected.size(), map.size());
+        final List<Long> keys = new ArrayList<>();
+        for (long key : map.keys()) {
+            keys.add(key);
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+        Assert.assertEquals(new ArrayList<>(expected.keySet()), keys);
+        Assert.assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        Assert.assertNull(map.get(0));
+        Assert.assertFalse(map.containsKey(1));
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.cursor().next());
+    }
+
+    @Test
+    public void testSet() {
+        final Random rnd = new Random(7);
+        final LongSet set = new LongSet();
+        final Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            final long value = rnd.nextInt(2000) - 1000;
+            if (rnd.nextBoolean()) {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            } else {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+
+        final Set<Long> actual = new HashSet<>();
+        final PrimitiveIterator.OfLong it = set.iterator();
+        while (it.hasNext()) {
+            actual.add(it.nextLong());
+        }
+        Assert.assertEquals(expected, actual);
+        for (long v = -1000; v < 1000; v++) {
+            Assert.assertEquals(expected.contains(v), set.contains(v));
+        }
+    }
+
+}
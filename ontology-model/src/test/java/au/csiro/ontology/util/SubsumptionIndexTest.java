@@ -0,0 +1,118 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import au.csiro.ontology.Node;
+import au.csiro.ontology.Ontology;
+import au.csiro.ontology.model.NamedConcept;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link SubsumptionIndex}.
+ */
+public class SubsumptionIndexTest {
+
+    /**
+     * Creates a random classified taxonomy where concepts can have several parents, and every leaf is a parent of the
+     * bottom node.
+     */
+    private static Map<String, Node> createNodeMap(int numConcepts, long seed) {
+        final Random random = new Random(seed);
+        final Map<String, Node> nodeMap = new HashMap<String, Node>();
+        final List<Node> nodes = new ArrayList<Node>();
+        final Node top = new Node();
+        top.getEquivalentConcepts().add(NamedConcept.TOP);
+        nodeMap.put(NamedConcept.TOP, top);
+        nodes.add(top);
+        for (int i = 0; i < numConcepts; i++) {
+            final Node node = new Node();
+            node.getEquivalentConcepts().add("C" + i);
+            nodeMap.put("C" + i, node);
+            if (i % 10 == 0) {
+                node.getEquivalentConcepts().add("E" + i);
+                nodeMap.put("E" + i, node);
+            }
+            final int numParents = 1 + (random.nextInt(4) == 0 ? random.nextInt(3) : 0);
+            for (int j = 0; j < numParents; j++) {
+                final Node parent = nodes.get(random.nextInt(nodes.size()));
+                parent.getChildren().add(node);
+                node.getParents().add(parent);
+            }
+            nodes.add(node);
+        }
+        final Node bottom = new Node();
+        bottom.getEquivalentConcepts().add(NamedConcept.BOTTOM);
+        nodeMap.put(NamedConcept.BOTTOM, bottom);
+        for (Node n : nodes) {
+            if (n.getChildren().isEmpty()) {
+                n.getChildren().add(bottom);
+                bottom.getParents().add(n);
+            }
+        }
+        return nodeMap;
+    }
+
+    private static Set<Node> ancestors(Node node) {
+        final Set<Node> res = new HashSet<Node>();
+        final Deque<Node> queue = new ArrayDeque<Node>();
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            final Node n = queue.poll();
+            if (res.add(n)) {
+                queue.addAll(n.getParents());
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void testIndex() {
+        final Map<String, Node> nodeMap = createNodeMap(400, 42);
+        final Ontology ont = new Ontology("test", "1", null, nodeMap);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final SubsumptionIndex index;
+        try {
+            index = SubsumptionIndex.build(ont, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        final List<String> ids = new ArrayList<String>(nodeMap.keySet());
+        for (String a : ids) {
+            final Set<Node> ancestors = ancestors(nodeMap.get(a));
+            for (String b : ids) {
+                final Node nb = nodeMap.get(b);
+                final boolean expected = ancestors.contains(nb) || NamedConcept.BOTTOM.equals(a);
+                Assert.assertEquals(a + " < " + b, expected, index.isSubsumedBy(a, b));
+                Assert.assertEquals(expected && nodeMap.get(a) != nb, index.isDescendantOf(a, b));
+                Assert.assertEquals(expected && nodeMap.get(a) != nb, index.isAncestorOf(b, a));
+            }
+        }
+        Assert.assertTrue(index.isEquivalent("C10", "E10"));
+        Assert.assertFalse(index.isSubsumedBy("C1", "X"));
+        Assert.assertTrue(index.getIntervalCount() < 2 * nodeMap.size());
+
+        // Frozen ontologies use their taxonomy
+        ont.freeze();
+        final SubsumptionIndex frozen = SubsumptionIndex.build(ont);
+        Assert.assertSame(ont.getFrozenTaxonomy(), frozen.getTaxonomy());
+        Assert.assertTrue(frozen.isSubsumedBy(ont.getNode("C5"), ont.getTopNode()));
+        Assert.assertEquals(index.isSubsumedBy("C20", "C3"), frozen.isSubsumedBy("C20", "C3"));
+    }
+
+}
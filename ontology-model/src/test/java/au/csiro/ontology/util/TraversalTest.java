@@ -0,0 +1,112 @@
+/**
+ * Copyright CSIRO Australian e-Health Research Centre (http://aehrc.com).
+ * All rights reserved. Use is subject to license terms and conditions.
+ */
+package au.csiro.ontology.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import au.csiro.ontology.Node;
+import au.csiro.ontology.Ontology;
+import au.csiro.ontology.model.NamedConcept;
+import junit.framework.Assert;
+
+/**
+ * Unit tests for {@link Traversal} and {@link ParallelTraversal}.
+ */
+public class TraversalTest {
+
+    /**
+     * Creates a random taxonomy where concepts can have several parents.
+     */
+    private static Map<String, Node> createNodeMap(int numConcepts, long seed) {
+        final Random random = new Random(seed);
+        final Map<String, Node> nodeMap = new HashMap<String, Node>();
+        final List<Node> nodes = new ArrayList<Node>();
+        final Node top = new Node();
+        top.getEquivalentConcepts().add(NamedConcept.TOP);
+        nodeMap.put(NamedConcept.TOP, top);
+        nodes.add(top);
+        for (int i = 0; i < numConcepts; i++) {
+            final Node node = new Node();
+            node.getEquivalentConcepts().add("C" + i);
+            nodeMap.put("C" + i, node);
+            final int numParents = 1 + (random.nextInt(4) == 0 ? random.nextInt(3) : 0);
+            for (int j = 0; j < numParents; j++) {
+                final Node parent = nodes.get(random.nextInt(nodes.size()));
+                parent.getChildren().add(node);
+                node.getParents().add(parent);
+            }
+            nodes.add(node);
+        }
+        return nodeMap;
+    }
+
+    /**
+     * Traverses from a node and returns the order in which each concept was visited.
+     */
+    private static Map<String, Integer> traverse(Traversal traversal, Node start) {
+        final Map<String, Integer> order = new ConcurrentHashMap<String, Integer>();
+        final AtomicInteger counter = new AtomicInteger();
+        traversal.accept(start, new Traversal.Visitor() {
+            public void visit(Node node) {
+                final int i = counter.getAndIncrement();
+                for (String id : node.getEquivalentConcepts()) {
+                    Assert.assertNull(order.put(id, i));
+                }
+            }
+        });
+        return order;
+    }
+
+    /**
+     * Checks that the parents of every visited node, except the start node, were visited before it.
+     */
+    private static void assertTopological(Ontology ont, String start, Map<String, Integer> order) {
+        for (Map.Entry<String, Integer> e : order.entrySet()) {
+            if (e.getKey().equals(start)) {
+                continue;
+            }
+            for (Node parent : ont.getNode(e.getKey()).getParents()) {
+                final Integer p = order.get(parent.getEquivalentConcepts().iterator().next());
+                Assert.assertTrue(p != null && p < e.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        final Ontology ont = new Ontology("test", "1", null, createNodeMap(500, 7));
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelTraversal parallel = new ParallelTraversal(pool);
+            for (String start : new String[] { NamedConcept.TOP, "C3" }) {
+                final Map<String, Integer> expected = traverse(Traversal.BFS_MAX, ont.getNode(start));
+                final Map<String, Integer> actual = traverse(parallel, ont.getNode(start));
+                Assert.assertEquals(expected.keySet(), actual.keySet());
+                assertTopological(ont, start, expected);
+                assertTopological(ont, start, actual);
+            }
+            Assert.assertEquals(ont.getNodeMap().size(), traverse(parallel, ont.getTopNode()).size());
+
+            // Runs on the arrays of a frozen taxonomy
+            final Map<String, Integer> expected = traverse(parallel, ont.getNode("C3"));
+            ont.freeze();
+            final Map<String, Integer> actual = traverse(parallel, ont.getNode("C3"));
+            Assert.assertEquals(expected.keySet(), actual.keySet());
+            assertTopological(ont, "C3", actual);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}